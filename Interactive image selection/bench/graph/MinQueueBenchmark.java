@@ -0,0 +1,157 @@
+package graph;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import scissors.BenchSupport;
+
+/**
+ * Compares `MinQueue` implementations on Dijkstra-like workloads:
+ * <ul>
+ *   <li>`insertHeavy`: add `size` keys with random priorities, then remove them all.</li>
+ *   <li>`decreaseKeyHeavy`: add `size` keys, then repeatedly lower the priorities of random keys,
+ *   removing the minimum after every few updates (about the ratio seen in searches of 8-connected
+ *   pixel grids) until the queue is empty.</li>
+ *   <li>`solveTrace`: replay the queue operations recorded from finding all shortest paths in
+ *   McGraw_Tower.jpg (see `BenchSupport`).</li>
+ * </ul>
+ * Results are in operations (whole workloads) per second.  To compare a new implementation, add
+ * its name to `queue` and construct it in `newQueue()`.
+ * <p>
+ * Run `main()` from the module directory (so that the image can be found) with JMH and its
+ * annotation processor on the classpath; it also reports allocation rates using JMH's GC
+ * profiler.  Command-line JMH options (e.g. `-p queue=Heap`) may be given instead by running
+ * `org.openjdk.jmh.Main`, adding `-prof gc` for allocation rates.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MinQueueBenchmark {
+
+    /**
+     * The queue implementation to benchmark.
+     */
+    @Param({"Heap", "Ref"})
+    public String queue;
+
+    /**
+     * The number of keys in the synthetic workloads.
+     */
+    @Param({"10000"})
+    public int size;
+
+    /**
+     * The number of priority updates per removal in `decreaseKeyHeavy`.
+     */
+    private static final int UPDATES_PER_REMOVAL = 4;
+
+    /**
+     * Random priorities for `insertHeavy`, and the keys and priority decrements for the updates of
+     * `decreaseKeyHeavy`.  Generated in advance so that random number generation is not measured.
+     */
+    private int[] priorities;
+    private int[] updateKeys;
+    private int[] decrements;
+
+    /**
+     * Queue operations recorded from a real solve.
+     */
+    private QueueTrace trace;
+
+    /**
+     * Return a new, empty queue of the implementation named `name` ("Heap" or "Ref").
+     */
+    public static MinQueue<Integer> newQueue(String name) {
+        return switch (name) {
+            case "Heap" -> new HeapMinQueue<>();
+            case "Ref" -> new RefMinQueue<>();
+            default -> throw new IllegalArgumentException("Unknown queue: " + name);
+        };
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        Random rng = new Random(2110);
+        priorities = new int[size];
+        for (int i = 0; i < size; ++i) {
+            priorities[i] = rng.nextInt(1 << 24);
+        }
+        updateKeys = new int[size * UPDATES_PER_REMOVAL];
+        decrements = new int[updateKeys.length];
+        for (int i = 0; i < updateKeys.length; ++i) {
+            updateKeys[i] = rng.nextInt(size);
+            decrements[i] = rng.nextInt(256);
+        }
+        trace = BenchSupport.recordSolve(BenchSupport.loadImage(), "CrossGradMono");
+    }
+
+    @Benchmark
+    public void insertHeavy(Blackhole bh) {
+        MinQueue<Integer> q = newQueue(queue);
+        for (int key = 0; key < size; ++key) {
+            q.addOrUpdate(key, priorities[key]);
+        }
+        while (!q.isEmpty()) {
+            bh.consume(q.remove());
+        }
+    }
+
+    @Benchmark
+    public void decreaseKeyHeavy(Blackhole bh) {
+        MinQueue<Integer> q = newQueue(queue);
+        // Track priorities (and which keys have been removed) as a search's distances would
+        int[] current = new int[size];
+        for (int key = 0; key < size; ++key) {
+            current[key] = (1 << 24) + priorities[key];
+            q.addOrUpdate(key, current[key]);
+        }
+        int u = 0;
+        while (!q.isEmpty()) {
+            for (int i = 0; i < UPDATES_PER_REMOVAL && u < updateKeys.length; ++i, ++u) {
+                int key = updateKeys[u];
+                if (current[key] >= 0) {
+                    current[key] = Math.max(0, current[key] - decrements[u]);
+                    q.addOrUpdate(key, current[key]);
+                }
+            }
+            int removed = q.remove();
+            current[removed] = -1;
+            bh.consume(removed);
+        }
+    }
+
+    @Benchmark
+    public long solveTrace() {
+        return trace.replay(newQueue(queue));
+    }
+
+    /**
+     * Run all benchmarks in this class with allocation profiling.
+     */
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(MinQueueBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
@@ -0,0 +1,135 @@
+package graph;
+
+import java.util.Arrays;
+
+/**
+ * A recorded sequence of `MinQueue<Integer>` mutations (as performed by a real search) that can be
+ * replayed against any queue implementation.  Record a trace by giving a `recorder()` queue to the
+ * code being traced; it forwards every operation to a backing queue, so the traced code behaves
+ * exactly as it would without it.
+ */
+public class QueueTrace {
+
+    /**
+     * Operation code stored in `keys` for a call to `remove()`.  Non-negative codes are the keys
+     * passed to `addOrUpdate()`.
+     */
+    private static final int REMOVE = -1;
+
+    /**
+     * `keys[i]` is the key added or updated by the `i`th operation, or REMOVE, and
+     * `priorities[i]` is the priority it was given (unspecified for removals), for `i` in
+     * [0..size).
+     */
+    private int[] keys = new int[1024];
+    private int[] priorities = new int[1024];
+    private int size;
+
+    /**
+     * The numbers of `addOrUpdate()` and `remove()` operations recorded.
+     */
+    private int updates;
+    private int removals;
+
+    /**
+     * Return the number of operations recorded.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Return the numbers of `addOrUpdate()` and `remove()` operations recorded.
+     */
+    public int updates() {
+        return updates;
+    }
+
+    public int removals() {
+        return removals;
+    }
+
+    /**
+     * Append an operation to this trace.
+     */
+    private void append(int key, int priority) {
+        if (size == keys.length) {
+            keys = Arrays.copyOf(keys, 2 * size);
+            priorities = Arrays.copyOf(priorities, 2 * size);
+        }
+        keys[size] = key;
+        priorities[size] = priority;
+        size += 1;
+    }
+
+    /**
+     * Perform the recorded operations, in order, on `queue` (which should initially be empty), and
+     * return a checksum of the keys removed.  Keys removed when priorities tie may legitimately
+     * differ between implementations, so checksums are only comparable for the same
+     * implementation.
+     */
+    public long replay(MinQueue<Integer> queue) {
+        long checksum = 0;
+        for (int i = 0; i < size; ++i) {
+            int key = keys[i];
+            if (key == REMOVE) {
+                checksum = 31 * checksum + queue.remove();
+            } else {
+                queue.addOrUpdate(key, priorities[i]);
+            }
+        }
+        return checksum;
+    }
+
+    /**
+     * Return a queue that performs each operation on `backing` and appends the mutating ones to
+     * this trace.
+     */
+    public MinQueue<Integer> recorder(MinQueue<Integer> backing) {
+        return new MinQueue<>() {
+            @Override
+            public boolean isEmpty() {
+                return backing.isEmpty();
+            }
+
+            @Override
+            public int size() {
+                return backing.size();
+            }
+
+            @Override
+            public Integer get() {
+                return backing.get();
+            }
+
+            @Override
+            public int minPriority() {
+                return backing.minPriority();
+            }
+
+            @Override
+            public void addOrUpdate(Integer key, int priority) {
+                append(key, priority);
+                updates += 1;
+                backing.addOrUpdate(key, priority);
+            }
+
+            @Override
+            public Integer remove() {
+                append(REMOVE, 0);
+                removals += 1;
+                return backing.remove();
+            }
+
+            @Override
+            public void clear() {
+                // Searches clear their queue before starting, so only record the search that
+                // follows the last clear
+                size = 0;
+                updates = 0;
+                removals = 0;
+                backing.clear();
+            }
+        };
+    }
+}
@@ -0,0 +1,192 @@
+package scissors;
+
+import graph.HeapMinQueue;
+import graph.QueueTrace;
+import graph.ShortestPaths;
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.GradientPaint;
+import java.awt.Graphics2D;
+import java.awt.Point;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.Random;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+
+/**
+ * Inputs shared by benchmarks: the benchmark images and realistic workloads derived from solving
+ * for shortest paths in them.
+ * <p>
+ * Images are named by specs, which are either file names (relative to the working directory,
+ * which should be the module directory) or "synthetic:N" for a generated square image of N
+ * megapixels (where a megapixel is 2^20 pixels, so N should be a perfect square for the side to
+ * be exact).
+ */
+public class BenchSupport {
+
+    /**
+     * The prefix of specs for synthetic images.
+     */
+    private static final String SYNTHETIC = "synthetic:";
+
+    /**
+     * Return the default image to benchmark with: the one whose spec is given by the system
+     * property `bench.image`, or "McGraw_Tower.jpg" by default.
+     */
+    public static BufferedImage loadImage() throws IOException {
+        return loadImage(System.getProperty("bench.image", "McGraw_Tower.jpg"));
+    }
+
+    /**
+     * Return the image with spec `spec`.
+     */
+    public static BufferedImage loadImage(String spec) throws IOException {
+        if (spec.startsWith(SYNTHETIC)) {
+            int side = syntheticSide(spec);
+            return syntheticImage(side, side);
+        }
+        File file = new File(spec);
+        BufferedImage img = ImageIO.read(file);
+        if (img == null) {
+            throw new IOException("Not a readable image: " + file.getAbsolutePath());
+        }
+        return img;
+    }
+
+    /**
+     * Return the number of pixels in the image with spec `spec`, without decoding or generating
+     * it.
+     */
+    public static long pixelCount(String spec) throws IOException {
+        Dimension size = imageSize(spec);
+        return (long) size.width * size.height;
+    }
+
+    /**
+     * Return the dimensions of the image with spec `spec`, without decoding or generating it.
+     */
+    public static Dimension imageSize(String spec) throws IOException {
+        if (spec.startsWith(SYNTHETIC)) {
+            int side = syntheticSide(spec);
+            return new Dimension(side, side);
+        }
+        File file = new File(spec);
+        try (ImageInputStream in = ImageIO.createImageInputStream(file)) {
+            Iterator<ImageReader> readers = (in == null) ? null : ImageIO.getImageReaders(in);
+            if (readers == null || !readers.hasNext()) {
+                throw new IOException("Not a readable image: " + file.getAbsolutePath());
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in);
+                return new Dimension(reader.getWidth(0), reader.getHeight(0));
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * Return the number of (directed) edges in the graph of an image of size `size`, in which
+     * each pixel is connected to its 8 neighbors.
+     */
+    public static long edgeCount(Dimension size) {
+        long w = size.width;
+        long h = size.height;
+        return 2 * (w - 1) * h + 2 * w * (h - 1) + 4 * (w - 1) * (h - 1);
+    }
+
+    /**
+     * Return a copy of `img` converted to the `BufferedImage` type named `typeName` (the name of
+     * one of its TYPE_ constants without the prefix, e.g. "3BYTE_BGR" or "USHORT_GRAY").
+     */
+    public static BufferedImage convert(BufferedImage img, String typeName) {
+        int type = switch (typeName) {
+            case "3BYTE_BGR" -> BufferedImage.TYPE_3BYTE_BGR;
+            case "INT_RGB" -> BufferedImage.TYPE_INT_RGB;
+            case "INT_ARGB" -> BufferedImage.TYPE_INT_ARGB;
+            case "BYTE_GRAY" -> BufferedImage.TYPE_BYTE_GRAY;
+            case "USHORT_GRAY" -> BufferedImage.TYPE_USHORT_GRAY;
+            default -> throw new IllegalArgumentException("Unknown image type: " + typeName);
+        };
+        BufferedImage converted = new BufferedImage(img.getWidth(), img.getHeight(), type);
+        Graphics2D g = converted.createGraphics();
+        g.drawImage(img, 0, 0, null);
+        g.dispose();
+        return converted;
+    }
+
+    /**
+     * Return the side length of the synthetic image with spec `spec`.
+     */
+    private static int syntheticSide(String spec) {
+        int megapixels = Integer.parseInt(spec.substring(SYNTHETIC.length()));
+        return (int) Math.round(1024 * Math.sqrt(megapixels));
+    }
+
+    /**
+     * Return a `width` by `height` image resembling a photograph for the purposes of pathfinding:
+     * smooth gradients, overlapping shapes with sharp and soft edges, and a little noise.  The
+     * same dimensions always produce the same image.
+     */
+    public static BufferedImage syntheticImage(int width, int height) {
+        BufferedImage img = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Random rng = new Random(2110);
+        Graphics2D g = img.createGraphics();
+        g.setPaint(new GradientPaint(0, 0, new Color(40, 60, 90), width, height,
+                new Color(200, 180, 150)));
+        g.fillRect(0, 0, width, height);
+        int shapes = 64 + (int) ((long) width * height >> 16);
+        for (int i = 0; i < shapes; ++i) {
+            g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, rng.nextBoolean()
+                    ? RenderingHints.VALUE_ANTIALIAS_ON : RenderingHints.VALUE_ANTIALIAS_OFF);
+            g.setColor(new Color(rng.nextInt(0x1000000)));
+            int w = 8 + rng.nextInt(Math.max(1, width / 8));
+            int h = 8 + rng.nextInt(Math.max(1, height / 8));
+            int x = rng.nextInt(width) - w / 2;
+            int y = rng.nextInt(height) - h / 2;
+            if (rng.nextBoolean()) {
+                g.fillOval(x, y, w, h);
+            } else {
+                g.fillRect(x, y, w, h);
+            }
+        }
+        g.dispose();
+
+        int[] pixels = ((DataBufferInt) img.getRaster().getDataBuffer()).getData();
+        for (int i = 0; i < pixels.length; ++i) {
+            int noise = rng.nextInt(9) - 4;
+            int p = pixels[i];
+            int r = Math.clamp(((p >> 16) & 0xff) + noise, 0, 255);
+            int gr = Math.clamp(((p >> 8) & 0xff) + noise, 0, 255);
+            int b = Math.clamp((p & 0xff) + noise, 0, 255);
+            pixels[i] = (r << 16) | (gr << 8) | b;
+        }
+        return img;
+    }
+
+    /**
+     * Return the ID of the vertex at the center of `graph`'s image, from which benchmarks search.
+     */
+    static int centerId(ImageGraph graph) {
+        return graph.idAt(new Point(graph.width() / 2, graph.height() / 2));
+    }
+
+    /**
+     * Return a trace of the frontier queue operations performed when finding all shortest paths
+     * in `img`, weighed by the weigher named `weightName`, from the pixel at its center.
+     */
+    public static QueueTrace recordSolve(BufferedImage img, String weightName) {
+        ImageGraph graph = new ImageGraph(img);
+        QueueTrace trace = new QueueTrace();
+        new ShortestPaths<>(graph, ScissorsWeights.makeWeigher(weightName, graph),
+                trace.recorder(new HeapMinQueue<>())).findAllPaths(centerId(graph));
+        return trace;
+    }
+}
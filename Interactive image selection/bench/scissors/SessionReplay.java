@@ -0,0 +1,364 @@
+package scissors;
+
+import static selector.SelectionModel.SelectionState.*;
+
+import java.awt.Point;
+import java.awt.image.BufferedImage;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.InvocationTargetException;
+import java.util.Arrays;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import javax.swing.SwingUtilities;
+import selector.PolyLine;
+import selector.SelectionModel.SelectionState;
+import selector.SessionRecording;
+import selector.SessionRecording.Event;
+
+/**
+ * Replays a recorded selection session (see `SessionRecording`) against a `ScissorsSelectionModel`
+ * without a GUI, and reports percentiles of the latencies a user would have experienced:
+ * <ul>
+ *   <li>click to live wire ready: from adding a point until the model is SELECTING again (i.e.,
+ *   until live wires from the new point can be shown).</li>
+ *   <li>live wire query: computing the live wire to a recorded mouse location while SELECTING,
+ *   using `liveWireFunction()` off the EDT as `SelectionComponent` does.</li>
+ *   <li>move point: from moving a control point until the selection has been updated with the
+ *   replacement segments.</li>
+ * </ul>
+ * The model notifies listeners on the thread that changes it (`notifyOnEdt` is false), but is
+ * still only changed on the EDT, where its background solves deliver their results.  Recorded
+ * pauses between events are reproduced (scaled by `speed`), so that solves are debounced and
+ * overlap with mouse movement as they did for the user.  Each operation is waited for before the
+ * next event is replayed, since the user could not have taken the next action before then; this
+ * delays the rest of the replay rather than dropping events.
+ * <p>
+ * Run `main()` from the module directory in a headless JVM (`-Djava.awt.headless=true`).
+ */
+public class SessionReplay {
+
+    /**
+     * The longest we wait for a single operation to complete before giving up on the replay.
+     */
+    private static final long TIMEOUT_NANOS = TimeUnit.MINUTES.toNanos(2);
+
+    /**
+     * The model being driven.
+     */
+    private final ScissorsSelectionModel model;
+
+    /**
+     * The factor by which recorded pauses are shortened (0 to not pause at all).
+     */
+    private final double speed;
+
+    /**
+     * Notified whenever our model's state or selection changes; guards `state` and
+     * `selectionChanges`.  Never held while waiting for the EDT, since our model notifies us on it.
+     */
+    private final Object lock = new Object();
+
+    /**
+     * Our model's state, as of its last notification.
+     */
+    private SelectionState state = NO_SELECTION;
+
+    /**
+     * The number of "selection" property changes our model has notified us of.
+     */
+    private long selectionChanges;
+
+    /**
+     * Recorded latencies, in nanoseconds.
+     */
+    private final LongSamples clickToReady = new LongSamples();
+    private final LongSamples liveWireQuery = new LongSamples();
+    private final LongSamples movePoint = new LongSamples();
+
+    /**
+     * Create a replay of sessions against a new model for `img` using the weigher named
+     * `weightName`, pausing between events for their recorded durations divided by `speed`.
+     */
+    public SessionReplay(BufferedImage img, String weightName, double speed) throws Exception {
+        this.speed = speed;
+        model = new ScissorsSelectionModel(weightName, false);
+        model.addPropertyChangeListener(e -> {
+            synchronized (lock) {
+                if ("state".equals(e.getPropertyName())) {
+                    state = (SelectionState) e.getNewValue();
+                } else if ("selection".equals(e.getPropertyName())) {
+                    selectionChanges += 1;
+                }
+                lock.notifyAll();
+            }
+        });
+        onEdt(() -> {
+            model.setImage(img);
+            return null;
+        });
+    }
+
+    /**
+     * Replay the events of `session`, recording the latency of each measured operation.
+     */
+    public void replay(SessionRecording session) throws Exception {
+        long due = System.nanoTime();
+        for (Event event : session.events()) {
+            if (speed > 0) {
+                due = Math.max(due + (long) (event.micros() * 1000 / speed), System.nanoTime());
+                long wait = due - System.nanoTime();
+                if (wait > 0) {
+                    TimeUnit.NANOSECONDS.sleep(wait);
+                }
+            }
+            Point p = new Point(event.x(), event.y());
+            switch (event.action()) {
+                case MOVE, DRAG -> queryLiveWire(p);
+                case ADD_POINT -> addPoint(p);
+                case FINISH -> {
+                    awaitNotProcessing();
+                    onEdt(() -> {
+                        if (model.state() == SELECTING) {
+                            model.finishSelection();
+                        }
+                        return null;
+                    });
+                }
+                case UNDO -> {
+                    awaitNotProcessing();
+                    onEdt(() -> {
+                        if (model.state() != NO_SELECTION) {
+                            model.undo();
+                        }
+                        return null;
+                    });
+                    awaitNotProcessing();
+                }
+                case RESET -> onEdt(() -> {
+                    model.reset();
+                    return null;
+                });
+                case CANCEL -> onEdt(() -> {
+                    model.cancelProcessing();
+                    return null;
+                });
+                case MOVE_POINT -> movePoint(event.index(), p);
+            }
+        }
+        awaitNotProcessing();
+    }
+
+    /**
+     * If our model is SELECTING, compute the live wire to `p` as `SelectionComponent` would, and
+     * record how long that took.
+     */
+    private void queryLiveWire(Point p) throws Exception {
+        Function<Point, PolyLine> liveWire = onEdt(model::liveWireFunction);
+        if (liveWire != null) {
+            long start = System.nanoTime();
+            liveWire.apply(p);
+            liveWireQuery.add(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Once our model is not processing, add `p` to its selection (if a point can be added) and
+     * record how long it takes to become SELECTING again.
+     */
+    private void addPoint(Point p) throws Exception {
+        awaitNotProcessing();
+        long start = System.nanoTime();
+        boolean added = onEdt(() -> {
+            if (model.state() == SELECTING || model.state() == NO_SELECTION) {
+                model.addPoint(p);
+                return true;
+            }
+            return false;
+        });
+        if (added && awaitNotProcessing() == SELECTING) {
+            clickToReady.add(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Once our model is not processing, move the starting point of the segment at `index` to `p`
+     * (if the selection is finished and has that segment), and record how long it takes for the
+     * selection to be updated.
+     */
+    private void movePoint(int index, Point p) throws Exception {
+        awaitNotProcessing();
+        long start = System.nanoTime();
+        long before;
+        synchronized (lock) {
+            before = selectionChanges;
+        }
+        boolean moved = onEdt(() -> {
+            if (model.state() == SELECTED && index < model.selection().size()) {
+                model.movePoint(index, p);
+                return true;
+            }
+            return false;
+        });
+        if (moved) {
+            synchronized (lock) {
+                long deadline = System.nanoTime() + TIMEOUT_NANOS;
+                while (selectionChanges == before) {
+                    waitUntil(deadline);
+                }
+            }
+            movePoint.add(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Wait until our model is not PROCESSING, and return its state.  Throws `TimeoutException` if
+     * that takes longer than `TIMEOUT_NANOS`.
+     */
+    private SelectionState awaitNotProcessing() throws Exception {
+        synchronized (lock) {
+            long deadline = System.nanoTime() + TIMEOUT_NANOS;
+            while (state == PROCESSING) {
+                waitUntil(deadline);
+            }
+            return state;
+        }
+    }
+
+    /**
+     * Wait on `lock`, which must be held, until notified or until `System.nanoTime()` reaches
+     * `deadline`, in which case throw `TimeoutException`.
+     */
+    private void waitUntil(long deadline) throws InterruptedException, TimeoutException {
+        long remaining = deadline - System.nanoTime();
+        if (remaining <= 0) {
+            throw new TimeoutException("Model did not finish processing");
+        }
+        TimeUnit.NANOSECONDS.timedWait(lock, remaining);
+    }
+
+    /**
+     * Return the result of calling `task` on the EDT, waiting for it to finish.
+     */
+    private static <T> T onEdt(Callable<T> task) throws Exception {
+        AtomicReference<T> result = new AtomicReference<>();
+        try {
+            SwingUtilities.invokeAndWait(() -> {
+                try {
+                    result.set(task.call());
+                } catch (Exception e) {
+                    throw new RuntimeException(e);
+                }
+            });
+        } catch (InvocationTargetException e) {
+            Throwable cause = e.getCause();
+            throw (cause instanceof RuntimeException r && r.getCause() instanceof Exception c)
+                    ? c : new RuntimeException(cause);
+        }
+        return result.get();
+    }
+
+    /**
+     * Return the latencies recorded for clicks to become ready, live wire queries and point moves,
+     * in that order.
+     */
+    public LongSamples[] latencies() {
+        return new LongSamples[]{clickToReady, liveWireQuery, movePoint};
+    }
+
+    /**
+     * Print the count and p50, p95 and p99 percentiles, in milliseconds, of each kind of latency.
+     */
+    public void printReport() {
+        System.out.printf("%-26s %7s %9s %9s %9s%n", "latency", "count", "p50 ms", "p95 ms",
+                "p99 ms");
+        String[] names = {"click to live wire ready", "live wire query", "move point"};
+        LongSamples[] samples = latencies();
+        for (int i = 0; i < names.length; ++i) {
+            LongSamples s = samples[i];
+            if (s.size() == 0) {
+                System.out.printf("%-26s %7d %9s %9s %9s%n", names[i], 0, "-", "-", "-");
+            } else {
+                System.out.printf("%-26s %7d %9.3f %9.3f %9.3f%n", names[i], s.size(),
+                        s.percentile(50) / 1e6, s.percentile(95) / 1e6, s.percentile(99) / 1e6);
+            }
+        }
+    }
+
+    /**
+     * A growable collection of `long` samples supporting percentile queries.
+     */
+    public static class LongSamples {
+
+        /**
+         * The samples in `values[0..size)`, in the order added.
+         */
+        private long[] values = new long[64];
+        private int size;
+
+        /**
+         * Add `value` to our samples.
+         */
+        public void add(long value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, 2 * size);
+            }
+            values[size++] = value;
+        }
+
+        /**
+         * Return the number of samples.
+         */
+        public int size() {
+            return size;
+        }
+
+        /**
+         * Return the `p`th percentile of our samples (0 < `p` <= 100) by the nearest-rank method:
+         * the smallest sample that is at least as large as `p` percent of them.  Requires at least
+         * one sample.
+         */
+        public long percentile(double p) {
+            if (size == 0) {
+                throw new IllegalStateException("No samples");
+            }
+            long[] sorted = Arrays.copyOf(values, size);
+            Arrays.sort(sorted);
+            int rank = (int) Math.ceil(p / 100 * size);
+            return sorted[Math.clamp(rank - 1, 0, size - 1)];
+        }
+    }
+
+    /**
+     * Replay a session and print latency percentiles.  Arguments are the session file, the
+     * `BenchSupport` spec of the image it was recorded with, and optionally the name of the weigher
+     * to use (default "CrossGradMono") and the replay speed (default 1, i.e. real time; 0 replays
+     * without pauses).
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.err.println("Usage: SessionReplay <session file> <image> [weigher] [speed]");
+            System.exit(2);
+        }
+        SessionRecording session;
+        try (InputStream in = new FileInputStream(args[0])) {
+            session = SessionRecording.read(in);
+        }
+        BufferedImage img = BenchSupport.loadImage(args[1]);
+        if (img.getWidth() != session.width() || img.getHeight() != session.height()) {
+            throw new IOException("Session was recorded with a " + session.width() + "x"
+                    + session.height() + " image, not " + img.getWidth() + "x" + img.getHeight());
+        }
+        String weightName = (args.length > 2) ? args[2] : "CrossGradMono";
+        double speed = (args.length > 3) ? Double.parseDouble(args[3]) : 1;
+
+        SessionReplay replay = new SessionReplay(img, weightName, speed);
+        replay.replay(session);
+        replay.printReport();
+        System.exit(0);
+    }
+}
@@ -0,0 +1,179 @@
+package scissors;
+
+import graph.MinQueueBenchmark;
+import graph.PathfindingSnapshot;
+import graph.ShortestPaths;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Measures complete shortest-paths solves on image graphs, to show how they scale with image size,
+ * weigher and queue implementation:
+ * <ul>
+ *   <li>`findAllPaths`: one call to `findAllPaths()`, taking a single snapshot at the end.</li>
+ *   <li>`extendSearch`: a solve in batches of `batchSize` vertices, taking a full snapshot after
+ *   each (the app takes cheaper `progressSnapshot()`s to show progress).</li>
+ *   <li>`settle`: the same batches without snapshots, so that the difference from `extendSearch`
+ *   is the snapshot overhead.</li>
+ * </ul>
+ * Images are given by `BenchSupport` specs: the two images in the module directory, and synthetic
+ * images of 1 to 64 megapixels.  Weighers (including any cost maps they precompute) are built
+ * before measurement.  As in the app, one solver is reused for every solve.
+ * <p>
+ * Run `main()` from the module directory with JMH and its annotation processor on the classpath.
+ * The full parameter space takes many hours, so narrow it with JMH's `-p` options when running
+ * `org.openjdk.jmh.Main` (e.g. `-p image=synthetic:16 -p weigher=CrossGradMono -prof gc`).
+ * `main()` accepts the same "name=value,value" parameter restrictions as arguments, and after
+ * running prints a summary of ns and bytes allocated per settled vertex and the share of
+ * `extendSearch` time spent taking snapshots.  The largest images need several gigabytes of heap;
+ * the forked JVM is given 16 GB.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx16g")
+@State(Scope.Benchmark)
+public class ShortestPathsBenchmark {
+
+    /**
+     * The spec of the image to search.
+     */
+    @Param({"McGraw_Tower.jpg", "challenge_1.png", "synthetic:1", "synthetic:4", "synthetic:16",
+            "synthetic:64"})
+    public String image;
+
+    /**
+     * The name of the weigher to weigh edges with.
+     */
+    @Param({"CrossGradMono", "ColorAware", "MortensenBarrett", "Trained", "MultiScale", "Lab"})
+    public String weigher;
+
+    /**
+     * The frontier queue implementation (see `MinQueueBenchmark.newQueue()`).  "Ref" is only
+     * practical for the smallest images.
+     */
+    @Param({"Heap"})
+    public String queue;
+
+    /**
+     * The number of vertices to settle between snapshots in `extendSearch` (and `settle`).
+     */
+    @Param({"10000"})
+    public int batchSize;
+
+    /**
+     * The solver, reused for every solve, and the ID of the vertex to search from.
+     */
+    private ShortestPaths<ImageVertex, ImageEdge> pathfinder;
+    private int startId;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        ImageGraph graph = new ImageGraph(BenchSupport.loadImage(image));
+        pathfinder = new ShortestPaths<>(graph, ScissorsWeights.makeWeigher(weigher, graph),
+                MinQueueBenchmark.newQueue(queue));
+        startId = BenchSupport.centerId(graph);
+    }
+
+    @Benchmark
+    public PathfindingSnapshot findAllPaths() {
+        return pathfinder.findAllPaths(startId);
+    }
+
+    @Benchmark
+    public PathfindingSnapshot extendSearch() {
+        pathfinder.setStart(startId);
+        PathfindingSnapshot snapshot = null;
+        while (!pathfinder.allPathsFound()) {
+            snapshot = pathfinder.extendSearch(batchSize);
+        }
+        return snapshot;
+    }
+
+    @Benchmark
+    public int settle() {
+        pathfinder.setStart(startId);
+        while (!pathfinder.allPathsFound()) {
+            pathfinder.settle(batchSize);
+        }
+        return pathfinder.settledCount();
+    }
+
+    /**
+     * Run the benchmarks in this class, restricted by any "name=value,value" parameter arguments,
+     * with allocation profiling, and print a per-vertex summary.
+     */
+    public static void main(String[] args) throws RunnerException, IOException {
+        OptionsBuilder options = new OptionsBuilder();
+        options.include(ShortestPathsBenchmark.class.getSimpleName()).addProfiler(GCProfiler.class);
+        for (String arg : args) {
+            String[] nameValues = arg.split("=", 2);
+            options.param(nameValues[0], nameValues[1].split(","));
+        }
+        printSummary(new Runner(options.build()).run());
+    }
+
+    /**
+     * Print, for each combination of parameters in `results`, the time and allocation per settled
+     * vertex of each benchmark, and the share of `extendSearch` time not spent in `settle`.
+     */
+    private static void printSummary(Collection<RunResult> results) throws IOException {
+        // Scores by parameter combination, then by benchmark method
+        Map<String, Map<String, RunResult>> byParams = new TreeMap<>();
+        for (RunResult result : results) {
+            BenchmarkParams params = result.getParams();
+            String key = String.format("%-18s %-16s %-5s %7s", params.getParam("image"),
+                    params.getParam("weigher"), params.getParam("queue"),
+                    params.getParam("batchSize"));
+            String method = params.getBenchmark()
+                    .substring(params.getBenchmark().lastIndexOf('.') + 1);
+            byParams.computeIfAbsent(key, k -> new TreeMap<>()).put(method, result);
+        }
+
+        System.out.printf("%n%-18s %-16s %-5s %7s %10s %-13s %9s %9s%n", "image", "weigher",
+                "queue", "batch", "vertices", "benchmark", "ns/vertex", "B/vertex");
+        for (Map.Entry<String, Map<String, RunResult>> entry : byParams.entrySet()) {
+            Map<String, RunResult> byMethod = entry.getValue();
+            String image = byMethod.values().iterator().next().getParams().getParam("image");
+            long vertices = BenchSupport.pixelCount(image);
+            for (Map.Entry<String, RunResult> m : byMethod.entrySet()) {
+                double nsPerOp = m.getValue().getPrimaryResult().getScore() * 1e6;
+                Result<?> alloc = m.getValue().getSecondaryResults().get("gc.alloc.rate.norm");
+                System.out.printf("%s %10d %-13s %9.1f %9s%n", entry.getKey(), vertices,
+                        m.getKey(), nsPerOp / vertices, (alloc == null) ? "-"
+                                : String.format("%.1f", alloc.getScore() / vertices));
+            }
+            RunResult extend = byMethod.get("extendSearch");
+            RunResult settle = byMethod.get("settle");
+            if (extend != null && settle != null) {
+                double extendScore = extend.getPrimaryResult().getScore();
+                double share = (extendScore - settle.getPrimaryResult().getScore()) / extendScore;
+                System.out.printf("%s %10d %-13s %8.1f%%%n", entry.getKey(), vertices,
+                        "snapshots", 100 * share);
+            }
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package scissors;
+
+import graph.BulkWeigher;
+import graph.Weigher;
+import java.awt.Dimension;
+import java.awt.image.Raster;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Measures the cost of weighing edges, to inform the choice of weigher for a job:
+ * <ul>
+ *   <li>`crossGrad`: `ScissorsWeights.crossGrad()` in band 0 for every edge of the image.</li>
+ *   <li>`weighEdges`: `weight()` of the weigher `edgeWeigher` for every edge, one `ImageEdge` at a
+ *   time.</li>
+ *   <li>`weighBulk`: the same weights a vertex at a time through `BulkWeigher.weightsFrom()`, as
+ *   `ShortestPaths` does.</li>
+ *   <li>`build`: construction of the weigher `builtWeigher`, including any cost maps it
+ *   precomputes for the whole image.</li>
+ * </ul>
+ * Each is measured for the image given by the `BenchSupport` spec `image` converted to each of
+ * several `BufferedImage` types, since raster access costs depend on the sample layout.
+ * <p>
+ * Run `main()` from the module directory with JMH and its annotation processor on the classpath.
+ * It accepts "name=value,value" parameter restrictions as arguments and, after running, prints
+ * each result per edge (for the weighing benchmarks) and per megapixel.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class WeigherBenchmark {
+
+    /**
+     * The graph of the benchmark image converted to the type named `type`.
+     */
+    @State(Scope.Benchmark)
+    public static class ImageState {
+        @Param({"synthetic:1"})
+        public String image;
+
+        @Param({"3BYTE_BGR", "INT_RGB", "BYTE_GRAY", "USHORT_GRAY"})
+        public String type;
+
+        ImageGraph graph;
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            graph = new ImageGraph(BenchSupport.convert(BenchSupport.loadImage(image), type));
+        }
+    }
+
+    /**
+     * A built weigher whose per-edge cost is measured.
+     */
+    @State(Scope.Benchmark)
+    public static class EdgeWeigherState {
+        @Param({"CrossGradMono", "ColorAware"})
+        public String edgeWeigher;
+
+        Weigher<ImageEdge> weigher;
+
+        @Setup(Level.Trial)
+        public void setUp(ImageState image) {
+            weigher = ScissorsWeights.makeWeigher(edgeWeigher, image.graph);
+        }
+    }
+
+    /**
+     * The name of a weigher whose construction cost is measured.
+     */
+    @State(Scope.Benchmark)
+    public static class BuildState {
+        @Param({"CrossGradMono", "ColorAware", "MortensenBarrett", "Trained", "MultiScale",
+                "Lab"})
+        public String builtWeigher;
+    }
+
+    @Benchmark
+    public long crossGrad(ImageState state) {
+        ImageGraph graph = state.graph;
+        Raster raster = graph.raster();
+        int width = graph.width();
+        int height = graph.height();
+        long sum = 0;
+        for (int y = 0; y < height; ++y) {
+            for (int x = 0; x < width; ++x) {
+                for (int dir = 0; dir < 8; ++dir) {
+                    if (ImageVertex.validDir(x, y, width, height, dir)) {
+                        sum += ScissorsWeights.crossGrad(raster, x, y, 0, dir);
+                    }
+                }
+            }
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long weighEdges(ImageState state, EdgeWeigherState weigherState) {
+        ImageGraph graph = state.graph;
+        Weigher<ImageEdge> weigher = weigherState.weigher;
+        long sum = 0;
+        for (int id = 0; id < graph.vertexCount(); ++id) {
+            for (ImageEdge edge : graph.getVertex(id).outgoingEdges()) {
+                sum += weigher.weight(edge);
+            }
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long weighBulk(ImageState state, EdgeWeigherState weigherState) {
+        ImageGraph graph = state.graph;
+        BulkWeigher<ImageEdge> weigher = (BulkWeigher<ImageEdge>) weigherState.weigher;
+        int[] weights = new int[weigher.maxOutDegree()];
+        long sum = 0;
+        for (int id = 0; id < graph.vertexCount(); ++id) {
+            int count = weigher.weightsFrom(id, weights);
+            for (int i = 0; i < count; ++i) {
+                sum += weights[i];
+            }
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public Weigher<ImageEdge> build(ImageState state, BuildState buildState) {
+        return ScissorsWeights.makeWeigher(buildState.builtWeigher, state.graph);
+    }
+
+    /**
+     * Run the benchmarks in this class, restricted by any "name=value,value" parameter arguments,
+     * and print each result per edge and per megapixel.
+     */
+    public static void main(String[] args) throws RunnerException, IOException {
+        OptionsBuilder options = new OptionsBuilder();
+        options.include(WeigherBenchmark.class.getSimpleName());
+        for (String arg : args) {
+            String[] nameValues = arg.split("=", 2);
+            options.param(nameValues[0], nameValues[1].split(","));
+        }
+        Collection<RunResult> results = new Runner(options.build()).run();
+
+        System.out.printf("%n%-12s %-18s %-12s %-16s %10s %10s%n", "benchmark", "image", "type",
+                "weigher", "ns/edge", "ms/MP");
+        for (RunResult result : results) {
+            BenchmarkParams params = result.getParams();
+            String method = params.getBenchmark()
+                    .substring(params.getBenchmark().lastIndexOf('.') + 1);
+            String weigher = switch (method) {
+                case "weighEdges", "weighBulk" -> params.getParam("edgeWeigher");
+                case "build" -> params.getParam("builtWeigher");
+                default -> "-";
+            };
+            Dimension size = BenchSupport.imageSize(params.getParam("image"));
+            double megapixels = (double) size.width * size.height / (1 << 20);
+            double ms = result.getPrimaryResult().getScore();
+            String perEdge = method.equals("build") ? "-"
+                    : String.format("%.2f", ms * 1e6 / BenchSupport.edgeCount(size));
+            System.out.printf("%-12s %-18s %-12s %-16s %10s %10.2f%n", method,
+                    params.getParam("image"), params.getParam("type"), weigher, perEdge,
+                    ms / megapixels);
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package graph;
+
+/**
+ * A `Weigher` that can also provide the weights of all of a vertex's outgoing edges at once,
+ * identified only by the vertex's ID.  This avoids constructing an Edge object and making an
+ * interface call per edge, and lets implementations share work (such as fetching image samples)
+ * between edges that leave the same vertex.  `ShortestPaths` uses this interface in preference
+ * to `weight()` when its weigher implements it.
+ */
+public interface BulkWeigher<EdgeType extends Edge> extends Weigher<EdgeType> {
+
+    /**
+     * Return an upper bound on the number of outgoing edges of any vertex in the graph this
+     * weigher is for.  Arrays passed to `weightsFrom()` must be at least this long.
+     */
+    int maxOutDegree();
+
+    /**
+     * Store in `out[i]` the weight of the `i`th edge yielded by the `outgoingEdges()` of the vertex
+     * with ID `vertexId` (the same weight that `weight()` would return for that edge), and return
+     * the number of such edges.  Requires `out.length >= maxOutDegree()`.
+     */
+    int weightsFrom(int vertexId, int[] out);
+}
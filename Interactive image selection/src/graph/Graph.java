@@ -17,4 +17,19 @@ public interface Graph<VertexType extends Vertex<?>> {
      * with that ID is in this graph.
      */
     VertexType getVertex(int id);
+
+    /**
+     * Store in `out[i]` the ID of the destination vertex of the `i`th edge yielded by the
+     * `outgoingEdges()` of the vertex with ID `id`, and return the number of such edges.  Requires
+     * `out` is long enough to hold all of them.  Graphs that can compute their neighbors directly
+     * should override this to avoid creating Edge objects.
+     */
+    default int neighborIds(int id, int[] out) {
+        int count = 0;
+        for (Edge edge : getVertex(id).outgoingEdges()) {
+            out[count] = edge.endId();
+            count += 1;
+        }
+        return count;
+    }
 }
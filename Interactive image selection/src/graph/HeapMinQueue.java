@@ -12,25 +12,33 @@ import java.util.NoSuchElementException;
 public class HeapMinQueue<KeyType> implements MinQueue<KeyType> {
 
     /**
-     * Pairs an element `key` with its associated priority `priority`.
+     * Pairs an element `key` with its associated priority `priority` and its index `position` in
+     * `heap`.  Mutable, so that updating a priority or moving an entry within the heap allocates
+     * nothing (in particular, no boxed indices); only adding an element allocates.
      */
-    private record Entry<KeyType>(KeyType key, int priority) {
-        // Note: This is equivalent to declaring a static nested class with fields `key` and
-        //  `priority` and a corresponding constructor and observers, overriding `equals()` and
-        //  `hashCode()` to depend on the fields, and overriding `toString()` to print their values.
-        // https://docs.oracle.com/en/java/javase/17/language/records.html
+    private static class Entry<KeyType> {
+        final KeyType key;
+        int priority;
+        int position;
+
+        Entry(KeyType key, int priority, int position) {
+            this.key = key;
+            this.priority = priority;
+            this.position = position;
+        }
     }
 
     /**
-     * Associates each element in the queue with its index in `heap`.  Satisfies
-     * `heap.get(index.get(e)).key().equals(e)` if `e` is an element in the queue. Only maps
-     * elements that are in the queue (`index.size() == heap.size()`).
+     * Associates each element in the queue with its entry in `heap`.  Satisfies
+     * `index.get(e).key.equals(e)` if `e` is an element in the queue. Only maps elements that are
+     * in the queue (`index.size() == heap.size()`).
      */
-    private final Map<KeyType, Integer> index;
+    private final Map<KeyType, Entry<KeyType>> index;
 
     /**
      * Sequence representing a min-heap of element-priority pairs.  Satisfies
-     * `heap.get(i).priority() >= heap.get((i-1)/2).priority()` for all `i` in `[1..heap.size()]`.
+     * `heap.get(i).priority >= heap.get((i-1)/2).priority` for all `i` in `[1..heap.size()]`, and
+     * `heap.get(i).position == i` for all `i` in `[0..heap.size()]`.
      */
     private final ArrayList<Entry<KeyType>> heap;
 
@@ -39,10 +47,11 @@ public class HeapMinQueue<KeyType> implements MinQueue<KeyType> {
      * disabled).
      */
     private boolean checkInvariant() {
-        for (int i = 1; i < heap.size(); ++i) {
+        for (int i = 0; i < heap.size(); ++i) {
             int p = (i - 1) / 2;
-            assert heap.get(i).priority() >= heap.get(p).priority();
-            assert index.get(heap.get(i).key()) == i;
+            assert heap.get(i).priority >= heap.get(p).priority;
+            assert heap.get(i).position == i;
+            assert index.get(heap.get(i).key) == heap.get(i);
         }
         assert index.size() == heap.size();
         return true;
@@ -81,7 +90,7 @@ public class HeapMinQueue<KeyType> implements MinQueue<KeyType> {
     @Override
     public KeyType get() {
         // Propagate exception from `List::getFirst()` if empty.
-        return heap.getFirst().key();
+        return heap.getFirst().key;
     }
 
     /**
@@ -90,7 +99,7 @@ public class HeapMinQueue<KeyType> implements MinQueue<KeyType> {
      */
     @Override
     public int minPriority() {
-        return heap.getFirst().priority();
+        return heap.getFirst().priority;
     }
 
     /**
@@ -99,10 +108,11 @@ public class HeapMinQueue<KeyType> implements MinQueue<KeyType> {
      */
     @Override
     public void addOrUpdate(KeyType key, int priority) {
-        if (!index.containsKey(key)) {
+        Entry<KeyType> entry = index.get(key);
+        if (entry == null) {
             add(key, priority);
         } else {
-            update(key, priority);
+            update(entry, priority);
         }
     }
 
@@ -119,7 +129,7 @@ public class HeapMinQueue<KeyType> implements MinQueue<KeyType> {
 
         assert checkInvariant();
         // Save the root element to return later
-        KeyType root = heap.getFirst().key();
+        KeyType root = heap.getFirst().key;
 
         // Move the last element in the heap to the root
         int lastIndex = heap.size() - 1;
@@ -146,8 +156,8 @@ public class HeapMinQueue<KeyType> implements MinQueue<KeyType> {
     }
 
     /**
-     * Swap the Entries at indices `i` and `j` in `heap`, updating `index` accordingly.  Requires `0
-     * <= i,j < heap.size()`.
+     * Swap the Entries at indices `i` and `j` in `heap`, updating their positions accordingly.
+     * Requires `0 <= i,j < heap.size()`.
      */
     private void swap(int i, int j) {
         assert i >= 0 && i < heap.size();
@@ -158,8 +168,8 @@ public class HeapMinQueue<KeyType> implements MinQueue<KeyType> {
         heap.set(j, temp);
 
 
-        index.put(heap.get(i).key(), i);
-        index.put(heap.get(j).key(), j);
+        heap.get(i).position = i;
+        heap.get(j).position = j;
 
 
         // TODO A6.3a: Implement this method as specified
@@ -176,34 +186,33 @@ public class HeapMinQueue<KeyType> implements MinQueue<KeyType> {
 
         assert checkInvariant();
 
-        Entry<KeyType> entry = new Entry<>(key, priority);
+        int CurrIndex = heap.size();
+        Entry<KeyType> entry = new Entry<>(key, priority, CurrIndex);
 
 
 
         heap.add(entry);
 
-        int CurrIndex = heap.size() - 1;
-
 
-        index.put(key, CurrIndex);
+        index.put(key, entry);
         bubbleUp(CurrIndex);
     }
 
     /**
-     * Change the priority associated with element `key` to `priority`.  Requires that `key` is
-     * contained in this queue.
+     * Change the priority associated with the element of `entry` to `priority`.  Requires that
+     * `entry` is in `heap`.
      */
-    private void update(KeyType key, int priority) {
-        assert index.containsKey(key);
+    private void update(Entry<KeyType> entry, int priority) {
+        assert index.get(entry.key) == entry;
 
         // TODO A6.3e: Implement this method as specified
 
         assert checkInvariant();
 
-        int currIndex = index.get(key);
-        int pastPriority = heap.get(currIndex).priority;
+        int currIndex = entry.position;
+        int pastPriority = entry.priority;
 
-        heap.set(currIndex, new Entry<>(key, priority));
+        entry.priority = priority;
 
         if (priority <= pastPriority) {
             bubbleUp(currIndex);
@@ -223,7 +232,7 @@ public class HeapMinQueue<KeyType> implements MinQueue<KeyType> {
     private void bubbleUp(int i) {
         while (i > 0) {
             int parentIndex = (i - 1) / 2;
-            if (heap.get(i).priority() >= heap.get(parentIndex).priority()) {
+            if (heap.get(i).priority >= heap.get(parentIndex).priority) {
                 break;
             }
             swap(i, parentIndex);
@@ -244,11 +253,11 @@ public class HeapMinQueue<KeyType> implements MinQueue<KeyType> {
 
         while ((leftChild = 2 * i + 1) < size) {
             minChild = leftChild;
-            if ( (rightChild = leftChild + 1) < size && heap.get(rightChild).priority()
-                    < heap.get(leftChild).priority()) {
+            if ( (rightChild = leftChild + 1) < size && heap.get(rightChild).priority
+                    < heap.get(leftChild).priority) {
                 minChild = rightChild;
             }
-            if (heap.get(i).priority() <= heap.get(minChild).priority()) {
+            if (heap.get(i).priority <= heap.get(minChild).priority) {
                 break;
             }
             swap(i, minChild);
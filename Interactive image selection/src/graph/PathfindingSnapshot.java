@@ -3,7 +3,6 @@ package graph;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.BitSet;
-import java.util.LinkedList;
 import java.util.List;
 
 public class PathfindingSnapshot {
@@ -15,37 +14,112 @@ public class PathfindingSnapshot {
 
     /**
      * `distances[id]` is the weight of the shortest known path from the starting vertex to the
-     * vertex with ID `id`, or -1 if no such path is currently known.
+     * vertex with ID `id`, or -1 if no such path is currently known.  Null for a progress snapshot
+     * (see `progress()`).
      */
     private final int[] distances;
 
     /**
      * `predecessors[id]` is the ID of the penultimate vertex along the shortest known path from the
      * starting vertex to the vertex with ID `id`, or -1 if `id==startId` or if no such path is
-     * currently known.
+     * currently known.  Null for a progress snapshot.
      */
     private final int[] predecessors;
 
+    /**
+     * `discoveredIds.get(id)` is true if a path is known from the starting vertex to the vertex
+     * with ID `id`.  Only present for a progress snapshot (otherwise null, and derived from
+     * `predecessors`).
+     */
+    private final BitSet discoveredIds;
+
     /**
      * `settledIds[id]` is true if the shortest path has been determined from the starting vertex to
      * the vertex with ID `id`.
      */
     private final BitSet settledIds;
 
+    /**
+     * `settledOrder[i]` is the ID of the `i`th vertex to be settled, for `i` in
+     * [0..settledCount).  Shared with the solver (and with other snapshots of the same search), so
+     * elements at or beyond `settledCount` may be concurrently modified and must not be read.
+     */
+    private final int[] settledOrder;
+
+    /**
+     * The number of vertices settled when this snapshot was taken.
+     */
+    private final int settledCount;
+
     /**
      * Create a new snapshot of the progress of finding shortest paths from a vertex with ID
      * `startId`. `distances[id]` must specify the total weight of the shortest known path so far
      * from the start to the vertex with ID `id`, while `predecessors[id]` must provide the ID of
      * the penultimate vertex along that path (both should be -1 if no path reaching that vertex has
      * yet been found).  `settledIds` must specify for which vertex IDs the true shortest path has
-     * been found.  Note that defensive copies are made of all arguments.
+     * been found.  Note that defensive copies are made of all arguments.  Vertices are treated as
+     * having been settled in order of increasing ID, and the snapshot is not considered part of
+     * the same search as any other.
      */
     public PathfindingSnapshot(int startId, int[] distances, int[] predecessors,
             BitSet settledIds) {
+        this(startId, distances, predecessors, settledIds, settledIds.stream().toArray(),
+                settledIds.cardinality());
+    }
+
+    /**
+     * Create a new snapshot as above, additionally recording the order in which vertices were
+     * settled: `settledOrder[i]` must be the ID of the `i`th vertex to be settled, for `i` in
+     * [0..settledCount).  Unlike the other arguments, `settledOrder` is NOT copied; the caller must
+     * never modify its first `settledCount` elements after this call (elements beyond them may
+     * still be appended to, which lets successive snapshots of the same search share one array).
+     */
+    public PathfindingSnapshot(int startId, int[] distances, int[] predecessors,
+            BitSet settledIds, int[] settledOrder, int settledCount) {
+        this(startId, Arrays.copyOf(distances, distances.length),
+                Arrays.copyOf(predecessors, predecessors.length), null,
+                (BitSet) settledIds.clone(), settledOrder, settledCount);
+    }
+
+    /**
+     * Create a snapshot from its fields, without copying any of them.  Exactly one of
+     * `predecessors` (with `distances`) and `discoveredIds` must be non-null.
+     */
+    private PathfindingSnapshot(int startId, int[] distances, int[] predecessors,
+            BitSet discoveredIds, BitSet settledIds, int[] settledOrder, int settledCount) {
         this.startId = startId;
-        this.predecessors = Arrays.copyOf(predecessors, predecessors.length);
-        this.distances = Arrays.copyOf(distances, distances.length);
-        this.settledIds = (BitSet) settledIds.clone();
+        this.distances = distances;
+        this.predecessors = predecessors;
+        this.discoveredIds = discoveredIds;
+        this.settledIds = settledIds;
+        this.settledOrder = settledOrder;
+        this.settledCount = settledCount;
+    }
+
+    /**
+     * Return a snapshot as created by the public constructor, but taking ownership of
+     * `distances`, `predecessors` and `settledIds` instead of copying them.  The caller must not
+     * use them afterwards.  Lets `ShortestPaths` copy its state only once per snapshot.
+     */
+    static PathfindingSnapshot adopt(int startId, int[] distances, int[] predecessors,
+            BitSet settledIds, int[] settledOrder, int settledCount) {
+        return new PathfindingSnapshot(startId, distances, predecessors, null, settledIds,
+                settledOrder, settledCount);
+    }
+
+    /**
+     * Return a snapshot of the progress of a search that records which vertices are discovered
+     * (`discoveredIds`) and settled (`settledIds`, in the order given by `settledOrder`, as for
+     * the public constructor), but not the paths to them, so `pathTo()` and `distanceTo()` may not
+     * be called on it.  Takes ownership of `discoveredIds` and `settledIds`.  Progress snapshots
+     * need about 1/32 of the memory of a full one's distances and predecessors, but their bit sets
+     * still span every vertex, so creating one costs time proportional to the size of the graph
+     * and a search should report progress at a bounded rate rather than after every step.
+     */
+    static PathfindingSnapshot progress(int startId, BitSet discoveredIds, BitSet settledIds,
+            int[] settledOrder, int settledCount) {
+        return new PathfindingSnapshot(startId, null, null, discoveredIds, settledIds,
+                settledOrder, settledCount);
     }
 
     /**
@@ -54,33 +128,69 @@ public class PathfindingSnapshot {
      * path's distance will be the shortest possible.  Throws IllegalArgumentException if the
      * destination vertex has not been discovered.  Note that, while the returned path may not be
      * the unique path with that distance, an instance of this class will always return the same
-     * path when queried for the same destination.
+     * path when queried for the same destination.  Throws IllegalStateException if this is a
+     * progress snapshot (see `hasPaths()`).
      */
     public List<Integer> pathTo(int dstId) {
+        requirePaths();
         // TODO A6.1b: Implement this method as specified (hint: remember that reconstructing paths
         //  from back pointers was a lecture exercise).
         if (settledIds.get(dstId) || distances[dstId] == -1) {
-            List<Integer> path = new LinkedList<>();
-            path.add(dstId);
-            while (predecessors[dstId] != -1) {
-                dstId = predecessors[dstId];
-                path.add(0, dstId); // Adding at index 0 to maintain order
-            }
-            return path;
+            return tracePath(predecessors, dstId);
         } else {
             throw new IllegalArgumentException();
         }
     }
 
+    /**
+     * Return the sequence of vertex IDs from the start of a search to the vertex with ID `dstId`
+     * (inclusive), following `predecessors` (in which the start, and only the start, has no
+     * predecessor) back from `dstId`.
+     */
+    static List<Integer> tracePath(int[] predecessors, int dstId) {
+        // Measure the path first so that it can be filled from the end without a linked list
+        int length = 1;
+        for (int id = dstId; predecessors[id] != -1; id = predecessors[id]) {
+            length += 1;
+        }
+        Integer[] path = new Integer[length];
+        int id = dstId;
+        for (int i = length - 1; i > 0; --i) {
+            path[i] = id;
+            id = predecessors[id];
+        }
+        path[0] = id;
+        return Arrays.asList(path);
+    }
+
     /**
      * Return the total weight along the shortest known path from the starting vertex to the vertex
      * with ID `dstId`.  If no path is known, return -1.  Requires `dstId` is a valid vertex ID in
-     * the graph.
+     * the graph.  Throws IllegalStateException if this is a progress snapshot (see `hasPaths()`).
      */
     public int distanceTo(int dstId) {
+        requirePaths();
         return distances[dstId];
     }
 
+    /**
+     * Return whether paths and distances can be queried from this snapshot.  False for the
+     * snapshots a search publishes to report its progress, which only record which vertices are
+     * discovered and settled.
+     */
+    public boolean hasPaths() {
+        return predecessors != null;
+    }
+
+    /**
+     * Throw an IllegalStateException if paths cannot be queried from this snapshot.
+     */
+    private void requirePaths() {
+        if (predecessors == null) {
+            throw new IllegalStateException("Progress snapshots do not record paths");
+        }
+    }
+
     /**
      * Return the ID of the starting vertex for the pathfinding operation that produced this
      * snapshot.
@@ -93,7 +203,8 @@ public class PathfindingSnapshot {
      * Return whether a path is known from the starting vertex to the vertex with ID `id`.
      */
     public boolean discovered(int id) {
-        return predecessors[id] >= 0 || id == startId;
+        return (predecessors != null) ? predecessors[id] >= 0 || id == startId
+                : discoveredIds.get(id);
     }
 
     /**
@@ -103,5 +214,29 @@ public class PathfindingSnapshot {
     public boolean settled(int id) {
         return settledIds.get(id);
     }
-}
 
+    /**
+     * Return the number of vertices whose shortest paths were known when this snapshot was taken.
+     */
+    public int settledCount() {
+        return settledCount;
+    }
+
+    /**
+     * Return the ID of the `index`th vertex to be settled (counting from 0).  Requires `index` is
+     * in [0..settledCount()).
+     */
+    public int settledId(int index) {
+        assert index >= 0 && index < settledCount;
+        return settledOrder[index];
+    }
+
+    /**
+     * Return whether this snapshot and `other` were taken during the same search, in which case
+     * the vertices settled in the earlier of the two are a prefix of those settled in the later,
+     * in the same order.
+     */
+    public boolean sameSearch(PathfindingSnapshot other) {
+        return settledOrder == other.settledOrder;
+    }
+}
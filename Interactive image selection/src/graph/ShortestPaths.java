@@ -2,6 +2,7 @@ package graph;
 
 import java.util.Arrays;
 import java.util.BitSet;
+import java.util.List;
 
 /**
  * Supports incrementally solving for shortest paths from a starting vertex in a graph with vertices
@@ -18,7 +19,20 @@ public class ShortestPaths<VertexType extends Vertex<EdgeType>, EdgeType extends
     /**
      * Weigher to use in order to query edge weights in our graph.
      */
-    private final Weigher<EdgeType> weigher;
+    private Weigher<EdgeType> weigher;
+
+    /**
+     * `weigher` viewed as a `BulkWeigher` if it implements that interface, otherwise null.  When
+     * present, edges are weighed a vertex at a time without constructing Edge objects.
+     */
+    private BulkWeigher<EdgeType> bulkWeigher;
+
+    /**
+     * Scratch space for the neighbor IDs and edge weights of the vertex being settled when using
+     * `bulkWeigher`.  Null if `bulkWeigher` is null.
+     */
+    private int[] neighborIds;
+    private int[] edgeWeights;
 
     /**
      * The ID of the starting vertex for our current search, or -1 if no starting vertex has yet
@@ -52,23 +66,90 @@ public class ShortestPaths<VertexType extends Vertex<EdgeType>, EdgeType extends
      */
     private final BitSet settledIds;
 
+    /**
+     * `discoveredIds.get(id)` is true if a path is known from our starting vertex to the vertex
+     * with ID `id` (i.e., `distances[id]` is not -1).  Kept so that progress snapshots need not
+     * copy `distances` or `predecessors`.
+     */
+    private final BitSet discoveredIds;
+
+    /**
+     * `settledOrder[i]` is the ID of the `i`th vertex to be settled in our current search, for `i`
+     * in [0..settledCount).  Its first `settledCount` elements are never modified during a search,
+     * so snapshots may share it without copying; a new search reuses it only if no snapshot did.
+     */
+    private int[] settledOrder;
+
+    /**
+     * Whether a snapshot shares `settledOrder`, so that the next search must allocate a new one.
+     */
+    private boolean settledOrderShared;
+
+    /**
+     * The number of vertices settled so far in our current search.
+     */
+    private int settledCount;
+
     /**
      * Create a new shortest paths solver for the graph `graph` whose edge weights are determined by
      * `weigher`.
      */
     public ShortestPaths(Graph<VertexType> graph, Weigher<EdgeType> weigher) {
+        // TODO A6.3f: Replace this with a `HeapMinQueue` after implementing and testing the latter.
+        this(graph, weigher, new HeapMinQueue<>());
+    }
+
+    /**
+     * Create a new shortest paths solver for the graph `graph` whose edge weights are determined by
+     * `weigher`, using `frontier` as its priority queue of frontier vertex IDs.  This allows queue
+     * implementations to be compared (or instrumented) in a real search.  `frontier` will be
+     * cleared, and must not be used by anything else while this solver is in use.
+     */
+    public ShortestPaths(Graph<VertexType> graph, Weigher<EdgeType> weigher,
+            MinQueue<Integer> frontier) {
         this.graph = graph;
-        this.weigher = weigher;
+        useWeigher(weigher);
         distances = new int[graph.vertexCount()];
         predecessors = new int[graph.vertexCount()];
         settledIds = new BitSet(graph.vertexCount());
-
-        // TODO A6.3f: Replace this with a `HeapMinQueue` after implementing and testing the latter.
-        frontier = new HeapMinQueue<>();
+        discoveredIds = new BitSet(graph.vertexCount());
+        settledOrder = new int[graph.vertexCount()];
+        this.frontier = frontier;
 
         reset();
     }
 
+    /**
+     * Determine edge weights with `weigher` from now on.  This allows a solver, along with the
+     * memory it has allocated for its graph (except as noted for `setStart()`), to be reused for
+     * searches with different weights.
+     * Discards our starting point, so `setStart()` must be called before the search is extended
+     * again.
+     */
+    public void setWeigher(Weigher<EdgeType> weigher) {
+        useWeigher(weigher);
+        frontier.clear();
+        startId = -1;
+    }
+
+    /**
+     * Set `weigher` and the fields derived from it.
+     */
+    private void useWeigher(Weigher<EdgeType> weigher) {
+        this.weigher = weigher;
+        if (weigher instanceof BulkWeigher<EdgeType> bulk) {
+            bulkWeigher = bulk;
+            if (neighborIds == null || neighborIds.length != bulk.maxOutDegree()) {
+                neighborIds = new int[bulk.maxOutDegree()];
+                edgeWeights = new int[bulk.maxOutDegree()];
+            }
+        } else {
+            bulkWeigher = null;
+            neighborIds = null;
+            edgeWeights = null;
+        }
+    }
+
     /**
      * Clear any intermediate pathfinding results in preparation for finding paths from a new
      * starting point.
@@ -78,6 +159,12 @@ public class ShortestPaths<VertexType extends Vertex<EdgeType>, EdgeType extends
         Arrays.fill(predecessors, -1);
         frontier.clear();
         settledIds.clear();
+        discoveredIds.clear();
+        if (settledOrderShared) {
+            settledOrder = new int[graph.vertexCount()];
+            settledOrderShared = false;
+        }
+        settledCount = 0;
         startId = -1;
     }
 
@@ -86,7 +173,43 @@ public class ShortestPaths<VertexType extends Vertex<EdgeType>, EdgeType extends
      * point are known.
      */
     public int settledCount() {
-        return settledIds.cardinality();
+        return settledCount;
+    }
+
+    /**
+     * Return the number of vertices on the frontier of our current search: those with a known path
+     * from the starting point that are not yet settled.
+     */
+    public int frontierSize() {
+        return frontier.size();
+    }
+
+    /**
+     * Return the name of the class implementing our frontier's priority queue, for reporting.
+     */
+    public String queueName() {
+        return frontier.getClass().getSimpleName();
+    }
+
+    /**
+     * Return whether the shortest path from the current starting point to the vertex with ID `id`
+     * is known.
+     */
+    public boolean isSettled(int id) {
+        return settledIds.get(id);
+    }
+
+    /**
+     * Return the sequence of vertex IDs on the shortest path from the current starting point to
+     * the settled vertex with ID `dstId` (inclusive), without taking a snapshot of our results.
+     * Use this to find a single path, such as after settling just until `dstId` is settled.
+     * Throws IllegalArgumentException if `dstId` is not settled.
+     */
+    public List<Integer> pathTo(int dstId) {
+        if (!settledIds.get(dstId)) {
+            throw new IllegalArgumentException("No shortest path is known to vertex " + dstId);
+        }
+        return PathfindingSnapshot.tracePath(predecessors, dstId);
     }
 
     /**
@@ -108,12 +231,15 @@ public class ShortestPaths<VertexType extends Vertex<EdgeType>, EdgeType extends
 
     /**
      * Change our starting point to `start`, discarding any pathfinding results from any previous
-     * starting point.
+     * starting point.  Our state is reused for the new search, except that if a snapshot was taken
+     * of the previous search, an array recording the order of settled vertices (4 bytes per
+     * vertex) is allocated for the new one.
      */
     public void setStart(int startId) {
         reset();
         this.startId = startId;
         distances[startId] = 0;
+        discoveredIds.set(startId);
         frontier.addOrUpdate(startId, 0);
     }
 
@@ -149,7 +275,18 @@ public class ShortestPaths<VertexType extends Vertex<EdgeType>, EdgeType extends
         //  class's fields (and the constructor guarantees copies are made, so you don't need to
         //  worry about "rep exposure" when sharing them).
 
+        settle(maxToSettle);
+        return snapshot();
+    }
 
+    /**
+     * Find the shortest paths from our current starting point to the next `maxToSettle` closest
+     * vertices for which shortest paths are not yet known, as in `extendSearch()`, but without
+     * taking a snapshot of the results.  Return the number of vertices newly settled, which is less
+     * than `maxToSettle` only if all reachable vertices are now settled.  Requires `maxToSettle` is
+     * non-negative and that a starting vertex has been set.
+     */
+    public int settle(int maxToSettle) {
         assert startId >= 0;
         assert maxToSettle >= 0;
 
@@ -161,33 +298,77 @@ public class ShortestPaths<VertexType extends Vertex<EdgeType>, EdgeType extends
             if (!settledIds.get(currentId)) {
                 // Mark this vertex as settled
                 settledIds.set(currentId);
+                settledOrder[settledCount] = currentId;
+                settledCount += 1;
                 settledVertices++;
 
                 exploreOutgoingEdges(currentId);
             }
         }
+        return settledVertices;
+    }
 
-        return new PathfindingSnapshot(startId, Arrays.copyOf(distances, distances.length),
+    /**
+     * Return an object from which the results of our search so far can be queried.  Later
+     * extensions of the search do not affect it.  Requires that a starting vertex has been set.
+     */
+    public PathfindingSnapshot snapshot() {
+        assert startId >= 0;
+        settledOrderShared = true;
+        return PathfindingSnapshot.adopt(startId, Arrays.copyOf(distances, distances.length),
                 Arrays.copyOf(predecessors, predecessors.length),
-                (BitSet) settledIds.clone());
+                (BitSet) settledIds.clone(), settledOrder, settledCount);
     }
 
-    //helper method
-    private void exploreOutgoingEdges(int currentId) {
-        for (EdgeType edge : graph.getVertex(currentId).outgoingEdges()) {
-            int targetId = edge.endId();
-            int weight = weigher.weight(edge);
-
+    /**
+     * Return an object from which the progress of our search so far (which vertices are discovered
+     * and settled, and in what order) can be queried, but not its paths; use this to report
+     * progress during a search.  Cheaper than `snapshot()`, since it does not copy our distances
+     * and predecessors, but it still copies two bit sets with one bit per vertex, so its cost grows
+     * with the size of the graph; callers should limit how often they take one.  Requires that a
+     * starting vertex has been set.
+     */
+    public PathfindingSnapshot progressSnapshot() {
+        assert startId >= 0;
+        settledOrderShared = true;
+        return PathfindingSnapshot.progress(startId, (BitSet) discoveredIds.clone(),
+                (BitSet) settledIds.clone(), settledOrder, settledCount);
+    }
 
-            int newDistance = distances[currentId] + weight;
+    /**
+     * Relax every edge leaving the newly settled vertex with ID `currentId`.  Uses the bulk
+     * weighing interface if our weigher supports it.
+     */
+    private void exploreOutgoingEdges(int currentId) {
+        if (bulkWeigher != null) {
+            int count = graph.neighborIds(currentId, neighborIds);
+            int weighed = bulkWeigher.weightsFrom(currentId, edgeWeights);
+            assert weighed == count;
+            for (int i = 0; i < count; ++i) {
+                relax(currentId, neighborIds[i], edgeWeights[i]);
+            }
+        } else {
+            for (EdgeType edge : graph.getVertex(currentId).outgoingEdges()) {
+                relax(currentId, edge.endId(), weigher.weight(edge));
+            }
+        }
+    }
 
+    /**
+     * Update the shortest known path to the vertex with ID `targetId` if going through the settled
+     * vertex with ID `currentId` along an edge of weight `weight` is shorter.
+     */
+    private void relax(int currentId, int targetId, int weight) {
+        int newDistance = distances[currentId] + weight;
 
-            if (distances[targetId] == -1 || newDistance < distances[targetId]) {
-                distances[targetId] = newDistance;
-                predecessors[targetId] = currentId;
-                if (!settledIds.get(targetId)) {
-                    frontier.addOrUpdate(targetId, newDistance);
-                }
+        if (distances[targetId] == -1 || newDistance < distances[targetId]) {
+            if (distances[targetId] == -1) {
+                discoveredIds.set(targetId);
+            }
+            distances[targetId] = newDistance;
+            predecessors[targetId] = currentId;
+            if (!settledIds.get(targetId)) {
+                frontier.addOrUpdate(targetId, newDistance);
             }
         }
     }
@@ -0,0 +1,144 @@
+package metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A lock-free histogram of non-negative `long` values (typically durations in nanoseconds), for
+ * recording from hot paths on any thread.  Like an HDR histogram, buckets are spaced
+ * logarithmically with a fixed number of linear sub-buckets per power of two, so every value is
+ * counted in a bucket no wider than 1/`SUB_BUCKETS` of its magnitude; percentiles are therefore
+ * accurate to about 6% across the whole range of `long`, in a fixed 8 KB of counts.
+ * <p>
+ * Recording is a single atomic increment.  Percentiles are computed from snapshots, and the
+ * difference of two snapshots describes the values recorded between them, which lets a display
+ * show recent percentiles without the histogram ever being reset.
+ */
+public class Histogram {
+
+    /**
+     * The number of bits of each value's magnitude that select its sub-bucket.
+     */
+    private static final int SUB_BUCKET_BITS = 4;
+
+    /**
+     * The number of sub-buckets per power of two.
+     */
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    /**
+     * The number of buckets needed to cover every non-negative `long`.
+     */
+    static final int BUCKET_COUNT = bucketIndex(Long.MAX_VALUE) + 1;
+
+    /**
+     * `counts.get(i)` is the number of values recorded in bucket `i`.
+     */
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+
+    /**
+     * Record `value`, which must not be negative.  Negative values are recorded as 0.
+     */
+    public void record(long value) {
+        counts.incrementAndGet(bucketIndex(Math.max(value, 0)));
+    }
+
+    /**
+     * Return a snapshot of the values recorded so far.  Values recorded concurrently with taking
+     * the snapshot may or may not be included.
+     */
+    public Snapshot snapshot() {
+        long[] copy = new long[BUCKET_COUNT];
+        for (int i = 0; i < BUCKET_COUNT; ++i) {
+            copy[i] = counts.get(i);
+        }
+        return new Snapshot(copy);
+    }
+
+    /**
+     * Return the index of the bucket containing the non-negative `value`.  Values less than
+     * `SUB_BUCKETS` have a bucket each; larger values share buckets with the others that agree
+     * with them in their `SUB_BUCKET_BITS + 1` most significant bits.
+     */
+    static int bucketIndex(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    /**
+     * Return the largest value counted in the bucket with index `index`.
+     */
+    static long bucketMax(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int shift = index / SUB_BUCKETS - 1;
+        long low = (long) (SUB_BUCKETS + index % SUB_BUCKETS) << shift;
+        return low + ((1L << shift) - 1);
+    }
+
+    /**
+     * The counts of a histogram's buckets at some point in time, or the difference between two
+     * such points.  Immutable.
+     */
+    public static class Snapshot {
+
+        /**
+         * `counts[i]` is the number of values in bucket `i`.
+         */
+        private final long[] counts;
+
+        /**
+         * The total number of values in all buckets.
+         */
+        private final long count;
+
+        private Snapshot(long[] counts) {
+            this.counts = counts;
+            long total = 0;
+            for (long c : counts) {
+                total += c;
+            }
+            count = total;
+        }
+
+        /**
+         * Return the number of values recorded.
+         */
+        public long count() {
+            return count;
+        }
+
+        /**
+         * Return (an upper bound within 1/16 of) the `p`th percentile of the recorded values, for
+         * `p` in [0..100]: the smallest value that at least `p` percent of them do not exceed.
+         * Returns 0 if no values were recorded.
+         */
+        public long percentile(double p) {
+            long rank = Math.max(1, (long) Math.ceil(p / 100 * count));
+            long seen = 0;
+            for (int i = 0; i < counts.length; ++i) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return bucketMax(i);
+                }
+            }
+            return 0;
+        }
+
+        /**
+         * Return a snapshot of the values recorded after `earlier` (a snapshot of the same
+         * histogram) and up to this one.
+         */
+        public Snapshot minus(Snapshot earlier) {
+            long[] difference = new long[counts.length];
+            for (int i = 0; i < counts.length; ++i) {
+                difference[i] = counts[i] - earlier.counts[i];
+            }
+            return new Snapshot(difference);
+        }
+    }
+}
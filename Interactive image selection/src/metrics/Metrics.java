@@ -0,0 +1,88 @@
+package metrics;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A process-wide registry of named metrics: counters, gauges and histograms.  Components look up
+ * their metrics once (typically into static fields) and then update them from any thread without
+ * locking; displays such as the performance HUD look them up by the same names to read them.
+ * Looking up a name that has not been registered yet registers it, so readers and writers may start
+ * in either order.
+ * <p>
+ * Names are dotted, starting with the component that updates them.  Those in use are constants
+ * of this class.
+ */
+public final class Metrics {
+
+    /**
+     * Counter of vertices settled by the shortest-paths searches of all selection solves.
+     */
+    public static final String SETTLED = "scissors.settled";
+
+    /**
+     * Gauge of the frontier size of the most recently extended search of a selection solve.
+     */
+    public static final String FRONTIER_SIZE = "scissors.frontierSize";
+
+    /**
+     * Gauge of the duration in nanoseconds of the most recently finished solve for a selection,
+     * from starting its search until all paths were found.
+     */
+    public static final String LAST_SOLVE_NANOS = "scissors.lastSolveNanos";
+
+    /**
+     * Gauges of the number of solves submitted to the shared solve executor but not yet started,
+     * and of the number started but not yet finished.
+     */
+    public static final String SOLVES_QUEUED = "scissors.solvesQueued";
+    public static final String SOLVES_RUNNING = "scissors.solvesRunning";
+
+    /**
+     * Histograms of the durations in nanoseconds that solves wait in the shared solve executor's
+     * queue before starting, and that they take to run once started.
+     */
+    public static final String SOLVE_QUEUE_NANOS = "scissors.solveQueueNanos";
+    public static final String SOLVE_RUN_NANOS = "scissors.solveRunNanos";
+
+    /**
+     * Histogram of the durations in nanoseconds of painting the selection view.
+     */
+    public static final String PAINT_NANOS = "selector.paintNanos";
+
+    /**
+     * Histogram of live wire latencies in nanoseconds, from the pointer moving until the live wire
+     * to it was delivered for display.
+     */
+    public static final String LIVE_WIRE_NANOS = "selector.liveWireNanos";
+
+    private static final ConcurrentMap<String, LongAdder> counters = new ConcurrentHashMap<>();
+    private static final ConcurrentMap<String, AtomicLong> gauges = new ConcurrentHashMap<>();
+    private static final ConcurrentMap<String, Histogram> histograms = new ConcurrentHashMap<>();
+
+    private Metrics() {
+    }
+
+    /**
+     * Return the counter named `name`: a sum that is only ever added to.
+     */
+    public static LongAdder counter(String name) {
+        return counters.computeIfAbsent(name, n -> new LongAdder());
+    }
+
+    /**
+     * Return the gauge named `name`: the most recently set value of some quantity (initially 0).
+     */
+    public static AtomicLong gauge(String name) {
+        return gauges.computeIfAbsent(name, n -> new AtomicLong());
+    }
+
+    /**
+     * Return the histogram named `name`.
+     */
+    public static Histogram histogram(String name) {
+        return histograms.computeIfAbsent(name, n -> new Histogram());
+    }
+}
@@ -0,0 +1,352 @@
+package metrics;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Appends a performance record for each completed operation (a solve, a cost map build, saving a
+ * selection, ...) to a stream as JSON lines, for aggregating across sessions and workstations.
+ * Each line is an object with the fields of `Entry` plus "time" (when it was written, in
+ * milliseconds since the epoch); fields that do not apply to an operation are null, and bytes
+ * allocated are -1 if the JVM cannot measure them.
+ * <p>
+ * Logging must not slow down the operations being logged, so entries are handed to a background
+ * writer through a bounded queue.  If the writer falls behind and the queue is full, entries are
+ * dropped (and counted) rather than blocking; if any were, closing the log writes a final line
+ * with only the fields "time" and "dropped" (the number of entries dropped).  As with
+ * `SessionRecorder`, a failure to write stops logging and is reported by `close()`.
+ * <p>
+ * Components log through the process-wide log set with `install()`, measuring operations with
+ * `begin()` (or `beginAllThreads()` for operations that run on several threads); when no log is
+ * installed, measuring costs next to nothing.
+ */
+public class OperationLog implements Closeable {
+
+    /**
+     * The performance record of one operation: its name, the size of the image it concerned, the
+     * weigher and priority queue implementation it used, how long it took, how many vertices it
+     * settled, and how many bytes its thread allocated (or, for operations measured with
+     * `beginAllThreads()`, how many bytes all threads allocated meanwhile).
+     */
+    public record Entry(String operation, int imageWidth, int imageHeight, String weigher,
+                        String queue, long durationNanos, long settled, long allocatedBytes) {
+    }
+
+    /**
+     * The number of entries that may be waiting to be written before further entries are dropped.
+     */
+    private static final int QUEUE_CAPACITY = 1024;
+
+    /**
+     * The log that `begin()` measures operations for, or null if none.
+     */
+    private static volatile OperationLog installed;
+
+    /**
+     * Entries waiting to be written, followed by `END` once we are closed.
+     */
+    private final BlockingQueue<Object> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+
+    /**
+     * Marks the end of `queue`.
+     */
+    private static final Object END = new Object();
+
+    /**
+     * The number of entries dropped because `queue` was full.
+     */
+    private final LongAdder dropped = new LongAdder();
+
+    /**
+     * The stream entries are written to.  Only accessed by `writerThread`.
+     */
+    private final Writer out;
+
+    /**
+     * Writes entries from `queue` to `out` until it takes `END`.
+     */
+    private final Thread writerThread;
+
+    /**
+     * The first failure to write an entry or to close `out`, or null if none.  Written by
+     * `writerThread` before it terminates.
+     */
+    private IOException failure;
+
+    /**
+     * Whether `close()` has been called.  Volatile so that `log()` on any thread stops queueing
+     * entries promptly.
+     */
+    private volatile boolean closed;
+
+    /**
+     * Start logging entries to `out`, which will be closed when we are closed.
+     */
+    public OperationLog(OutputStream out) {
+        this.out = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        writerThread = new Thread(this::writeEntries, "OperationLog writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    /**
+     * Make `log` the log that operations measured with `begin()` are recorded in (or stop
+     * recording them if `log` is null), and return the previously installed log.  Does not close
+     * either log.
+     */
+    public static OperationLog install(OperationLog log) {
+        OperationLog previous = installed;
+        installed = log;
+        return previous;
+    }
+
+    /**
+     * Start measuring an operation on the current thread, to be recorded in the installed log by
+     * calling `finish()` on the result from the same thread once the operation is complete.
+     */
+    public static Measurement begin() {
+        OperationLog log = installed;
+        return (log == null) ? Measurement.DISABLED : new Measurement(log, false);
+    }
+
+    /**
+     * Start measuring an operation that runs on several threads (such as one using parallel
+     * streams), to be recorded in the installed log by calling `finish()` on the result from any
+     * thread once the operation is complete.  The bytes allocated by every thread in the process
+     * are counted, so any work running concurrently with the operation is charged to it as well.
+     */
+    public static Measurement beginAllThreads() {
+        OperationLog log = installed;
+        return (log == null) ? Measurement.DISABLED : new Measurement(log, true);
+    }
+
+    /**
+     * Queue `entry` to be written, or drop it if too many entries are already waiting.  Ignored
+     * once we are closed.  May be called from any thread.
+     */
+    public void log(Entry entry) {
+        if (closed) {
+            return;
+        }
+        if (!queue.offer(entry)) {
+            dropped.increment();
+        }
+    }
+
+    /**
+     * Return the number of entries dropped because they were logged faster than they could be
+     * written.
+     */
+    public long dropped() {
+        return dropped.sum();
+    }
+
+    /**
+     * Write the entries already logged, stop logging, and close our stream.  Throws the first
+     * exception encountered while writing entries, if any, or any exception encountered while
+     * closing.
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        boolean interrupted = false;
+        while (true) {
+            try {
+                queue.put(END);
+                writerThread.join();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Write entries as they are queued until the end marker is taken, flushing whenever the queue
+     * is empty, then close our stream.  After a failure to write, entries are taken but discarded.
+     * Runs on `writerThread`.
+     */
+    private void writeEntries() {
+        while (true) {
+            Object next = queue.poll();
+            try {
+                if (next == null) {
+                    if (failure == null) {
+                        out.flush();
+                    }
+                    next = queue.take();
+                }
+                if (next == END) {
+                    long droppedCount = dropped.sum();
+                    if (failure == null && droppedCount > 0) {
+                        out.write(droppedJson(droppedCount, System.currentTimeMillis()));
+                        out.write('\n');
+                    }
+                    break;
+                }
+                if (failure == null) {
+                    out.write(toJson((Entry) next, System.currentTimeMillis()));
+                    out.write('\n');
+                }
+            } catch (IOException e) {
+                failure = e;
+            } catch (InterruptedException e) {
+                // Nothing interrupts our own thread, but if something did, stop
+                break;
+            }
+        }
+        try {
+            out.close();
+        } catch (IOException e) {
+            if (failure == null) {
+                failure = e;
+            } else {
+                failure.addSuppressed(e);
+            }
+        }
+    }
+
+    /**
+     * Return `entry`, logged at `timeMillis` (since the epoch), as a single-line JSON object.
+     */
+    static String toJson(Entry entry, long timeMillis) {
+        return "{\"time\":" + timeMillis
+                + ",\"operation\":" + jsonString(entry.operation())
+                + ",\"imageWidth\":" + entry.imageWidth()
+                + ",\"imageHeight\":" + entry.imageHeight()
+                + ",\"weigher\":" + jsonString(entry.weigher())
+                + ",\"queue\":" + jsonString(entry.queue())
+                + ",\"durationNanos\":" + entry.durationNanos()
+                + ",\"settled\":" + entry.settled()
+                + ",\"allocatedBytes\":" + entry.allocatedBytes()
+                + "}";
+    }
+
+    /**
+     * Return the final line recording that `droppedCount` entries were dropped, written at
+     * `timeMillis` (since the epoch), as a single-line JSON object.
+     */
+    static String droppedJson(long droppedCount, long timeMillis) {
+        return "{\"time\":" + timeMillis + ",\"dropped\":" + droppedCount + "}";
+    }
+
+    /**
+     * Return `s` as a JSON string literal, or "null" if `s` is null.
+     */
+    private static String jsonString(String s) {
+        if (s == null) {
+            return "null";
+        }
+        StringBuilder sb = new StringBuilder(s.length() + 2).append('"');
+        for (char c : s.toCharArray()) {
+            switch (c) {
+                case '"' -> sb.append("\\\"");
+                case '\\' -> sb.append("\\\\");
+                case '\n' -> sb.append("\\n");
+                case '\r' -> sb.append("\\r");
+                case '\t' -> sb.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+                }
+            }
+        }
+        return sb.append('"').toString();
+    }
+
+    /**
+     * An operation in progress on some thread, which records an entry for it in a log when
+     * finished.
+     */
+    public static class Measurement {
+
+        /**
+         * A measurement that records nothing, for when no log is installed.
+         */
+        private static final Measurement DISABLED = new Measurement(null, false);
+
+        /**
+         * The log to record the operation in, or null to record nothing.
+         */
+        private final OperationLog log;
+
+        /**
+         * Whether to count the bytes allocated by all threads rather than by the current one.
+         */
+        private final boolean allThreads;
+
+        /**
+         * When the operation began, from `System.nanoTime()`, and the bytes its thread (or all
+         * threads) had allocated by then (-1 if unknown).
+         */
+        private final long startNanos;
+        private final long startAllocatedBytes;
+
+        private Measurement(OperationLog log, boolean allThreads) {
+            this.log = log;
+            this.allThreads = allThreads;
+            if (log == null) {
+                startNanos = 0;
+                startAllocatedBytes = -1;
+            } else {
+                startAllocatedBytes = allocatedBytes();
+                startNanos = System.nanoTime();
+            }
+        }
+
+        /**
+         * Return the bytes allocated so far by the current thread, or by all threads if we are
+         * measuring them, or -1 if unknown.
+         */
+        private long allocatedBytes() {
+            return allThreads ? ThreadAllocation.allThreads() : ThreadAllocation.currentThread();
+        }
+
+        /**
+         * Return whether finishing this measurement will record anything, so that callers can
+         * skip computing the entry's fields otherwise.
+         */
+        public boolean enabled() {
+            return log != null;
+        }
+
+        /**
+         * Record that the operation named `operation` on a `width` by `height` image, with the
+         * weigher named `weigher` and the queue implementation named `queue` (either may be null
+         * if not applicable), finished now after settling `settled` vertices.  Must be called on
+         * the thread that began the measurement, unless it was begun by `beginAllThreads()`.
+         */
+        public void finish(String operation, int width, int height, String weigher, String queue,
+                long settled) {
+            if (log == null) {
+                return;
+            }
+            long duration = System.nanoTime() - startNanos;
+            long end = allocatedBytes();
+            long allocated = (startAllocatedBytes < 0 || end < 0) ? -1
+                    : end - startAllocatedBytes;
+            log.log(new Entry(operation, width, height, weigher, queue, duration, settled,
+                    allocated));
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package metrics;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Reads the JVM's counters of bytes allocated by threads, which count every object a thread
+ * allocates (including any that the JIT would later eliminate).  Used by `OperationLog` to record
+ * what operations allocate, and by tests that assert allocation budgets.
+ */
+public final class ThreadAllocation {
+
+    /**
+     * Used to measure the bytes allocated by threads, or null if the JVM cannot.
+     */
+    private static final com.sun.management.ThreadMXBean threads = allocationMeasuringBean();
+
+    private ThreadAllocation() {
+    }
+
+    /**
+     * Return whether this JVM can measure the bytes allocated by threads.
+     */
+    public static boolean supported() {
+        return threads != null;
+    }
+
+    /**
+     * Return the total number of bytes allocated by the current thread, or -1 if this cannot be
+     * measured.
+     */
+    public static long currentThread() {
+        return (threads == null) ? -1 : threads.getCurrentThreadAllocatedBytes();
+    }
+
+    /**
+     * Return the total number of bytes allocated by all threads of the process (including those
+     * that have terminated), or -1 if this cannot be measured.
+     */
+    public static long allThreads() {
+        return (threads == null) ? -1 : threads.getTotalThreadAllocatedBytes();
+    }
+
+    /**
+     * Return the platform's thread MXBean if it can measure the bytes allocated by the current
+     * thread, enabling that measurement if necessary, or null otherwise.
+     */
+    private static com.sun.management.ThreadMXBean allocationMeasuringBean() {
+        if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean bean
+                && bean.isThreadAllocatedMemorySupported()) {
+            if (!bean.isThreadAllocatedMemoryEnabled()) {
+                bean.setThreadAllocatedMemoryEnabled(true);
+            }
+            return bean;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,501 @@
+package scissors;
+
+import graph.ShortestPaths;
+import graph.Weigher;
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Graphics2D;
+import java.awt.Point;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.stream.Collectors;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import selector.PolyLine;
+import selector.SelectionModel;
+
+/**
+ * Segments sets of images along given control points without a GUI, for scripted processing of
+ * labeled data.  Each image is segmented as a complete "intelligent scissors" selection through
+ * its control points (in order, closing back to the first), and written as a PNG cutout (as by
+ * "Save..." in `SelectorApp`) or, with `--mask`, a PNG mask the size of the image that is white
+ * inside the selection and black outside.
+ * <p>
+ * Control points for an image "name.ext" are read from the file "name.points", in the image's
+ * directory or the one given with `--points`.  It holds one point per line as "x y" or "x,y" in
+ * pixel coordinates; blank lines and text after "#" are ignored.  Since images that differ only in
+ * their extension (such as "a.png" and "a.jpg") would share control points and results, only the
+ * first of them is segmented and the others fail.
+ * <p>
+ * Rather than driving `ScissorsSelectionModel` (which is bound to the Swing event thread), each
+ * image is segmented directly with a `ShortestPaths` solver, which stops each segment's search
+ * as soon as the path to its end point is known.  Images are processed in parallel, but an
+ * estimate of each image's memory use is reserved from a budget before it is decoded, so large
+ * images wait for memory rather than exhausting the heap.  When all are done, a report of the
+ * time spent on each image is printed and also written to "summary.csv" in the output directory.
+ */
+public class BatchSegmenter {
+
+    /**
+     * Estimated peak bytes needed per pixel to segment an image: the decoded image, the weigher's
+     * cost maps, the solver's arrays and frontier, and the output image.  Measured peaks are
+     * 45-65 for the search and weigher alone.
+     */
+    private static final long BYTES_PER_PIXEL = 96;
+
+    /**
+     * The fraction of the maximum heap size used as the default memory budget.
+     */
+    private static final double DEFAULT_BUDGET_FRACTION = 0.6;
+
+    /**
+     * The number of vertices to settle between checks for whether a segment's end is settled.
+     */
+    private static final int SETTLE_BATCH = 4096;
+
+    private static final int MIB = 1 << 20;
+
+    private static final String USAGE = """
+            Usage: BatchSegmenter [options] <image or directory>...
+              --out DIR        directory to write results to (default: segmented)
+              --points DIR     directory of control-point files (default: beside each image)
+              --weigher NAME   weigher to segment with (default: CrossGradMono)
+              --mask           write masks instead of cutouts
+              --threads N      images to process at once (default: number of processors)
+              --memory-mb N    memory budget in MiB (default: 60% of the maximum heap size)""";
+
+    /**
+     * The outcome of segmenting one image.  Durations are in nanoseconds, and are 0 for stages
+     * that were not reached.  `error` is null if the image was segmented and written.
+     */
+    record Result(String image, int width, int height, int points, long decodeNanos,
+                  long weigherNanos, long solveNanos, long writeNanos, long settled,
+                  String error) {
+        long totalNanos() {
+            return decodeNanos + weigherNanos + solveNanos + writeNanos;
+        }
+    }
+
+    /* Options */
+    private File outDir = new File("segmented");
+    private File pointsDir;
+    private String weightName = "CrossGradMono";
+    private boolean mask;
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private int budgetMiB = (int) Math.max(1,
+            Runtime.getRuntime().maxMemory() * DEFAULT_BUDGET_FRACTION / MIB);
+    private final List<File> inputs = new ArrayList<>();
+
+    /**
+     * Permits for MiB of memory that image tasks may reserve.
+     */
+    private Semaphore memory;
+
+    /**
+     * Segment the images named by `args` (see `USAGE`), printing a report to `out`, and return the
+     * process exit status: 0 if all were segmented, 1 if any failed, or 2 if the arguments were
+     * invalid.
+     */
+    static int run(String[] args, PrintStream out) throws InterruptedException {
+        BatchSegmenter segmenter = new BatchSegmenter();
+        List<File> images;
+        try {
+            segmenter.parseArguments(args);
+            images = segmenter.listImages();
+            if (!segmenter.outDir.isDirectory() && !segmenter.outDir.mkdirs()) {
+                throw new IOException("Unable to create " + segmenter.outDir);
+            }
+        } catch (IllegalArgumentException | IOException e) {
+            out.println(e.getMessage());
+            out.println(USAGE);
+            return 2;
+        }
+
+        long start = System.nanoTime();
+        List<Result> results = segmenter.segmentAll(images);
+        long wallNanos = System.nanoTime() - start;
+        segmenter.report(results, wallNanos, out);
+        return results.stream().anyMatch(r -> r.error() != null) ? 1 : 0;
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        if (System.getProperty("java.awt.headless") == null) {
+            System.setProperty("java.awt.headless", "true");
+        }
+        System.exit(run(args, System.out));
+    }
+
+    /**
+     * Set our options and inputs from `args`.  Throws IllegalArgumentException if they are
+     * invalid.
+     */
+    private void parseArguments(String[] args) {
+        Set<String> weightNames = new LinkedHashSet<>();
+        ScissorsWeights.weightNames().forEach(weightNames::add);
+        for (int i = 0; i < args.length; ++i) {
+            String arg = args[i];
+            switch (arg) {
+                case "--out" -> outDir = new File(value(args, ++i, arg));
+                case "--points" -> pointsDir = new File(value(args, ++i, arg));
+                case "--weigher" -> {
+                    weightName = value(args, ++i, arg);
+                    if (!weightNames.contains(weightName)) {
+                        throw new IllegalArgumentException("Unknown weigher " + weightName
+                                + "; choose from " + weightNames);
+                    }
+                }
+                case "--mask" -> mask = true;
+                case "--threads" -> threads = positiveInt(value(args, ++i, arg), arg);
+                case "--memory-mb" -> budgetMiB = positiveInt(value(args, ++i, arg), arg);
+                default -> {
+                    if (arg.startsWith("--")) {
+                        throw new IllegalArgumentException("Unknown option " + arg);
+                    }
+                    inputs.add(new File(arg));
+                }
+            }
+        }
+        if (inputs.isEmpty()) {
+            throw new IllegalArgumentException("No images given");
+        }
+        memory = new Semaphore(budgetMiB);
+    }
+
+    /**
+     * Return `args[i]`, the value of `option`.  Throws IllegalArgumentException if it is missing.
+     */
+    private static String value(String[] args, int i, String option) {
+        if (i >= args.length) {
+            throw new IllegalArgumentException("Missing value for " + option);
+        }
+        return args[i];
+    }
+
+    /**
+     * Return `value`, the value of `option`, as a positive integer.  Throws
+     * IllegalArgumentException if it is not one.
+     */
+    private static int positiveInt(String value, String option) {
+        try {
+            int n = Integer.parseInt(value);
+            if (n > 0) {
+                return n;
+            }
+        } catch (NumberFormatException e) {
+            // Reported below
+        }
+        throw new IllegalArgumentException(option + " must be a positive integer, not " + value);
+    }
+
+    /**
+     * Return the image files among our inputs, in order, expanding directories into the readable
+     * image files they contain (sorted by name).  Throws IOException if an input does not exist.
+     */
+    private List<File> listImages() throws IOException {
+        Set<String> suffixes = Arrays.stream(ImageIO.getReaderFileSuffixes())
+                .map(s -> s.toLowerCase(Locale.ROOT)).collect(Collectors.toSet());
+        List<File> images = new ArrayList<>();
+        for (File input : inputs) {
+            if (input.isDirectory()) {
+                File[] files = input.listFiles(f -> f.isFile()
+                        && suffixes.contains(suffix(f.getName()).toLowerCase(Locale.ROOT)));
+                Arrays.sort(files);
+                images.addAll(Arrays.asList(files));
+            } else if (input.isFile()) {
+                images.add(input);
+            } else {
+                throw new IOException("No such file or directory: " + input);
+            }
+        }
+        return images;
+    }
+
+    /**
+     * Segment `images` in parallel with `threads` threads, and return their results in the same
+     * order.  An image whose base name matches that of an earlier one fails without being
+     * segmented.  Names are compared ignoring case, since the output directory may be on a
+     * case-insensitive file system.
+     */
+    private List<Result> segmentAll(List<File> images) throws InterruptedException {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            Map<String, File> claimed = new HashMap<>();
+            List<Future<Result>> futures = new ArrayList<>();
+            for (File image : images) {
+                File first = claimed.putIfAbsent(
+                        baseName(image.getName()).toLowerCase(Locale.ROOT), image);
+                if (first != null) {
+                    futures.add(CompletableFuture.completedFuture(new Result(image.getName(), 0,
+                            0, 0, 0, 0, 0, 0, 0, "Same base name as " + first
+                                    + ", whose control points and results it would share")));
+                } else {
+                    futures.add(pool.submit(() -> segment(image)));
+                }
+            }
+            List<Result> results = new ArrayList<>();
+            for (int i = 0; i < images.size(); ++i) {
+                try {
+                    results.add(futures.get(i).get());
+                } catch (ExecutionException e) {
+                    results.add(new Result(images.get(i).getName(), 0, 0, 0, 0, 0, 0, 0, 0,
+                            String.valueOf(e.getCause())));
+                }
+            }
+            return results;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Segment `image` along its control points and write the result, waiting until its estimated
+     * memory use fits in our budget.  Returns a failed result, rather than throwing, if its
+     * control points or the image cannot be read or are invalid, or the result cannot be
+     * written.
+     */
+    private Result segment(File image) throws InterruptedException {
+        String name = image.getName();
+        String base = baseName(name);
+        List<Point> points;
+        Dimension size;
+        try {
+            File dir = (pointsDir != null) ? pointsDir : image.getAbsoluteFile().getParentFile();
+            points = readPoints(new File(dir, base + ".points"));
+            size = imageSize(image);
+        } catch (NoSuchFileException e) {
+            return new Result(name, 0, 0, 0, 0, 0, 0, 0, 0,
+                    "No control points file " + e.getFile());
+        } catch (IOException | IllegalArgumentException e) {
+            return new Result(name, 0, 0, 0, 0, 0, 0, 0, 0, e.getMessage());
+        }
+
+        long pixels = (long) size.width * size.height;
+        int reservedMiB = Math.clamp((pixels * BYTES_PER_PIXEL + MIB - 1) / MIB, 1, budgetMiB);
+        memory.acquire(reservedMiB);
+        long decodeNanos = 0;
+        long weigherNanos = 0;
+        long solveNanos = 0;
+        long writeNanos = 0;
+        long settled = 0;
+        try {
+            long start = System.nanoTime();
+            BufferedImage img = ImageIO.read(image);
+            if (img == null) {
+                throw new IOException("Not a readable image: " + image);
+            }
+            for (Point p : points) {
+                if (p.x < 0 || p.x >= img.getWidth() || p.y < 0 || p.y >= img.getHeight()) {
+                    throw new IllegalArgumentException("Control point (" + p.x + "," + p.y
+                            + ") is outside the " + img.getWidth() + "x" + img.getHeight()
+                            + " image");
+                }
+            }
+            long decoded = System.nanoTime();
+            decodeNanos = decoded - start;
+
+            ImageGraph graph = new ImageGraph(img);
+            Weigher<ImageEdge> weigher = ScissorsWeights.makeWeigher(weightName, graph);
+            long weighed = System.nanoTime();
+            weigherNanos = weighed - decoded;
+
+            List<PolyLine> selection = new ArrayList<>();
+            ShortestPaths<ImageVertex, ImageEdge> pathfinder = new ShortestPaths<>(graph, weigher);
+            for (int i = 0; i < points.size(); ++i) {
+                int startId = graph.idAt(points.get(i));
+                int endId = graph.idAt(points.get((i + 1) % points.size()));
+                pathfinder.setStart(startId);
+                while (!pathfinder.isSettled(endId) && !pathfinder.allPathsFound()) {
+                    pathfinder.settle(SETTLE_BATCH);
+                }
+                if (!pathfinder.isSettled(endId)) {
+                    Point from = points.get(i);
+                    Point to = points.get((i + 1) % points.size());
+                    throw new IllegalArgumentException("Control point (" + to.x + "," + to.y
+                            + ") cannot be reached from (" + from.x + "," + from.y + ")");
+                }
+                settled += pathfinder.settledCount();
+                selection.add(graph.pathToPolyLine(pathfinder.pathTo(endId)));
+            }
+            long solved = System.nanoTime();
+            solveNanos = solved - weighed;
+
+            BufferedImage result = mask ? mask(img.getWidth(), img.getHeight(), selection)
+                    : SelectionModel.cutout(img, selection);
+            File outFile = new File(outDir, base + (mask ? "-mask.png" : "-cutout.png"));
+            if (!ImageIO.write(result, "png", outFile)) {
+                throw new IOException("No PNG writer available");
+            }
+            writeNanos = System.nanoTime() - solved;
+            return new Result(name, img.getWidth(), img.getHeight(), points.size(), decodeNanos,
+                    weigherNanos, solveNanos, writeNanos, settled, null);
+        } catch (IOException | IllegalArgumentException e) {
+            return new Result(name, size.width, size.height, points.size(), decodeNanos,
+                    weigherNanos, solveNanos, writeNanos, settled, e.getMessage());
+        } finally {
+            memory.release(reservedMiB);
+        }
+    }
+
+    /**
+     * Return the control points in `file` (see the class description).  Throws IOException if it
+     * cannot be read, or IllegalArgumentException if it is malformed or has fewer than 3 points.
+     */
+    static List<Point> readPoints(File file) throws IOException {
+        List<Point> points = new ArrayList<>();
+        List<String> lines = Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
+        for (int i = 0; i < lines.size(); ++i) {
+            String line = lines.get(i);
+            int comment = line.indexOf('#');
+            if (comment >= 0) {
+                line = line.substring(0, comment);
+            }
+            line = line.strip();
+            if (line.isEmpty()) {
+                continue;
+            }
+            String[] coords = line.split("[\\s,]+");
+            try {
+                if (coords.length != 2) {
+                    throw new NumberFormatException();
+                }
+                points.add(new Point(Integer.parseInt(coords[0]), Integer.parseInt(coords[1])));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException(file.getName() + ":" + (i + 1)
+                        + ": expected \"x y\", not \"" + lines.get(i) + "\"");
+            }
+        }
+        if (points.size() < 3) {
+            throw new IllegalArgumentException(file.getName() + ": at least 3 control points are "
+                    + "needed to enclose a region");
+        }
+        return points;
+    }
+
+    /**
+     * Return the dimensions of the image in `file`, without decoding it.  Throws IOException if
+     * it is not a readable image.
+     */
+    private static Dimension imageSize(File file) throws IOException {
+        try (ImageInputStream in = ImageIO.createImageInputStream(file)) {
+            Iterator<ImageReader> readers = (in == null) ? null : ImageIO.getImageReaders(in);
+            if (readers == null || !readers.hasNext()) {
+                throw new IOException("Not a readable image: " + file);
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in);
+                return new Dimension(reader.getWidth(0), reader.getHeight(0));
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * Return a `width` by `height` grayscale mask that is white inside the closed sequence of
+     * poly-lines `selection` and black outside.
+     */
+    private static BufferedImage mask(int width, int height, List<PolyLine> selection) {
+        BufferedImage mask = new BufferedImage(width, height, BufferedImage.TYPE_BYTE_GRAY);
+        Graphics2D g = mask.createGraphics();
+        g.setColor(Color.WHITE);
+        g.fill(PolyLine.makePolygon(selection));
+        g.dispose();
+        return mask;
+    }
+
+    /**
+     * Return the file name `name` without its extension.
+     */
+    private static String baseName(String name) {
+        int dot = name.lastIndexOf('.');
+        return (dot < 0) ? name : name.substring(0, dot);
+    }
+
+    /**
+     * Return the extension of the file name `name` (without the dot), or "" if it has none.
+     */
+    private static String suffix(String name) {
+        int dot = name.lastIndexOf('.');
+        return (dot < 0) ? "" : name.substring(dot + 1);
+    }
+
+    /**
+     * Print a table of the time spent on each of `results` and totals for all of them, which took
+     * `wallNanos`, to `out`, and write the same per-image figures to "summary.csv" in our output
+     * directory.
+     */
+    private void report(List<Result> results, long wallNanos, PrintStream out) {
+        out.printf("%-32s %11s %6s %9s %9s %9s %9s %9s %11s  %s%n", "image", "size", "points",
+                "decode ms", "weigh ms", "solve ms", "write ms", "total ms", "settled", "status");
+        long sumNanos = 0;
+        int failed = 0;
+        for (Result r : results) {
+            out.printf("%-32s %11s %6d %9.1f %9.1f %9.1f %9.1f %9.1f %11d  %s%n", r.image(),
+                    r.width() + "x" + r.height(), r.points(), millis(r.decodeNanos()),
+                    millis(r.weigherNanos()), millis(r.solveNanos()), millis(r.writeNanos()),
+                    millis(r.totalNanos()), r.settled(),
+                    (r.error() == null) ? "ok" : "FAILED: " + r.error());
+            sumNanos += r.totalNanos();
+            failed += (r.error() == null) ? 0 : 1;
+        }
+        out.printf("%d images (%d failed) in %.1f s with %d threads and a %d MiB memory budget; "
+                        + "%.1f s of image time, %.2f images/s%n", results.size(), failed,
+                wallNanos / 1e9, threads, budgetMiB, sumNanos / 1e9,
+                results.size() / Math.max(wallNanos / 1e9, 1e-9));
+
+        File csv = new File(outDir, "summary.csv");
+        try (PrintWriter w = new PrintWriter(csv, StandardCharsets.UTF_8)) {
+            w.println("image,width,height,points,decodeMs,weigherMs,solveMs,writeMs,totalMs,"
+                    + "settled,error");
+            for (Result r : results) {
+                w.printf(Locale.ROOT, "%s,%d,%d,%d,%.3f,%.3f,%.3f,%.3f,%.3f,%d,%s%n",
+                        csvField(r.image()), r.width(), r.height(), r.points(),
+                        millis(r.decodeNanos()), millis(r.weigherNanos()), millis(r.solveNanos()),
+                        millis(r.writeNanos()), millis(r.totalNanos()), r.settled(),
+                        (r.error() == null) ? "" : csvField(r.error()));
+            }
+        } catch (IOException e) {
+            out.println("Unable to write " + csv + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Return `nanos` in milliseconds.
+     */
+    private static double millis(long nanos) {
+        return nanos / 1e6;
+    }
+
+    /**
+     * Return `s` as a CSV field, quoted if necessary.
+     */
+    private static String csvField(String s) {
+        if (s.contains(",") || s.contains("\"") || s.contains("\n")) {
+            return "\"" + s.replace("\"", "\"\"") + "\"";
+        }
+        return s;
+    }
+}
@@ -0,0 +1,182 @@
+package scissors;
+
+import java.awt.image.Raster;
+import java.util.stream.IntStream;
+
+/**
+ * The per-pixel image features used by the classic Mortensen-Barrett intelligent scissors cost
+ * function: Laplacian zero-crossings, gradient magnitude, and gradient direction.  Features are
+ * computed once per image and quantized so that edge costs can be assembled from small lookup
+ * tables.  Planes are indexed by vertex ID (row-major pixel order).  Instances are immutable after
+ * construction and may be shared between threads.
+ */
+class FeaturePlanes {
+
+    /**
+     * Number of bins that gradient directions are quantized into.
+     */
+    static final int DIR_BINS = 32;
+
+    /**
+     * Standard deviation (in pixels) of the Gaussian used to smooth the image before taking its
+     * Laplacian.
+     */
+    private static final double LAPLACIAN_SIGMA = 1.0;
+
+    /**
+     * The smallest difference in the Laplacian of Gaussian (in gray levels per pixel squared)
+     * across a pair of pixels for a sign change between them to count as a zero-crossing.  In
+     * flat regions the Laplacian is zero up to rounding error, whose sign is arbitrary; a step of
+     * about 2 gray levels comfortably exceeds this.
+     */
+    static final float MIN_ZERO_CROSSING_STEP = 0.5f;
+
+    /**
+     * The width of the image these features were computed from.
+     */
+    final int width;
+
+    /**
+     * The height of the image these features were computed from.
+     */
+    final int height;
+
+    /**
+     * `zeroCrossing[id]` is 1 if the Laplacian of Gaussian changes sign by at least
+     * `MIN_ZERO_CROSSING_STEP` at the pixel with ID `id` (and that pixel is the one of its pair
+     * closer to zero), 0 otherwise.
+     */
+    final byte[] zeroCrossing;
+
+    /**
+     * `gradient[id] & 0xff` is the Sobel gradient magnitude at the pixel with ID `id`, scaled
+     * linearly so that the smallest magnitude in the image maps to 0 and the largest to 255.
+     */
+    final byte[] gradient;
+
+    /**
+     * `direction[id]` is the bin, in [0..DIR_BINS), of the angle of the unit vector perpendicular
+     * to the gradient at the pixel with ID `id` (the local edge direction).
+     */
+    final byte[] direction;
+
+    private FeaturePlanes(int width, int height, byte[] zeroCrossing, byte[] gradient,
+            byte[] direction) {
+        this.width = width;
+        this.height = height;
+        this.zeroCrossing = zeroCrossing;
+        this.gradient = gradient;
+        this.direction = direction;
+    }
+
+    /**
+     * Compute the feature planes for the image whose pixels are in `src`.  All convolutions are
+     * separable and parallelized across rows.
+     */
+    static FeaturePlanes compute(Raster src) {
+        return compute(ImageFilters.grayPlane(src), src.getWidth(), src.getHeight());
+    }
+
+    /**
+     * Compute the feature planes for the grayscale plane `gray` of size `width` by `height`.
+     */
+    static FeaturePlanes compute(float[] gray, int width, int height) {
+        // Laplacian of Gaussian, as the sum of two separable convolutions
+        float[] g = ImageFilters.gaussianKernel(LAPLACIAN_SIGMA);
+        float[] g2 = ImageFilters.gaussianSecondDerivativeKernel(LAPLACIAN_SIGMA);
+        float[] lxx = ImageFilters.convolve(gray, width, height, g2, g);
+        float[] lyy = ImageFilters.convolve(gray, width, height, g, g2);
+        byte[] zeroCrossing = new byte[width * height];
+        IntStream.range(0, height).parallel().forEach(y -> {
+            for (int x = 0; x < width; ++x) {
+                int id = x + width * y;
+                float v = lxx[id] + lyy[id];
+                if (isZeroCrossing(lxx, lyy, v, x, y, width, height)) {
+                    zeroCrossing[id] = 1;
+                }
+            }
+        });
+
+        // Sobel derivatives (both are separable)
+        float[] deriv = {-1, 0, 1};
+        float[] smooth = {1, 2, 1};
+        float[] ix = ImageFilters.convolve(gray, width, height, deriv, smooth);
+        float[] iy = ImageFilters.convolve(gray, width, height, smooth, deriv);
+
+        // Gradient magnitude, normalized to [0..255] below
+        float[] magnitude = new float[width * height];
+        IntStream.range(0, height).parallel().forEach(y -> {
+            for (int id = width * y; id < width * (y + 1); ++id) {
+                magnitude[id] = (float) Math.sqrt(ix[id] * ix[id] + iy[id] * iy[id]);
+            }
+        });
+        float min = Float.POSITIVE_INFINITY;
+        float max = Float.NEGATIVE_INFINITY;
+        for (float m : magnitude) {
+            min = Math.min(min, m);
+            max = Math.max(max, m);
+        }
+        float scale = (max > min) ? 255 / (max - min) : 0;
+        float offset = min;
+
+        byte[] gradient = new byte[width * height];
+        byte[] direction = new byte[width * height];
+        IntStream.range(0, height).parallel().forEach(y -> {
+            for (int id = width * y; id < width * (y + 1); ++id) {
+                gradient[id] = (byte) Math.round((magnitude[id] - offset) * scale);
+                // The edge direction D' = (Iy, -Ix) is perpendicular to the gradient
+                direction[id] = (byte) directionBin(iy[id], -ix[id]);
+            }
+        });
+
+        return new FeaturePlanes(width, height, zeroCrossing, gradient, direction);
+    }
+
+    /**
+     * Return whether the Laplacian `v` at pixel (`x`, `y`) changes sign relative to one of its
+     * 4-connected neighbors by at least `MIN_ZERO_CROSSING_STEP` and is at least as close to zero
+     * as that neighbor.  The Laplacian at any pixel is the sum of the corresponding elements of
+     * `lxx` and `lyy`.
+     */
+    private static boolean isZeroCrossing(float[] lxx, float[] lyy, float v, int x, int y,
+            int width, int height) {
+        int id = x + width * y;
+        if (x + 1 < width && crosses(v, lxx[id + 1] + lyy[id + 1])) {
+            return true;
+        }
+        if (x > 0 && crosses(v, lxx[id - 1] + lyy[id - 1])) {
+            return true;
+        }
+        if (y + 1 < height && crosses(v, lxx[id + width] + lyy[id + width])) {
+            return true;
+        }
+        return y > 0 && crosses(v, lxx[id - width] + lyy[id - width]);
+    }
+
+    /**
+     * Return whether `v` and `neighbor` have opposite signs, differ by at least
+     * `MIN_ZERO_CROSSING_STEP`, and `v` is the closer of the two to zero.
+     */
+    private static boolean crosses(float v, float neighbor) {
+        return ((v >= 0) != (neighbor >= 0)) && Math.abs(v) <= Math.abs(neighbor)
+                && Math.abs(v - neighbor) >= MIN_ZERO_CROSSING_STEP;
+    }
+
+    /**
+     * Return the bin in [0..DIR_BINS) containing the angle of the vector (`dx`, `dy`).
+     */
+    static int directionBin(float dx, float dy) {
+        double angle = Math.atan2(dy, dx);
+        if (angle < 0) {
+            angle += 2 * Math.PI;
+        }
+        return (int) (angle / (2 * Math.PI) * DIR_BINS) % DIR_BINS;
+    }
+
+    /**
+     * Return the unit-vector angle represented by the center of direction bin `bin`.
+     */
+    static double binAngle(int bin) {
+        return 2 * Math.PI * (bin + 0.5) / DIR_BINS;
+    }
+}
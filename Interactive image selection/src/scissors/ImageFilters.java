@@ -0,0 +1,265 @@
+package scissors;
+
+import java.awt.image.Raster;
+import java.util.stream.IntStream;
+
+/**
+ * Image-processing helpers shared by the feature-based weighers in `ScissorsWeights`.  Images are
+ * represented as single-channel "planes" of floats stored in row-major order, so the sample at
+ * pixel (`x`, `y`) of a plane with width `width` is at index `x + width*y`.  Convolutions are
+ * separable and are parallelized across rows; pixels beyond the image's border are treated as
+ * copies of the nearest pixel inside it.
+ */
+class ImageFilters {
+
+    /**
+     * Return a plane containing the band-averaged brightness of `src`, scaled so that the
+     * brightest representable sample is 255 regardless of the raster's sample depth.
+     */
+    static float[] grayPlane(Raster src) {
+        int width = src.getWidth();
+        int height = src.getHeight();
+        int numBands = src.getNumBands();
+        float[] scales = new float[numBands];
+        for (int b = 0; b < numBands; ++b) {
+            int bits = src.getSampleModel().getSampleSize(b);
+            scales[b] = 255.0f / ((1 << bits) - 1) / numBands;
+        }
+
+        float[] gray = new float[width * height];
+        IntStream.range(0, height).parallel().forEach(y -> {
+            // Fetch a whole row of interleaved samples at once rather than one sample per call
+            int[] row = src.getPixels(src.getMinX(), src.getMinY() + y, width, 1, (int[]) null);
+            int offset = width * y;
+            for (int x = 0; x < width; ++x) {
+                float sum = 0;
+                for (int b = 0; b < numBands; ++b) {
+                    sum += row[x * numBands + b] * scales[b];
+                }
+                gray[offset + x] = sum;
+            }
+        });
+        return gray;
+    }
+
+    /**
+     * Return a normalized, odd-length sampling of a Gaussian with standard deviation `sigma`
+     * (in pixels).  The kernel extends 3 standard deviations to either side of its center.
+     * Requires `sigma > 0`.
+     */
+    static float[] gaussianKernel(double sigma) {
+        assert sigma > 0;
+        int radius = (int) Math.ceil(3 * sigma);
+        float[] kernel = new float[2 * radius + 1];
+        double sum = 0;
+        for (int i = -radius; i <= radius; ++i) {
+            double v = Math.exp(-(i * i) / (2 * sigma * sigma));
+            kernel[i + radius] = (float) v;
+            sum += v;
+        }
+        for (int i = 0; i < kernel.length; ++i) {
+            kernel[i] /= (float) sum;
+        }
+        return kernel;
+    }
+
+    /**
+     * Return a sampling of the second derivative of a Gaussian with standard deviation `sigma`
+     * (in pixels), with the same length as `gaussianKernel(sigma)`.  Convolving along one axis
+     * with this kernel and along the other with `gaussianKernel(sigma)` yields one term of the
+     * Laplacian of Gaussian.  The kernel is adjusted to sum to zero so that flat regions produce
+     * no response.  Requires `sigma > 0`.
+     */
+    static float[] gaussianSecondDerivativeKernel(double sigma) {
+        float[] gaussian = gaussianKernel(sigma);
+        int radius = gaussian.length / 2;
+        float[] kernel = new float[gaussian.length];
+        double sum = 0;
+        for (int i = -radius; i <= radius; ++i) {
+            double v = gaussian[i + radius] * ((i * i) / (sigma * sigma) - 1) / (sigma * sigma);
+            kernel[i + radius] = (float) v;
+            sum += v;
+        }
+        float correction = (float) (sum / kernel.length);
+        for (int i = 0; i < kernel.length; ++i) {
+            kernel[i] -= correction;
+        }
+        return kernel;
+    }
+
+    /**
+     * Return the convolution of `src` (a plane of size `width` by `height`) with the separable
+     * kernel formed by `rowKernel` (applied along each row) and `colKernel` (applied along each
+     * column).  Both kernels must have odd length.
+     */
+    static float[] convolve(float[] src, int width, int height, float[] rowKernel,
+            float[] colKernel) {
+        return convolveColumns(convolveRows(src, width, height, rowKernel), width, height,
+                colKernel);
+    }
+
+    /**
+     * Return the convolution of each row of `src` (a plane of size `width` by `height`) with the
+     * odd-length kernel `kernel`.  Rows are processed in parallel.
+     */
+    static float[] convolveRows(float[] src, int width, int height, float[] kernel) {
+        assert kernel.length % 2 == 1;
+        int radius = kernel.length / 2;
+        float[] dst = new float[src.length];
+        IntStream.range(0, height).parallel().forEach(y -> {
+            int offset = width * y;
+            for (int x = 0; x < width; ++x) {
+                float sum = 0;
+                if (x >= radius && x + radius < width) {
+                    // Interior: no clamping needed
+                    int base = offset + x - radius;
+                    for (int k = 0; k < kernel.length; ++k) {
+                        sum += kernel[k] * src[base + k];
+                    }
+                } else {
+                    for (int k = 0; k < kernel.length; ++k) {
+                        int sx = Math.clamp(x + k - radius, 0, width - 1);
+                        sum += kernel[k] * src[offset + sx];
+                    }
+                }
+                dst[offset + x] = sum;
+            }
+        });
+        return dst;
+    }
+
+    /**
+     * Return the convolution of each column of `src` (a plane of size `width` by `height`) with
+     * the odd-length kernel `kernel`.  Output rows are processed in parallel, and each reads whole
+     * rows of `src` so that memory is still traversed sequentially.
+     */
+    static float[] convolveColumns(float[] src, int width, int height, float[] kernel) {
+        assert kernel.length % 2 == 1;
+        int radius = kernel.length / 2;
+        float[] dst = new float[src.length];
+        IntStream.range(0, height).parallel().forEach(y -> {
+            int offset = width * y;
+            for (int k = 0; k < kernel.length; ++k) {
+                int srcOffset = width * Math.clamp(y + k - radius, 0, height - 1);
+                float weight = kernel[k];
+                for (int x = 0; x < width; ++x) {
+                    dst[offset + x] += weight * src[srcOffset + x];
+                }
+            }
+        });
+        return dst;
+    }
+
+    /**
+     * Return a Gaussian scale-space stack of `src` (a plane of size `width` by `height`): element
+     * `k` is `src` blurred by a Gaussian with standard deviation `sigmas[k]`.  Each level is
+     * computed by blurring the previous one by just enough to reach its scale (Gaussian variances
+     * add), so coarser levels reuse the work done for finer ones.  Requires `sigmas` is strictly
+     * increasing and positive.
+     */
+    static float[][] gaussianStack(float[] src, int width, int height, double[] sigmas) {
+        float[][] levels = new float[sigmas.length][];
+        float[] prev = src;
+        double prevSigma = 0;
+        for (int k = 0; k < sigmas.length; ++k) {
+            assert sigmas[k] > prevSigma;
+            double step = Math.sqrt(sigmas[k] * sigmas[k] - prevSigma * prevSigma);
+            float[] kernel = gaussianKernel(step);
+            levels[k] = convolve(prev, width, height, kernel, kernel);
+            prev = levels[k];
+            prevSigma = sigmas[k];
+        }
+        return levels;
+    }
+
+    /**
+     * Number of intervals in the lookup table for the CIELAB companding function.
+     */
+    private static final int LAB_F_STEPS = 4096;
+
+    /**
+     * `LAB_F[i]` is the CIELAB companding function f(t) evaluated at `t = i / LAB_F_STEPS`.  Values
+     * in between are linearly interpolated, which avoids a cube root per pixel.
+     */
+    private static final float[] LAB_F = makeLabF();
+
+    private static float[] makeLabF() {
+        float[] table = new float[LAB_F_STEPS + 2];
+        double delta = 6.0 / 29;
+        for (int i = 0; i < table.length; ++i) {
+            double t = (double) i / LAB_F_STEPS;
+            table[i] = (float) ((t > delta * delta * delta) ? Math.cbrt(t)
+                    : t / (3 * delta * delta) + 4.0 / 29);
+        }
+        return table;
+    }
+
+    /**
+     * Return the CIELAB companding function f(t) for `t` in [0..1], interpolated from `LAB_F`.
+     */
+    private static float labF(float t) {
+        float pos = Math.clamp(t, 0, 1) * LAB_F_STEPS;
+        int i = (int) pos;
+        float frac = pos - i;
+        return LAB_F[i] + frac * (LAB_F[i + 1] - LAB_F[i]);
+    }
+
+    /**
+     * Return a table mapping each sample value of a band with `bits` bits per sample, interpreted
+     * as an sRGB-encoded intensity, to its linear intensity in [0..1].
+     */
+    private static float[] srgbToLinearTable(int bits) {
+        float[] table = new float[1 << bits];
+        double maxValue = table.length - 1;
+        for (int v = 0; v < table.length; ++v) {
+            double c = v / maxValue;
+            table[v] = (float) ((c <= 0.04045) ? c / 12.92 : Math.pow((c + 0.055) / 1.055, 2.4));
+        }
+        return table;
+    }
+
+    /**
+     * Convert the sRGB image whose pixels are in `src` to CIELAB (D65 white point), returning the
+     * planes {L, a, b}.  Single-band rasters are treated as gray.  Any bands after the first three
+     * (such as alpha) are ignored.  Gamma expansion and the cube root are both done with lookup
+     * tables, and rows are converted in parallel.  Requires at most 16 bits per sample.
+     */
+    static float[][] labPlanes(Raster src) {
+        int width = src.getWidth();
+        int height = src.getHeight();
+        int numBands = src.getNumBands();
+        int colorBands = Math.min(numBands, 3);
+        float[][] linear = new float[colorBands][];
+        for (int b = 0; b < colorBands; ++b) {
+            int bits = src.getSampleModel().getSampleSize(b);
+            assert bits <= 16;
+            linear[b] = srgbToLinearTable(bits);
+        }
+        // Each color band's index into a pixel's samples (gray images reuse band 0)
+        int rBand = 0;
+        int gBand = (colorBands == 3) ? 1 : 0;
+        int bBand = (colorBands == 3) ? 2 : 0;
+
+        float[] lPlane = new float[width * height];
+        float[] aPlane = new float[width * height];
+        float[] bPlane = new float[width * height];
+        IntStream.range(0, height).parallel().forEach(y -> {
+            int[] row = src.getPixels(src.getMinX(), src.getMinY() + y, width, 1, (int[]) null);
+            int offset = width * y;
+            for (int x = 0; x < width; ++x) {
+                int base = x * numBands;
+                float r = linear[rBand][row[base + rBand]];
+                float g = linear[gBand][row[base + gBand]];
+                float b = linear[bBand][row[base + bBand]];
+                // Linear sRGB to XYZ, normalized by the D65 reference white
+                float fx = labF((0.4124f * r + 0.3576f * g + 0.1805f * b) / 0.95047f);
+                float fy = labF(0.2126f * r + 0.7152f * g + 0.0722f * b);
+                float fz = labF((0.0193f * r + 0.1192f * g + 0.9505f * b) / 1.08883f);
+                lPlane[offset + x] = 116 * fy - 16;
+                aPlane[offset + x] = 500 * (fx - fy);
+                bPlane[offset + x] = 200 * (fy - fz);
+            }
+        });
+        return new float[][]{lPlane, aPlane, bPlane};
+    }
+}
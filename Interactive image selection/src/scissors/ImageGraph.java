@@ -76,6 +76,34 @@ class ImageGraph implements Graph<ImageVertex> {
         return new ImageVertex(this, p.x, p.y);
     }
 
+    /**
+     * Store the IDs of the neighbors of the vertex with ID `id` in `out`, in the same order as that
+     * vertex's `outgoingEdges()`, without constructing any vertices or edges.  Requires `out` has
+     * room for 8 IDs.
+     */
+    @Override
+    public int neighborIds(int id, int[] out) {
+        int width = width();
+        int height = height();
+        int y = id / width;
+        int x = id - y * width;
+        int count = 0;
+        for (int dir = 0; dir < 8; ++dir) {
+            if (ImageVertex.validDir(x, y, width, height, dir)) {
+                out[count] = id + ImageVertex.DX[dir] + width * ImageVertex.DY[dir];
+                count += 1;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Return the image we are providing a graph structure for.
+     */
+    public BufferedImage image() {
+        return img;
+    }
+
     /**
      * Return the Raster backing our image.  This is convenient for querying the brightness of
      * pixels in different color bands.
@@ -90,8 +118,11 @@ class ImageGraph implements Graph<ImageVertex> {
      */
     public PolyLine pathToPolyLine(List<Integer> path) {
         PolyLineBuffer buffer = new PolyLineBuffer(path.size());
+        int width = width();
         for (int id : path) {
-            buffer.append(getVertex(id).point());
+            // Compute the pixel directly rather than constructing its vertex and point
+            int y = id / width;
+            buffer.append(id - y * width, y);
         }
         return buffer.toPolyLine();
     }
@@ -104,6 +135,13 @@ class ImageGraph implements Graph<ImageVertex> {
  */
 record ImageVertex(ImageGraph image, int x, int y) implements Vertex<ImageEdge> {
 
+    /**
+     * `DX[dir]` and `DY[dir]` are the offsets from a pixel to its neighbor in the direction `dir`
+     * (0 is "right" and 2 is "up", so y decreases in direction 2).  Must not be modified.
+     */
+    static final int[] DX = {1, 1, 0, -1, -1, -1, 0, 1};
+    static final int[] DY = {0, -1, -1, -1, 0, 1, 1, 1};
+
     public ImageVertex {
         // This "post-constructor" runs after the record's fields have been initialized to the
         //  constructor's arguments.  Here we just assert that the location is within the image's
@@ -139,15 +177,24 @@ record ImageVertex(ImageGraph image, int x, int y) implements Vertex<ImageEdge>
      * bounds.  Requires `dir` in [0..7], with 0 representing "right" and 2 representing "up".
      */
     boolean validDir(int dir) {
+        return validDir(x, y, image.width(), image.height(), dir);
+    }
+
+    /**
+     * Return whether a potential neighbor of pixel (`x`, `y`) in the direction `dir` is within the
+     * bounds of an image of size `width` by `height`.  Direction conventions are the same as for
+     * the instance method of the same name.
+     */
+    static boolean validDir(int x, int y, int width, int height, int dir) {
         return switch (dir) {
-            case 0 -> x + 1 < image.width();
-            case 1 -> x + 1 < image.width() && y > 0;
+            case 0 -> x + 1 < width;
+            case 1 -> x + 1 < width && y > 0;
             case 2 -> y > 0;
             case 3 -> x > 0 && y > 0;
             case 4 -> x > 0;
-            case 5 -> x > 0 && y + 1 < image.height();
-            case 6 -> y + 1 < image.height();
-            case 7 -> x + 1 < image.width() && y + 1 < image.height();
+            case 5 -> x > 0 && y + 1 < height;
+            case 6 -> y + 1 < height;
+            case 7 -> x + 1 < width && y + 1 < height;
             default -> false;
         };
     }
@@ -32,4 +32,43 @@ public class ImagePathsSnapshot {
     public boolean settled(Point p) {
         return paths.settled(graph.idAt(p));
     }
+
+    /**
+     * Return whether the pixel at (`x`, `y`) is known to be reachable from the pathfinder's
+     * starting location.  Requires (`x`, `y`) is a location in the image.
+     */
+    public boolean discovered(int x, int y) {
+        return paths.discovered(ImageVertex.xyToId(x, y, graph.width()));
+    }
+
+    /**
+     * Return whether a shortest path is known from the pathfinder's starting location to the pixel
+     * at (`x`, `y`).  Requires (`x`, `y`) is a location in the image.
+     */
+    public boolean settled(int x, int y) {
+        return paths.settled(ImageVertex.xyToId(x, y, graph.width()));
+    }
+
+    /**
+     * Return the number of pixels whose shortest paths were known when this snapshot was taken.
+     */
+    public int settledCount() {
+        return paths.settledCount();
+    }
+
+    /**
+     * Return the index in row-major order (`x + width*y`) of the `index`th pixel to be settled.
+     * Requires `index` is in [0..settledCount()).
+     */
+    public int settledPixel(int index) {
+        return paths.settledId(index);
+    }
+
+    /**
+     * Return whether this snapshot and `other` are progress reports from the same search, meaning
+     * that the pixels settled in the earlier one are a prefix of those settled in the later one.
+     */
+    public boolean sameSearch(ImagePathsSnapshot other) {
+        return graph == other.graph && paths.sameSearch(other.paths);
+    }
 }
@@ -0,0 +1,124 @@
+package scissors;
+
+import graph.PathfindingSnapshot;
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JDK Flight Recorder events for the stages of "intelligent scissors" selection, so that the
+ * sources of latency in a real session can be seen exactly rather than sampled.  Every event
+ * records the size of the image and the name of the weigher in use.  The events are enabled by
+ * default whenever a recording is running, e.g. after `jcmd <pid> JFR.start
+ * filename=scissors.jfr`; view them in JDK Mission Control under the "Intelligent Scissors"
+ * category, or with `jfr print --categories "Intelligent Scissors" scissors.jfr`.
+ * <p>
+ * When no recording is running, creating and committing an event costs next to nothing, but
+ * callers should still only compute field values if `shouldCommit()` returns true.
+ */
+final class ScissorsEvents {
+
+    private ScissorsEvents() {
+    }
+
+    /**
+     * Fields shared by all of our events.
+     */
+    @Category("Intelligent Scissors")
+    abstract static class ScissorsEvent extends Event {
+        @Label("Image Width")
+        int imageWidth;
+
+        @Label("Image Height")
+        int imageHeight;
+
+        @Label("Weigher")
+        String weigher;
+
+        /**
+         * Record that this event concerns the image of `graph` and the weigher named `weightName`.
+         */
+        void describe(ImageGraph graph, String weightName) {
+            imageWidth = graph.width();
+            imageHeight = graph.height();
+            weigher = weightName;
+        }
+    }
+
+    @Name("scissors.CostMapBuild")
+    @Label("Cost Map Build")
+    @Description("Construction of a weigher, including any cost maps it precomputes")
+    static class CostMapBuild extends ScissorsEvent {
+    }
+
+    @Name("scissors.Solve")
+    @Label("Solve")
+    @Description("A shortest-paths worker's run, from starting (including waiting for its weigher) "
+            + "until it finished or noticed it was cancelled")
+    static class Solve extends ScissorsEvent {
+        @Label("Start Vertex")
+        int startId;
+
+        @Label("Outcome")
+        @Description("\"finished\", \"cancelled\" or \"failed\"")
+        String outcome;
+
+        @Label("Vertices Settled")
+        int settled;
+    }
+
+    @Name("scissors.SolveBatch")
+    @Label("Solve Batch")
+    @Description("One batch of vertices settled by a solve")
+    static class SolveBatch extends ScissorsEvent {
+        @Label("Vertices Settled")
+        int settled;
+
+        @Label("Queue Size")
+        @Description("The number of frontier vertices after the batch")
+        int queueSize;
+    }
+
+    @Name("scissors.Snapshot")
+    @Label("Snapshot")
+    @Description("Creation of a snapshot of a solve's results")
+    static class Snapshot extends ScissorsEvent {
+        @Label("Kind")
+        @Description("\"full\" for final results, \"progress\" for a progress report")
+        String kind;
+
+        @Label("Bytes Copied")
+        @DataAmount(DataAmount.BYTES)
+        long bytesCopied;
+
+        /**
+         * Record that `snapshot` of a search in a graph with `vertexCount` vertices was taken.
+         */
+        void describeSnapshot(PathfindingSnapshot snapshot, int vertexCount) {
+            // Bit sets hold a 64-bit word per 64 vertices; full snapshots also copy two int arrays
+            long bitSetBytes = (vertexCount + 63L) / 64 * 8;
+            kind = snapshot.hasPaths() ? "full" : "progress";
+            bytesCopied = snapshot.hasPaths() ? 8L * vertexCount + bitSetBytes : 2 * bitSetBytes;
+        }
+    }
+
+    @Name("scissors.PathReconstruction")
+    @Label("Path Reconstruction")
+    @Description("Reconstruction of a path from a snapshot, for a live wire or a segment")
+    static class PathReconstruction extends ScissorsEvent {
+        @Label("Path Length")
+        @Description("The number of vertices on the path")
+        int pathLength;
+    }
+
+    @Name("scissors.SaveSelection")
+    @Label("Save Selection")
+    @Description("Writing the selected region of the image")
+    static class SaveSelection extends ScissorsEvent {
+        @Label("Segments")
+        int segments;
+    }
+}
@@ -4,16 +4,29 @@ import static selector.SelectionModel.SelectionState.*;
 
 import graph.PathfindingSnapshot;
 import graph.ShortestPaths;
+import graph.Weigher;
+import java.awt.DisplayMode;
+import java.awt.GraphicsEnvironment;
 import java.awt.Point;
 import java.awt.image.BufferedImage;
 import java.beans.PropertyChangeEvent;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.List;
 import java.util.ListIterator;
 import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
 import javax.swing.SwingWorker;
 import javax.swing.SwingWorker.StateValue;
+import metrics.Metrics;
+import metrics.OperationLog;
 import selector.PolyLine;
 import selector.SelectionModel;
 
@@ -35,6 +48,19 @@ public class ScissorsSelectionModel extends SelectionModel {
      */
     private String weightName;
 
+    /**
+     * The Weigher named by `weightName` for our current `graph`.  Construction (which may
+     * precompute cost maps for the whole image) starts on a background thread as soon as the image
+     * is set, so that it overlaps with the user choosing a starting point; solves wait for it
+     * there rather than on the EDT.  The weigher is then shared by all of our solves (and, through
+     * `WeigherCache`, with other models for the same image), so that its precomputation is only
+     * done once per image.  Null if we have no image.  Weighers are not
+     * modified after construction, so sharing them between workers is safe; a trained weigher is
+     * instead replaced by a retrained one between solves, and each worker keeps the instance it
+     * started with.
+     */
+    private CompletableFuture<Weigher<ImageEdge>> weigher;
+
     /**
      * The shortest paths computed from the last committed point for the current image.  May be null
      * if we are not in the SELECTING state.
@@ -42,8 +68,9 @@ public class ScissorsSelectionModel extends SelectionModel {
     private PathfindingSnapshot paths;
 
     /**
-     * The most recent intermediate paths from the current shortest paths solve.  Null if no ongoing
-     * solve or if solve has not reported any progress yet.
+     * The most recent progress snapshot from the current shortest paths solve, which records the
+     * discovered and settled vertices but not paths to them.  Null if no ongoing solve or if solve
+     * has not reported any progress yet.
      */
     private PathfindingSnapshot pendingPaths;
 
@@ -56,6 +83,24 @@ public class ScissorsSelectionModel extends SelectionModel {
      */
     private ShortestPathsWorker worker;
 
+    /**
+     * The minimum time, in milliseconds, between starting successive solves.  Requests made more
+     * rapidly than this are coalesced.
+     */
+    private static final int SOLVE_DEBOUNCE_MILLIS = 30;
+
+    /**
+     * Runs our workers, at most one at a time, and pools their solvers.
+     */
+    private final SolveScheduler scheduler = new SolveScheduler(SOLVE_DEBOUNCE_MILLIS);
+
+    /**
+     * The value of `System.nanoTime()` when the current selection was started, if its first live
+     * wire has not yet become available; otherwise -1.  Used to report the time to the first live
+     * wire (which includes waiting for cost maps) as the "first-live-wire-millis" property.
+     */
+    private long selectionStartNanos = -1;
+
     /**
      * The state we last transitioned into PROCESSING from (and which we will return to if the
      * processing is cancelled).  Value is unspecified if we are not in PROCESSING.
@@ -83,6 +128,7 @@ public class ScissorsSelectionModel extends SelectionModel {
         this.weightName = weightName;
         if (image() != null) {
             graph = new ImageGraph(image());
+            weigher = startWeigher();
         }
         if (state() == SELECTING) {
             findPaths(graph.idAt(lastPoint()));
@@ -93,16 +139,14 @@ public class ScissorsSelectionModel extends SelectionModel {
     public void reset() {
         // Overridden due to the need to cancel background processing.
 
-        // Cancel any background tasks
-        if (state() == PROCESSING) {
-            cancelProcessing();
+        // Cancel any background tasks.  Since the inherited behavior will immediately transition to
+        // the NO_SELECTION state, we need to maintain our invariant regarding `worker` by setting
+        // to null.  Any running worker will notice this and refrain from changing us.
+        if (worker != null) {
+            worker.cancel(false);
+            worker = null;
         }
 
-        // Since the inherited behavior will immediately transition to the NO_SELECTION state,
-        // we need to maintain our invariant regarding `worker` by setting to null.  Any running
-        // worker will notice this and refrain from changing us.
-        worker = null;
-
         super.reset();
     }
 
@@ -116,11 +160,32 @@ public class ScissorsSelectionModel extends SelectionModel {
         //  graph with one that represents the new image.
         if (img != null) {
             graph = new ImageGraph(img);
+            weigher = startWeigher();
         } else {
             graph = null;
+            weigher = null;
+            releaseSharedWeighers();
         }
     }
 
+    /**
+     * Discard the weighers shared between models working on the same image, releasing the memory
+     * held by their cost maps once no model uses them.  Models keep the weigher they already
+     * obtained.  Must be called from the EDT.
+     */
+    public static void releaseSharedWeighers() {
+        WeigherCache.clear();
+    }
+
+    /**
+     * Return a future for the Weigher named by `weightName` for our current graph, starting to
+     * construct it on a background thread unless another model for the same image already has.
+     * Requires that an image has been set.
+     */
+    private CompletableFuture<Weigher<ImageEdge>> startWeigher() {
+        return WeigherCache.weigher(weightName, graph);
+    }
+
     @Override
     protected void startSelection(Point start) {
         // Overridden to do processing when selection has been started
@@ -131,6 +196,7 @@ public class ScissorsSelectionModel extends SelectionModel {
             throw new IllegalStateException("Cannot start selection from state " + state());
         }
         this.start = new Point(start);
+        selectionStartNanos = System.nanoTime();
 
         // Find shortest paths from our start node so we will know what segment to connect to the
         //  next added (or live wire) point.
@@ -149,7 +215,8 @@ public class ScissorsSelectionModel extends SelectionModel {
             reset();
         } else {
             int committedId = graph.idAt(start);
-            PolyLine newSegment = graph.pathToPolyLine(paths.pathTo(committedId));
+            PolyLine newSegment =
+                    graph.pathToPolyLine(pathTo(graph, paths, committedId, weightName));
             selection.addLast(newSegment);
             setState(SELECTED);
         }
@@ -161,10 +228,27 @@ public class ScissorsSelectionModel extends SelectionModel {
         super.undoPoint();
 
         if (state() == SELECTING) {
+            retrainWeigher();
             findPaths(graph.idAt(lastPoint()));
         }
     }
 
+    /**
+     * If our weigher learns from the selection, replace it with one trained on the most recently
+     * committed segment (or an untrained one if the selection is empty).  Must be called before
+     * `findPaths()` so that the new solve uses the retrained costs; solves already in flight keep
+     * the weigher they started with.
+     */
+    private void retrainWeigher() {
+        PolyLine segment = selection.isEmpty() ? null : selection.getLast();
+        weigher = weigher.thenApply(w -> {
+            if (w instanceof ScissorsWeights.TrainedWeight trained) {
+                return (segment == null) ? trained.untrained() : trained.trainedOn(segment);
+            }
+            return w;
+        });
+    }
+
     /**
      * Append to the current selection the "intelligent scissors" shortest path segment connecting
      * our current selection's endpoint to `p`.
@@ -184,12 +268,13 @@ public class ScissorsSelectionModel extends SelectionModel {
         //  Hint: The `ImageGraph` class provides methods that might help with steps 1 and 3.
 
         int vertexId = graph.idAt(p);
-        List<Integer> path = paths.pathTo(vertexId);
+        List<Integer> path = pathTo(graph, paths, vertexId, weightName);
 //        System.out.println("Vertex ID: " + vertexId + " | Path size: " + (path != null ? path.size() : "null"));
 
         if (path != null && !path.isEmpty()) {
             PolyLine newSegment = graph.pathToPolyLine(path);
             selection.addLast(newSegment);
+            retrainWeigher();
             findPaths(vertexId);
         } else {
             System.out.println("No path or empty path found");
@@ -208,7 +293,7 @@ public class ScissorsSelectionModel extends SelectionModel {
 
         pendingPaths = null;
         worker = new ShortestPathsWorker(startId);
-        worker.execute();
+        scheduler.submit(worker);
     }
 
     @Override
@@ -234,7 +319,7 @@ public class ScissorsSelectionModel extends SelectionModel {
                     PolyLine oldAfter = it.previous();
                     var oaEnd = graph.vertexAt(oldAfter.end());
                     // New segment is path from moved point to successor point
-                    it.set(graph.pathToPolyLine(paths.pathTo(oaEnd.id())));
+                    it.set(graph.pathToPolyLine(pathTo(graph, paths, oaEnd.id(), weightName)));
 
                     if (!it.hasPrevious()) {
                         it = selection.listIterator(selection.size());
@@ -244,7 +329,8 @@ public class ScissorsSelectionModel extends SelectionModel {
                     var obStart = graph.vertexAt(oldBefore.start());
                     // New segment is the reverse of the path from the moved point to its
                     //  predecessor point.
-                    it.set(graph.pathToPolyLine(paths.pathTo(obStart.id()).reversed()));
+                    it.set(graph.pathToPolyLine(
+                            pathTo(graph, paths, obStart.id(), weightName).reversed()));
 
                     propSupport.firePropertyChange("selection", null, selection());
                 }
@@ -268,7 +354,7 @@ public class ScissorsSelectionModel extends SelectionModel {
 
 
         int vertexId = graph.idAt(p);
-        List<Integer> path = paths.pathTo(vertexId);
+        List<Integer> path = pathTo(graph, paths, vertexId, weightName);
 
         if (path == null || path.isEmpty()) {
             return null;
@@ -279,6 +365,57 @@ public class ScissorsSelectionModel extends SelectionModel {
 
     }
 
+    /**
+     * Return a function computing the "intelligent scissors" live wire to a point from the paths
+     * found for our current selection endpoint.  It captures our graph and finished paths, neither
+     * of which is modified after construction, so it may be called from any thread.
+     */
+    @Override
+    public Function<Point, PolyLine> liveWireFunction() {
+        if (state() != SELECTING) {
+            return null;
+        }
+        ImageGraph graph = this.graph;
+        PathfindingSnapshot paths = this.paths;
+        String weightName = this.weightName;
+        return p -> graph.pathToPolyLine(pathTo(graph, paths, graph.idAt(p), weightName));
+    }
+
+    /**
+     * Return `paths.pathTo(dstId)`, recording its reconstruction as a `PathReconstruction` event
+     * for `graph` and the weigher named `weightName`.  May be called from any thread.
+     */
+    private static List<Integer> pathTo(ImageGraph graph, PathfindingSnapshot paths, int dstId,
+            String weightName) {
+        ScissorsEvents.PathReconstruction event = new ScissorsEvents.PathReconstruction();
+        event.begin();
+        List<Integer> path = paths.pathTo(dstId);
+        if (event.shouldCommit()) {
+            event.describe(graph, weightName);
+            event.pathLength = path.size();
+            event.commit();
+        }
+        return path;
+    }
+
+    /**
+     * Write the selected pixels as `SelectionModel.saveSelection()` does, recording the write as a
+     * `SaveSelection` event and in the operation log.
+     */
+    @Override
+    public void saveSelection(OutputStream out) throws IOException {
+        ScissorsEvents.SaveSelection event = new ScissorsEvents.SaveSelection();
+        event.begin();
+        OperationLog.Measurement measurement = OperationLog.begin();
+        super.saveSelection(out);
+        measurement.finish("saveSelection", graph.width(), graph.height(), weightName, null, 0);
+        if (event.shouldCommit()) {
+            event.describe(graph, weightName);
+            event.segments = selection.size();
+            event.commit();
+        }
+    }
+
     /**
      * Return the most recent pathfinding snapshot produced by our "intelligent scissors"
      * processing, which attempts to find good paths from the end of our selection to all other
@@ -294,11 +431,67 @@ public class ScissorsSelectionModel extends SelectionModel {
     public void cancelProcessing() {
         assert state() == PROCESSING;
 
+        // The cancelled worker's `done()` may not run until later, so return to our previous state
+        // here; that way each of several cancellations in quick succession (as from repeated
+        // undos) takes effect
         if (worker != null) {
             worker.cancel(false);
+            worker = null;
+            restorePreviousState();
+        }
+    }
+
+    /**
+     * Leave the PROCESSING state after our solve has been cancelled, returning to the state we
+     * entered it from.  Requires that we are PROCESSING with no active worker.
+     */
+    private void restorePreviousState() {
+        if (previousState == SELECTING) {
+            cancelledFromSelecting();
+        } else if (previousState == NO_SELECTION) {
+            reset();
+        } else {
+            setState(previousState);
         }
     }
 
+    /**
+     * Undo the last point after a solve started from SELECTING was cancelled, which is how undoing
+     * while PROCESSING is implemented.  If our `paths` (from before the cancelled solve) were found
+     * from the new endpoint, as when the cancelled solve was for an appended point, return to
+     * SELECTING; otherwise, as when undos are repeated, remain PROCESSING and solve from the new
+     * endpoint.  Requires that we are PROCESSING with no active worker.
+     */
+    private void cancelledFromSelecting() {
+        // We are still PROCESSING, so this does not start a solve itself
+        undoPoint();
+        if (state() != PROCESSING) {
+            // The starting point was undone
+            return;
+        }
+        retrainWeigher();
+        int endId = graph.idAt(lastPoint());
+        if (paths != null && paths.start() == endId) {
+            setState(SELECTING);
+        } else {
+            pendingPaths = null;
+            worker = new ShortestPathsWorker(endId);
+            scheduler.submit(worker);
+        }
+    }
+
+    /**
+     * Notify listeners of the "first-live-wire-millis" property with the number of milliseconds
+     * (as a Long) between starting the current selection and live wires becoming available for it,
+     * unless that has already been reported.
+     */
+    private void reportFirstLiveWire() {
+        if (selectionStartNanos >= 0) {
+            long millis = (System.nanoTime() - selectionStartNanos) / 1_000_000;
+            selectionStartNanos = -1;
+            propSupport.firePropertyChange("first-live-wire-millis", null, millis);
+        }
+    }
 
     /**
      * SwingWorker for computing shortest paths and periodically updating progress.  This is an
@@ -310,10 +503,68 @@ public class ScissorsSelectionModel extends SelectionModel {
             extends SwingWorker<PathfindingSnapshot, PathfindingSnapshot> {
 
         /**
-         * The shortest-paths solver this worker will use.  After construction, must only be
-         * accessed from the background thread.
+         * How long to wait for the weigher at a time before checking for cancellation.
+         */
+        private static final long WEIGHER_POLL_MILLIS = 20;
+
+        /**
+         * The wall-clock time to aim for between progress updates, and the shorter time to aim for
+         * between checks for cancellation.  Batch sizes are adapted to the observed settling rate
+         * so that these hold regardless of image size and weigher cost.
          */
-        private final ShortestPaths<ImageVertex, ImageEdge> pathfinder;
+        private static final long SLICE_NANOS = 12_000_000;
+        private static final long CHECK_NANOS = 2_000_000;
+
+        /**
+         * The number of vertices to settle in the first batch, before the settling rate is known,
+         * and the bounds on the number to settle in any later batch.
+         */
+        private static final int INITIAL_BATCH = 1000;
+        private static final int MIN_BATCH = 64;
+        private static final int MAX_BATCH = 10_000;
+
+        /**
+         * The minimum time between publishing preliminary results: one frame at the refresh rate
+         * of the default screen.  Even a progress snapshot copies bit sets the size of the image,
+         * so publishing more often than results can be displayed is wasted work.
+         */
+        private static final long PUBLISH_INTERVAL_NANOS = 1_000_000_000L / refreshRate();
+
+        /**
+         * Metrics updated after every batch of a solve (the total number of vertices settled and
+         * the frontier size), and when a solve finishes (its duration).
+         */
+        private static final LongAdder settledMetric = Metrics.counter(Metrics.SETTLED);
+        private static final AtomicLong frontierSizeMetric = Metrics.gauge(Metrics.FRONTIER_SIZE);
+        private static final AtomicLong lastSolveNanosMetric =
+                Metrics.gauge(Metrics.LAST_SOLVE_NANOS);
+
+        /**
+         * The graph to search and the ID of the vertex to search from.
+         */
+        private final ImageGraph graph;
+        private final int startId;
+
+        /**
+         * The weigher to search with, which may still be under construction when we start, and its
+         * name (for events).
+         */
+        private final Future<Weigher<ImageEdge>> weigher;
+        private final String weightName;
+
+        /**
+         * The number of vertices settled so far by our background task, and the name of the
+         * priority queue implementation used by its pathfinder (null until it has one).  Only
+         * accessed on that task's thread.
+         */
+        private int settled;
+        private String queueName;
+
+        /**
+         * Measures our solve for the operation log, from when our weigher is ready and a solver
+         * has been acquired; null until then.  Only accessed on our background task's thread.
+         */
+        private OperationLog.Measurement measurement;
 
         /**
          * Construct a worker that, when executed, will find the shortest paths from the vertex with
@@ -321,9 +572,10 @@ public class ScissorsSelectionModel extends SelectionModel {
          * forwarded to our outer model's listeners.  This must be called from the EDT.
          */
         public ShortestPathsWorker(int startId) {
-            pathfinder = new ShortestPaths<>(
-                    graph, ScissorsWeights.makeWeigher(weightName, graph));
-            pathfinder.setStart(startId);
+            graph = ScissorsSelectionModel.this.graph;
+            this.startId = startId;
+            weigher = ScissorsSelectionModel.this.weigher;
+            weightName = ScissorsSelectionModel.this.weightName;
 
             // Forward progress property changes to outer model's listeners (as long as we are
             // still the active solver).
@@ -340,7 +592,8 @@ public class ScissorsSelectionModel extends SelectionModel {
          * called from the EDT.  Returns null if cancelled.
          */
         @Override
-        public PathfindingSnapshot doInBackground() {
+        public PathfindingSnapshot doInBackground()
+                throws InterruptedException, ExecutionException {
             // This is executed on a separate thread; do not access outer model's fields!
 
             // TODO A6.2c: Implement this method as specified.  In more detail, your implementation
@@ -362,19 +615,155 @@ public class ScissorsSelectionModel extends SelectionModel {
             //  [1] https://docs.oracle.com/javase/tutorial/uiswing/concurrency/worker.html
             //  [2] https://docs.oracle.com/en/java/javase/21/docs/api/java.desktop/javax/swing/SwingWorker.html#isCancelled()
 
-            while (!pathfinder.allPathsFound()) {
+            ScissorsEvents.Solve event = new ScissorsEvents.Solve();
+            event.begin();
+            String outcome = "failed";
+            try {
+                PathfindingSnapshot result = awaitWeigherAndSolve();
+                outcome = (result != null) ? "finished" : "cancelled";
+                return result;
+            } finally {
+                // Only finished solves are comparable, so only they are logged (and they are
+                //  measured from when they could start solving, excluding any wait for cost maps)
+                if (outcome.equals("finished")) {
+                    measurement.finish("solve", graph.width(), graph.height(), weightName,
+                            queueName, settled);
+                }
+                if (event.shouldCommit()) {
+                    event.describe(graph, weightName);
+                    event.startId = startId;
+                    event.outcome = outcome;
+                    event.settled = settled;
+                    event.commit();
+                }
+            }
+        }
+
+        /**
+         * Wait for our weigher, then find all shortest paths from `startId` with a solver from our
+         * scheduler's pool.  Returns null if cancelled.
+         */
+        private PathfindingSnapshot awaitWeigherAndSolve()
+                throws InterruptedException, ExecutionException {
+            // Wait for the weigher (and its cost maps) if it is still being built, while remaining
+            // responsive to cancellation
+            Weigher<ImageEdge> w = null;
+            while (w == null) {
                 if (isCancelled()) {
                     return null;
                 }
-                PathfindingSnapshot snapshot = pathfinder.extendSearch(10000);
+                try {
+                    w = weigher.get(WEIGHER_POLL_MILLIS, TimeUnit.MILLISECONDS);
+                } catch (TimeoutException e) {
+                    // Check for cancellation and keep waiting
+                }
+            }
+            measurement = OperationLog.begin();
+            ShortestPaths<ImageVertex, ImageEdge> pathfinder = scheduler.acquire(graph, w);
+            queueName = pathfinder.queueName();
+            try {
+                return solve(pathfinder);
+            } finally {
+                scheduler.release(graph, pathfinder);
+            }
+        }
+
+        /**
+         * Find all shortest paths from `startId` using `pathfinder`, publishing progress along the
+         * way, and return a snapshot of them.  Returns null if cancelled.
+         */
+        private PathfindingSnapshot solve(ShortestPaths<ImageVertex, ImageEdge> pathfinder) {
+            long solveStart = System.nanoTime();
+            pathfinder.setStart(startId);
+
+            int batch = INITIAL_BATCH;
+            long lastPublish = System.nanoTime();
+            while (!pathfinder.allPathsFound()) {
+                // Settle batches until this slice's time is up, checking for cancellation between
+                // batches
+                long sliceEnd = System.nanoTime() + SLICE_NANOS;
+                long now;
+                do {
+                    if (isCancelled()) {
+                        return null;
+                    }
+                    ScissorsEvents.SolveBatch event = new ScissorsEvents.SolveBatch();
+                    event.begin();
+                    long batchStart = System.nanoTime();
+                    int batchSettled = pathfinder.settle(batch);
+                    now = System.nanoTime();
+                    settled += batchSettled;
+                    settledMetric.add(batchSettled);
+                    frontierSizeMetric.set(pathfinder.frontierSize());
+                    if (event.shouldCommit()) {
+                        event.describe(graph, weightName);
+                        event.settled = batchSettled;
+                        event.queueSize = pathfinder.frontierSize();
+                        event.commit();
+                    }
+                    batch = nextBatchSize(batch, batchSettled, now - batchStart);
+                } while (now - sliceEnd < 0 && !pathfinder.allPathsFound());
+
                 int settledCount = pathfinder.settledCount();
                 int vertexCount = pathfinder.vertexCount();
                 int progress = (int) ((double) settledCount / vertexCount * 100);
                 setProgress(progress);
-//                System.out.println("Progress: " + progress + "% | Settled count: " + settledCount + " | Vertex count: " + vertexCount);
-                publish(snapshot); // publish to send the snapshot to the process method
+                // The final results are delivered by `done()`, so only publish preliminary ones
+                if (now - lastPublish >= PUBLISH_INTERVAL_NANOS && !pathfinder.allPathsFound()) {
+                    publish(takeSnapshot(pathfinder, false));
+                    lastPublish = now;
+                }
             }
-            return pathfinder.extendSearch(0);
+            lastSolveNanosMetric.set(System.nanoTime() - solveStart);
+            return takeSnapshot(pathfinder, true);
+        }
+
+        /**
+         * Return a full snapshot of `pathfinder`'s results if `full` is true, otherwise a progress
+         * snapshot, recording its creation as a `Snapshot` event.
+         */
+        private PathfindingSnapshot takeSnapshot(ShortestPaths<ImageVertex, ImageEdge> pathfinder,
+                boolean full) {
+            ScissorsEvents.Snapshot event = new ScissorsEvents.Snapshot();
+            event.begin();
+            PathfindingSnapshot snapshot =
+                    full ? pathfinder.snapshot() : pathfinder.progressSnapshot();
+            if (event.shouldCommit()) {
+                event.describe(graph, weightName);
+                event.describeSnapshot(snapshot, pathfinder.vertexCount());
+                event.commit();
+            }
+            return snapshot;
+        }
+
+        /**
+         * Return the number of vertices to settle in the batch following one that was asked to
+         * settle `batch` vertices and settled `settled` of them in `elapsedNanos`.  This is the
+         * number expected to take `CHECK_NANOS` at the observed rate, averaged with `batch` to damp
+         * fluctuations and clamped to [MIN_BATCH..MAX_BATCH].
+         */
+        private static int nextBatchSize(int batch, int settled, long elapsedNanos) {
+            if (settled < batch || elapsedNanos <= 0) {
+                // The search finished early, or the batch was too quick to time
+                return batch;
+            }
+            double target = (double) settled * CHECK_NANOS / elapsedNanos;
+            return (int) Math.clamp((batch + target) / 2, MIN_BATCH, MAX_BATCH);
+        }
+
+        /**
+         * Return the refresh rate of the default screen in Hz, or 60 if it is unknown (including
+         * when running headless).
+         */
+        private static int refreshRate() {
+            if (!GraphicsEnvironment.isHeadless()) {
+                int rate = GraphicsEnvironment.getLocalGraphicsEnvironment()
+                        .getDefaultScreenDevice().getDisplayMode().getRefreshRate();
+                if (rate != DisplayMode.REFRESH_RATE_UNKNOWN && rate > 0) {
+                    return rate;
+                }
+            }
+            return 60;
         }
 
         /**
@@ -429,20 +818,24 @@ public class ScissorsSelectionModel extends SelectionModel {
                 paths = get();
                 if (previousState == NO_SELECTION) {
                     setState(SELECTING);
+                    reportFirstLiveWire();
                 } else {
                     setState(previousState);
                 }
             } catch (InterruptedException e) {
                     // ignore
                 } catch (CancellationException e) {
-                        if (previousState == SELECTING) {
-                        undoPoint();
-                        }
+                // Cancellation through our model is handled by `cancelProcessing()`, which stops
+                // us being the active worker, so we were cancelled some other way
+                worker = null;
+                restorePreviousState();
             } catch (ExecutionException e) {
 
                 throw new RuntimeException(e.getCause());
             } finally {
-                worker = null;
+                if (worker == this) {
+                    worker = null;
+                }
             }
 
 
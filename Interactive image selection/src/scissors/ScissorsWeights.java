@@ -1,11 +1,13 @@
 package scissors;
 
+import graph.BulkWeigher;
 import graph.Weigher;
 import java.awt.image.BandCombineOp;
+import java.awt.image.DataBuffer;
 import java.awt.image.Raster;
 import java.awt.image.RasterOp;
-import java.util.Arrays;
 import java.util.List;
+import selector.PolyLine;
 
 /**
  * Factory for edge weight functions appropriate for use by the Intelligent Scissors algorithm.
@@ -21,6 +23,10 @@ public class ScissorsWeights {
         return switch (weightName) {
             case "CrossGradMono" -> new CrossGradMonoWeight(graph);
             case "ColorAware" -> new ColorWeight(graph);
+            case "MortensenBarrett" -> new MortensenBarrettWeight(graph);
+            case "Trained" -> new TrainedWeight(graph);
+            case "MultiScale" -> new MultiScaleWeight(graph);
+            case "Lab" -> new LabWeight(graph);
             default -> throw new IllegalArgumentException("Unknown weigher: " + weightName);
             // TODO A6.4b: Create a new instance of your custom weigher when its name is provided
         };
@@ -32,7 +38,8 @@ public class ScissorsWeights {
     static Iterable<String> weightNames() {
         // TODO A6.4c: Add your weigher's name to this list.  If you add a bunch of weighers, you
         //  might find this method useful when populating your app's combo box.
-        return List.of("CrossGradMono", "ColorAware");
+        return List.of("CrossGradMono", "ColorAware", "MortensenBarrett", "Trained", "MultiScale",
+                "Lab");
     }
 
     /**
@@ -50,7 +57,7 @@ public class ScissorsWeights {
         // Note: Image boundaries are given slightly less than the maximum value, making it easier
         //  to select subjects that are cut off by the image's border without trying too hard to
         //  find paths that cut into the subject.
-        int borderWeight = 180 - 64;
+        int borderWeight = BORDER_GRAD;
 
         return switch (dir) {
             case 0 -> (y == 0 || y == height - 1) ? borderWeight :
@@ -73,11 +80,150 @@ public class ScissorsWeights {
         };
     }
 
+    /**
+     * Return the signed difference in `plane` (of width `width`) across the edge in direction
+     * `dir` from pixel (`x`, `y`), on the same scale as `crossGrad()` (whose result is the
+     * magnitude of this value).  Requires that the edge is valid and, for horizontal and vertical
+     * edges, that the pixels on either side of it are in the image (see `crossesBorder()`).
+     */
+    static float crossDiff(float[] plane, int width, int x, int y, int dir) {
+        int id = x + width * y;
+        return switch (dir) {
+            case 0 -> ((plane[id + width] + plane[id + width + 1]) -
+                    (plane[id - width] + plane[id - width + 1])) / 4;
+            case 1 -> plane[id + 1] - plane[id - width];
+            case 2 -> ((plane[id - width + 1] + plane[id + 1]) -
+                    (plane[id - width - 1] + plane[id - 1])) / 4;
+            case 3 -> plane[id - width] - plane[id - 1];
+            case 4 -> ((plane[id - width] + plane[id - width - 1]) -
+                    (plane[id + width] + plane[id + width - 1])) / 4;
+            case 5 -> plane[id - 1] - plane[id + width];
+            case 6 -> ((plane[id + width - 1] + plane[id - 1]) -
+                    (plane[id + width + 1] + plane[id + 1])) / 4;
+            case 7 -> plane[id + width] - plane[id + 1];
+            default -> throw new IllegalArgumentException();
+        };
+    }
+
+    /**
+     * Return whether the edge in direction `dir` from pixel (`x`, `y`) runs along the border of an
+     * image of size `width` by `height`, so that one side of it lies outside the image.  Such edges
+     * are given `BORDER_GRAD` instead of a measured cross gradient.
+     */
+    static boolean crossesBorder(int width, int height, int x, int y, int dir) {
+        return switch (dir) {
+            case 0, 4 -> y == 0 || y == height - 1;
+            case 2, 6 -> x == 0 || x == width - 1;
+            default -> false;
+        };
+    }
+
+    /**
+     * The cross gradient assigned to edges along the image border (see `crossGrad()`).
+     */
+    static final int BORDER_GRAD = 180 - 64;
+
+    /**
+     * Store in `out[dir]` the largest `crossGrad(img, x, y, b, dir)` over bands `b` in
+     * [0..numBands) for every direction `dir` that is valid from pixel (`x`, `y`).  Entries for
+     * invalid directions are unspecified.  Each of the pixel's 8 neighbors is fetched only once
+     * per band, rather than up to 3 times as when calling `crossGrad()` for each direction.
+     * Requires `out.length >= 8`.
+     */
+    static void maxCrossGrads(Raster img, int x, int y, int numBands, int[] out) {
+        int width = img.getWidth();
+        int height = img.getHeight();
+        // Neighbors beyond the border are clamped; they are never used by valid directions.
+        int xl = Math.max(x - 1, 0);
+        int xr = Math.min(x + 1, width - 1);
+        int yu = Math.max(y - 1, 0);
+        int yd = Math.min(y + 1, height - 1);
+        boolean rowBorder = y == 0 || y == height - 1;
+        boolean colBorder = x == 0 || x == width - 1;
+
+        for (int dir = 0; dir < 8; ++dir) {
+            out[dir] = 0;
+        }
+        for (int b = 0; b < numBands; ++b) {
+            int nw = img.getSample(xl, yu, b);
+            int n = img.getSample(x, yu, b);
+            int ne = img.getSample(xr, yu, b);
+            int w = img.getSample(xl, y, b);
+            int e = img.getSample(xr, y, b);
+            int sw = img.getSample(xl, yd, b);
+            int s = img.getSample(x, yd, b);
+            int se = img.getSample(xr, yd, b);
+
+            // Same stencils as `crossGrad()`
+            out[0] = Math.max(out[0], rowBorder ? BORDER_GRAD : Math.abs((s + se) - (n + ne)) / 4);
+            out[1] = Math.max(out[1], Math.abs(e - n));
+            out[2] = Math.max(out[2], colBorder ? BORDER_GRAD : Math.abs((ne + e) - (nw + w)) / 4);
+            out[3] = Math.max(out[3], Math.abs(n - w));
+            out[4] = Math.max(out[4], rowBorder ? BORDER_GRAD : Math.abs((n + nw) - (s + sw)) / 4);
+            out[5] = Math.max(out[5], Math.abs(w - s));
+            out[6] = Math.max(out[6], colBorder ? BORDER_GRAD : Math.abs((sw + w) - (se + e)) / 4);
+            out[7] = Math.max(out[7], Math.abs(s - e));
+        }
+    }
+
+    /**
+     * Base class for our weighers, which in addition to weighing individual edges can weigh all
+     * of the edges leaving a pixel at once (see `BulkWeigher`).  Subclasses compute the weight in
+     * every valid direction from a pixel, and this class packs them into `outgoingEdges()` order.
+     */
+    abstract static class ImageWeigher implements BulkWeigher<ImageEdge> {
+
+        /**
+         * The width of the image whose edges we weigh.
+         */
+        final int width;
+
+        /**
+         * The height of the image whose edges we weigh.
+         */
+        final int height;
+
+        ImageWeigher(int width, int height) {
+            this.width = width;
+            this.height = height;
+        }
+
+        @Override
+        public int maxOutDegree() {
+            return 8;
+        }
+
+        @Override
+        public int weightsFrom(int vertexId, int[] out) {
+            int y = vertexId / width;
+            int x = vertexId - y * width;
+            weighAll(vertexId, x, y, out);
+
+            // Pack valid directions to the front, in increasing order (matching
+            //  `ImageEdgeIterator`).  Since `count <= dir`, no unread entry is overwritten.
+            int count = 0;
+            for (int dir = 0; dir < 8; ++dir) {
+                if (ImageVertex.validDir(x, y, width, height, dir)) {
+                    out[count] = out[dir];
+                    count += 1;
+                }
+            }
+            return count;
+        }
+
+        /**
+         * Store in `out[dir]` the weight of the edge in direction `dir` from the pixel (`x`, `y`),
+         * whose vertex ID is `id`, for every direction that is valid from that pixel.  Entries for
+         * invalid directions may be left with arbitrary values.
+         */
+        abstract void weighAll(int id, int x, int y, int[] out);
+    }
+
     /**
      * Weight edges less if they run perpendicular to a large brightness gradient in an ImageGraph's
      * image.  Only considers the brightness of a grayscale (band-averaged) version of the image.
      */
-    static class CrossGradMonoWeight implements Weigher<ImageEdge> {
+    static class CrossGradMonoWeight extends ImageWeigher {
 
         /**
          * The graph that the edges to be weighed will come from.
@@ -93,6 +239,7 @@ public class ScissorsWeights {
          * Create a new weigher capable of weighing edges in `graph`.
          */
         CrossGradMonoWeight(ImageGraph graph) {
+            super(graph.width(), graph.height());
             this.graph = graph;
 
             // Extract the "raster" for our graph's image, from which we can query pixel
@@ -102,12 +249,17 @@ public class ScissorsWeights {
             // Convert our graph's image to black-and-white by averaging its bands
             // This involves linear algebra; we do not expect most students to understand how this
             //  works yet (consider CS 4670 if you are interested).
-            float weight = 1.0f / src.getNumBands();
-            float[][] avgMatrix = new float[3][src.getNumBands()];
-            Arrays.fill(avgMatrix[0], weight);
-            Arrays.fill(avgMatrix, avgMatrix[0]);
+            // Each band is also scaled to 8 bits (as in `ImageFilters.grayPlane()`), and the
+            //  result is a single band of bytes, so that images of any type and sample depth
+            //  yield gradients on the scale our weights assume.
+            float[][] avgMatrix = new float[1][src.getNumBands()];
+            for (int b = 0; b < src.getNumBands(); ++b) {
+                int bits = src.getSampleModel().getSampleSize(b);
+                avgMatrix[0][b] = 255.0f / ((1 << bits) - 1) / src.getNumBands();
+            }
             RasterOp op = new BandCombineOp(avgMatrix, null);
-            grayImage = op.filter(src, null);
+            grayImage = op.filter(src, Raster.createBandedRaster(DataBuffer.TYPE_BYTE,
+                    src.getWidth(), src.getHeight(), 1, null));
         }
 
         @Override
@@ -127,6 +279,16 @@ public class ScissorsWeights {
             //  edge's length, then subtract it from the best possible value.
             return eGradMax - crossGrad(grayImage, x, y, 0, edge.dir());
         }
+
+        @Override
+        void weighAll(int id, int x, int y, int[] out) {
+            // All bands of `grayImage` are equal, so only band 0 is needed
+            maxCrossGrads(grayImage, x, y, 1, out);
+            for (int dir = 0; dir < 8; ++dir) {
+                int eGradMax = ((dir % 2) == 0) ? 180 : 255;
+                out[dir] = eGradMax - out[dir];
+            }
+        }
     }
 
     // TODO A6.4a: Define a new nested Weigher class that takes color into account.
@@ -139,11 +301,12 @@ public class ScissorsWeights {
     //  2. Weights must be non-negative.
     //  3. Must work better than "CrossGradMono" on images with different colors of similar
     //     brightness (like challenge_1.png).
-    static class ColorWeight implements Weigher<ImageEdge> {
+    static class ColorWeight extends ImageWeigher {
         private ImageGraph graph;
         private Raster raster;
 
         public ColorWeight(ImageGraph graph) {
+            super(graph.width(), graph.height());
             this.graph = graph;
             this.raster = graph.raster();
         }
@@ -165,7 +328,398 @@ public class ScissorsWeights {
             int edgeWeight = 255 - maxGradient; // Ensuring the weight is non-negative
             return Math.max(0, edgeWeight); // Further ensure the weight cannot be negative
         }
+
+        @Override
+        void weighAll(int id, int x, int y, int[] out) {
+            maxCrossGrads(raster, x, y, raster.getNumBands(), out);
+            for (int dir = 0; dir < 8; ++dir) {
+                out[dir] = Math.max(0, 255 - out[dir]);
+            }
+        }
     }
 
+    /**
+     * The classic intelligent scissors cost of Mortensen and Barrett, which makes an edge cheap if
+     * it leads to a Laplacian zero-crossing and a strong gradient, and if it runs along the local
+     * edge direction at both of its ends.  Image features are computed once per image (see
+     * `FeaturePlanes`); each edge's cost is then the sum of three table lookups.
+     */
+    static class MortensenBarrettWeight extends ImageWeigher {
+
+        /**
+         * The maximum contributions of the zero-crossing, gradient magnitude, and gradient
+         * direction terms.  Their sum is 255, the largest weight any of our weighers produce.
+         */
+        static final int ZERO_CROSSING_WEIGHT = 110;
+        static final int GRADIENT_WEIGHT = 110;
+        static final int DIRECTION_WEIGHT = 35;
+
+        /**
+         * Quantized features of the image whose edges we weigh.
+         */
+        private final FeaturePlanes features;
+
+        /**
+         * `gradientCost[256*(dir%2) + g]` is the gradient magnitude term for an edge in direction
+         * `dir` leading to a pixel whose quantized gradient magnitude is `g`.
+         */
+        private final int[] gradientCost;
+
+        /**
+         * `directionCost[8*(DIR_BINS*binP + binQ) + dir]` is the gradient direction term for an
+         * edge in direction `dir` from a pixel whose edge direction is in bin `binP` to one whose
+         * edge direction is in bin `binQ`.
+         */
+        private final byte[] directionCost;
+
+        /**
+         * Create a new weigher capable of weighing edges in `graph`.
+         */
+        MortensenBarrettWeight(ImageGraph graph) {
+            this(FeaturePlanes.compute(graph.raster()));
+        }
+
+        /**
+         * Create a new weigher for the image whose features are `features`.
+         */
+        MortensenBarrettWeight(FeaturePlanes features) {
+            this(features, linearGradientCost());
+        }
+
+        /**
+         * Create a new weigher for the image whose features are `features`, using the gradient
+         * magnitude term table `gradientCost` (see the field of the same name).
+         */
+        MortensenBarrettWeight(FeaturePlanes features, int[] gradientCost) {
+            super(features.width, features.height);
+            assert gradientCost.length == 512;
+            this.features = features;
+            this.gradientCost = gradientCost;
+            this.directionCost = DIRECTION_COST;
+        }
+
+        @Override
+        public int weight(ImageEdge edge) {
+            // Zero-crossing and gradient magnitude terms are evaluated at the edge's destination;
+            //  the direction term depends on both ends.
+            int p = edge.startId();
+            int q = edge.endId();
+            int dir = edge.dir();
+            int binP = features.direction[p];
+            int binQ = features.direction[q];
+            return ZERO_CROSSING_WEIGHT * (1 - features.zeroCrossing[q])
+                    + gradientCost[((dir & 1) << 8) | (features.gradient[q] & 0xff)]
+                    + directionCost[((binP * FeaturePlanes.DIR_BINS + binQ) << 3) | dir];
+        }
+
+        @Override
+        void weighAll(int id, int x, int y, int[] out) {
+            int binRow = features.direction[id] * FeaturePlanes.DIR_BINS;
+            for (int dir = 0; dir < 8; ++dir) {
+                if (ImageVertex.validDir(x, y, width, height, dir)) {
+                    int q = id + ImageVertex.DX[dir] + width * ImageVertex.DY[dir];
+                    out[dir] = ZERO_CROSSING_WEIGHT * (1 - features.zeroCrossing[q])
+                            + gradientCost[((dir & 1) << 8) | (features.gradient[q] & 0xff)]
+                            + directionCost[((binRow + features.direction[q]) << 3) | dir];
+                }
+            }
+        }
 
+        /**
+         * Return the features this weigher was built from.
+         */
+        FeaturePlanes features() {
+            return features;
+        }
+
+        /**
+         * Return a gradient magnitude term table (see `gradientCost`) that decreases linearly with
+         * gradient magnitude.  Horizontal and vertical edges are scaled by 1/sqrt(2) relative to
+         * diagonal ones, as in the original formulation.
+         */
+        static int[] linearGradientCost() {
+            int[] table = new int[512];
+            for (int g = 0; g < 256; ++g) {
+                double cost = GRADIENT_WEIGHT * (255 - g) / 255.0;
+                table[g] = (int) Math.round(cost / Math.sqrt(2));
+                table[256 + g] = (int) Math.round(cost);
+            }
+            return table;
+        }
+
+        /**
+         * The gradient direction term table shared by all instances (see `directionCost`).
+         */
+        private static final byte[] DIRECTION_COST = makeDirectionCost();
+
+        /**
+         * Tabulate the gradient direction term f_D(p, q) = 2/(3 pi) (acos(D'(p).L) +
+         * acos(L.D'(q))) for every pair of direction bins and edge direction, where D' is the unit
+         * edge direction and L is the unit link direction, flipped if necessary so that it points
+         * the same way as D'(p).
+         */
+        private static byte[] makeDirectionCost() {
+            int bins = FeaturePlanes.DIR_BINS;
+            // Link vectors for each edge direction (0 is right, 2 is up; y increases down)
+            int[] dx = ImageVertex.DX;
+            int[] dy = ImageVertex.DY;
+            byte[] table = new byte[bins * bins * 8];
+            for (int binP = 0; binP < bins; ++binP) {
+                double px = Math.cos(FeaturePlanes.binAngle(binP));
+                double py = Math.sin(FeaturePlanes.binAngle(binP));
+                for (int binQ = 0; binQ < bins; ++binQ) {
+                    double qx = Math.cos(FeaturePlanes.binAngle(binQ));
+                    double qy = Math.sin(FeaturePlanes.binAngle(binQ));
+                    for (int dir = 0; dir < 8; ++dir) {
+                        double len = Math.hypot(dx[dir], dy[dir]);
+                        double lx = dx[dir] / len;
+                        double ly = dy[dir] / len;
+                        if (px * lx + py * ly < 0) {
+                            lx = -lx;
+                            ly = -ly;
+                        }
+                        double dp = Math.clamp(px * lx + py * ly, -1.0, 1.0);
+                        double dq = Math.clamp(lx * qx + ly * qy, -1.0, 1.0);
+                        double f = 2 / (3 * Math.PI) * (Math.acos(dp) + Math.acos(dq));
+                        table[((binP * bins + binQ) << 3) | dir] =
+                                (byte) Math.round(DIRECTION_WEIGHT * f);
+                    }
+                }
+            }
+            return table;
+        }
+    }
+
+    /**
+     * A `MortensenBarrettWeight` whose gradient magnitude term is learned from the selection as it
+     * is traced ("on-the-fly training").  Gradient magnitudes that occur frequently along the most
+     * recently committed segment become cheap, so the live wire prefers edges resembling the one
+     * the user is currently following, even if it is weaker than nearby edges.
+     * <p>
+     * Instances are immutable; training produces a new weigher that shares this one's feature
+     * planes and differs only in its gradient cost table, so retraining costs O(256) rather than
+     * a pass over the image.
+     */
+    static class TrainedWeight extends MortensenBarrettWeight {
+
+        /**
+         * The number of pixels at the end of a segment whose gradient magnitudes are used for
+         * training.
+         */
+        static final int TRAINING_LENGTH = 64;
+
+        /**
+         * Standard deviation (in quantized gradient levels) of the Gaussian used to smooth the
+         * training histogram, so that values close to observed ones are also favored.
+         */
+        private static final double HISTOGRAM_SIGMA = 4.0;
+
+        /**
+         * Create a new, untrained weigher capable of weighing edges in `graph`.
+         */
+        TrainedWeight(ImageGraph graph) {
+            super(graph);
+        }
+
+        /**
+         * Create a weigher for the image whose features are `features` using the gradient
+         * magnitude term table `gradientCost`.
+         */
+        private TrainedWeight(FeaturePlanes features, int[] gradientCost) {
+            super(features, gradientCost);
+        }
+
+        /**
+         * Return a weigher for the same image that has been trained on the last
+         * `TRAINING_LENGTH` pixels of `segment`, which must be a path of adjacent pixels in that
+         * image (as produced by `ImageGraph.pathToPolyLine()`).
+         */
+        TrainedWeight trainedOn(PolyLine segment) {
+            FeaturePlanes features = features();
+            double[] histogram = new double[256];
+            int[] xs = segment.xs();
+            int[] ys = segment.ys();
+            for (int i = Math.max(0, segment.size() - TRAINING_LENGTH); i < segment.size(); ++i) {
+                histogram[features.gradient[xs[i] + features.width * ys[i]] & 0xff] += 1;
+            }
+
+            // Smooth the histogram, then invert it so that the most common gradient is free
+            float[] kernel = ImageFilters.gaussianKernel(HISTOGRAM_SIGMA);
+            int radius = kernel.length / 2;
+            double[] smoothed = new double[256];
+            double max = 0;
+            for (int g = 0; g < 256; ++g) {
+                for (int k = 0; k < kernel.length; ++k) {
+                    smoothed[g] += kernel[k] * histogram[Math.clamp(g + k - radius, 0, 255)];
+                }
+                max = Math.max(max, smoothed[g]);
+            }
+
+            int[] table = new int[512];
+            for (int g = 0; g < 256; ++g) {
+                double cost = GRADIENT_WEIGHT * (1 - smoothed[g] / max);
+                table[g] = (int) Math.round(cost / Math.sqrt(2));
+                table[256 + g] = (int) Math.round(cost);
+            }
+            return new TrainedWeight(features, table);
+        }
+
+        /**
+         * Return a weigher for the same image with no training applied (equivalent to a
+         * `MortensenBarrettWeight`).
+         */
+        TrainedWeight untrained() {
+            return new TrainedWeight(features(), linearGradientCost());
+        }
+    }
+
+    /**
+     * Weight edges less if they run perpendicular to a large brightness gradient measured at
+     * several Gaussian scales.  Fine scales localize edges precisely, while coarse scales ignore
+     * noise and compression artifacts that would otherwise pull the path off of the true
+     * boundary; the cost of an edge is a weighted average of its costs at each scale.  Like
+     * `CrossGradMonoWeight`, costs never exceed 255.
+     */
+    static class MultiScaleWeight extends ImageWeigher {
+
+        /**
+         * Standard deviations (in pixels) of the scales at which gradients are measured.
+         */
+        static final double[] SIGMAS = {1, 2, 4};
+
+        /**
+         * Relative contribution of each scale to an edge's cost (sums to 1).
+         */
+        static final float[] SCALE_WEIGHTS = {0.5f, 0.3f, 0.2f};
+
+        /**
+         * Factor making a step edge's cross gradient at the finest scale comparable to that
+         * measured by `crossGrad()` on the unblurred image.  Coarser scales are additionally
+         * multiplied by their sigma so that a step edge responds equally at every scale.
+         */
+        private static final float SCALE_NORMALIZATION = 1.25f;
+
+        /**
+         * `levels[k]` is the grayscale image blurred to scale `SIGMAS[k]`.
+         */
+        private final float[][] levels;
+
+        /**
+         * `gains[k]` is the weight of scale `k` multiplied by its normalization factor.
+         */
+        private final float[] gains;
+
+        /**
+         * Create a new weigher capable of weighing edges in `graph`.
+         */
+        MultiScaleWeight(ImageGraph graph) {
+            super(graph.width(), graph.height());
+            float[] gray = ImageFilters.grayPlane(graph.raster());
+            levels = ImageFilters.gaussianStack(gray, width, height, SIGMAS);
+            gains = new float[SIGMAS.length];
+            for (int k = 0; k < SIGMAS.length; ++k) {
+                gains[k] = SCALE_WEIGHTS[k] * SCALE_NORMALIZATION * (float) (SIGMAS[k] / SIGMAS[0]);
+            }
+        }
+
+        @Override
+        public int weight(ImageEdge edge) {
+            int id = edge.startId();
+            int y = id / width;
+            int x = id - y * width;
+            return weight(x, y, edge.dir());
+        }
+
+        @Override
+        void weighAll(int id, int x, int y, int[] out) {
+            for (int dir = 0; dir < 8; ++dir) {
+                if (ImageVertex.validDir(x, y, width, height, dir)) {
+                    out[dir] = weight(x, y, dir);
+                }
+            }
+        }
+
+        /**
+         * Return the weight of the edge in the valid direction `dir` from pixel (`x`, `y`).
+         */
+        private int weight(int x, int y, int dir) {
+            int eGradMax = ((dir % 2) == 0) ? 180 : 255;
+            if (crossesBorder(width, height, x, y, dir)) {
+                return eGradMax - BORDER_GRAD;
+            }
+
+            float grad = 0;
+            for (int k = 0; k < levels.length; ++k) {
+                grad += gains[k] * Math.abs(crossDiff(levels[k], width, x, y, dir));
+            }
+            return eGradMax - Math.min(eGradMax, Math.round(grad));
+        }
+    }
+
+    /**
+     * Weight edges less if they run perpendicular to a large perceptual color difference.  The
+     * image is converted once to CIELAB, where Euclidean distance (Delta E) approximates perceived
+     * difference, and the cross gradient of an edge is the Delta E between its two sides.  Unlike
+     * `ColorWeight`'s maximum over sRGB bands, this treats equally noticeable changes in hue,
+     * saturation, and lightness alike.
+     */
+    static class LabWeight extends ImageWeigher {
+
+        /**
+         * Factor converting Delta E to the scale of 8-bit brightness differences used by the other
+         * weighers (L ranges over [0..100], so a black-to-white step maps to 255).
+         */
+        private static final float DELTA_E_SCALE = 2.55f;
+
+        /**
+         * The L, a, and b planes of the image whose edges we weigh.
+         */
+        private final float[] lPlane;
+        private final float[] aPlane;
+        private final float[] bPlane;
+
+        /**
+         * Create a new weigher capable of weighing edges in `graph`.
+         */
+        LabWeight(ImageGraph graph) {
+            super(graph.width(), graph.height());
+            float[][] lab = ImageFilters.labPlanes(graph.raster());
+            lPlane = lab[0];
+            aPlane = lab[1];
+            bPlane = lab[2];
+        }
+
+        @Override
+        public int weight(ImageEdge edge) {
+            int id = edge.startId();
+            int y = id / width;
+            int x = id - y * width;
+            return weight(x, y, edge.dir());
+        }
+
+        @Override
+        void weighAll(int id, int x, int y, int[] out) {
+            for (int dir = 0; dir < 8; ++dir) {
+                if (ImageVertex.validDir(x, y, width, height, dir)) {
+                    out[dir] = weight(x, y, dir);
+                }
+            }
+        }
+
+        /**
+         * Return the weight of the edge in the valid direction `dir` from pixel (`x`, `y`).
+         */
+        private int weight(int x, int y, int dir) {
+            int eGradMax = ((dir % 2) == 0) ? 180 : 255;
+            if (crossesBorder(width, height, x, y, dir)) {
+                return eGradMax - BORDER_GRAD;
+            }
+
+            float dl = crossDiff(lPlane, width, x, y, dir);
+            float da = crossDiff(aPlane, width, x, y, dir);
+            float db = crossDiff(bPlane, width, x, y, dir);
+            float deltaE = (float) Math.sqrt(dl * dl + da * da + db * db);
+            return eGradMax - Math.min(eGradMax, Math.round(DELTA_E_SCALE * deltaE));
+        }
+    }
 }
@@ -0,0 +1,217 @@
+package scissors;
+
+import java.lang.System.Logger.Level;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import metrics.Histogram;
+import metrics.Metrics;
+
+/**
+ * Runs shortest-paths solves for all scissors selection models, on threads of its own rather than
+ * SwingWorker's shared pool (which is also used by unrelated workers in the process).  Two
+ * backends are offered:
+ * <ul>
+ *   <li>PLATFORM: a bounded pool of daemon platform threads with a configurable size and
+ *   priority.  The JVM offers no way to pin threads to CPUs, so affinity, if wanted, must be set
+ *   for the whole process (e.g. with `taskset`).</li>
+ *   <li>VIRTUAL: a new virtual thread per solve, suited to many small searches that spend much of
+ *   their time waiting (e.g. for a weigher to be built).</li>
+ * </ul>
+ * The shared instance is configured by the system properties `scissors.solveExecutor` ("platform"
+ * or "virtual"; default "platform"), `scissors.solveThreads` (pool size; default one less than the
+ * number of processors, but at least 1), and `scissors.solvePriority` (default one below normal,
+ * so that the EDT wins contention for the CPU).  Invalid values are replaced by their defaults
+ * with a logged warning.
+ * <p>
+ * The number of queued and running solves, and how long solves wait in the queue and take to run,
+ * are tracked and may be queried with `stats()`.  The shared instance keeps them in the `Metrics`
+ * registry, where displays can read them; other instances keep their own.
+ */
+public class SolveExecutor {
+
+    /**
+     * The kinds of threads that solves may be run on.
+     */
+    public enum Backend { PLATFORM, VIRTUAL }
+
+    /**
+     * A snapshot of an executor's activity.  `queued` solves have been submitted but not started,
+     * `running` solves have started but not finished, and `completed` solves have finished.  Queue
+     * latency (from submission to start, over started solves) and run time (over completed
+     * solves) are in milliseconds, each accurate to about 6% (see `Histogram`), and are 0 if there
+     * are no such solves.
+     */
+    public record Stats(long queued, long running, long completed, double medianQueueMillis,
+                        double maxQueueMillis, double medianRunMillis) {
+    }
+
+    private static final System.Logger logger = System.getLogger(SolveExecutor.class.getName());
+
+    /**
+     * The instance used by selection models, configured by system properties.
+     */
+    private static final SolveExecutor shared = new SolveExecutor(
+            backendSetting(System.getProperty("scissors.solveExecutor")),
+            intSetting("scissors.solveThreads", System.getProperty("scissors.solveThreads"),
+                    Math.max(1, Runtime.getRuntime().availableProcessors() - 1), 1,
+                    Integer.MAX_VALUE),
+            intSetting("scissors.solvePriority", System.getProperty("scissors.solvePriority"),
+                    Thread.NORM_PRIORITY - 1, Thread.MIN_PRIORITY, Thread.MAX_PRIORITY),
+            Metrics.gauge(Metrics.SOLVES_QUEUED), Metrics.gauge(Metrics.SOLVES_RUNNING),
+            Metrics.histogram(Metrics.SOLVE_QUEUE_NANOS),
+            Metrics.histogram(Metrics.SOLVE_RUN_NANOS));
+
+    /**
+     * The executor that actually runs solves.
+     */
+    private final ExecutorService executor;
+
+    /**
+     * The numbers of solves currently queued and running.
+     */
+    private final AtomicLong queued;
+    private final AtomicLong running;
+
+    /**
+     * The queue latencies of started solves and the run times of completed ones, in nanoseconds.
+     * The number of completed solves is the count of `runNanos`.
+     */
+    private final Histogram queueNanos;
+    private final Histogram runNanos;
+
+    /**
+     * Create an executor using `backend`.  For the PLATFORM backend, use at most `threads` threads
+     * with priority `priority`; these are ignored for the VIRTUAL backend.  Requires `threads` is
+     * positive and `priority` is a valid thread priority.
+     */
+    SolveExecutor(Backend backend, int threads, int priority) {
+        this(backend, threads, priority, new AtomicLong(), new AtomicLong(), new Histogram(),
+                new Histogram());
+    }
+
+    /**
+     * Create an executor as above that tracks its activity in `queued`, `running`, `queueNanos`,
+     * and `runNanos` (see the fields of the same names).
+     */
+    private SolveExecutor(Backend backend, int threads, int priority, AtomicLong queued,
+            AtomicLong running, Histogram queueNanos, Histogram runNanos) {
+        this.queued = queued;
+        this.running = running;
+        this.queueNanos = queueNanos;
+        this.runNanos = runNanos;
+        if (backend == Backend.VIRTUAL) {
+            executor = Executors.newThreadPerTaskExecutor(
+                    Thread.ofVirtual().name("scissors-solver-", 1).factory());
+        } else {
+            AtomicInteger count = new AtomicInteger();
+            ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 30,
+                    TimeUnit.SECONDS, new LinkedBlockingQueue<>(), r -> {
+                        Thread t = new Thread(r, "scissors-solver-" + count.incrementAndGet());
+                        t.setDaemon(true);
+                        t.setPriority(priority);
+                        return t;
+                    });
+            // Let idle threads exit, since solves come in bursts
+            pool.allowCoreThreadTimeOut(true);
+            executor = pool;
+        }
+    }
+
+    /**
+     * Return the backend named by `value` (ignoring case), the value of the property
+     * `scissors.solveExecutor`, or PLATFORM if it is null.  If it names no backend, log a warning
+     * and return PLATFORM.
+     */
+    static Backend backendSetting(String value) {
+        if (value == null) {
+            return Backend.PLATFORM;
+        }
+        try {
+            return Backend.valueOf(value.strip().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            logger.log(Level.WARNING, "Unknown scissors.solveExecutor \"{0}\"; using platform",
+                    value);
+            return Backend.PLATFORM;
+        }
+    }
+
+    /**
+     * Return `value`, the value of the property named `property`, as an integer in [min..max], or
+     * `fallback` if it is null.  If it is not such an integer, log a warning and return
+     * `fallback`.
+     */
+    static int intSetting(String property, String value, int fallback, int min, int max) {
+        if (value == null) {
+            return fallback;
+        }
+        try {
+            int n = Integer.parseInt(value.strip());
+            if (n >= min && n <= max) {
+                return n;
+            }
+        } catch (NumberFormatException e) {
+            // Reported below
+        }
+        logger.log(Level.WARNING, "{0} must be an integer in [{1}..{2}], not \"{3}\"; using {4}",
+                property, min, max, value, fallback);
+        return fallback;
+    }
+
+    /**
+     * Return the executor shared by all selection models.
+     */
+    static SolveExecutor shared() {
+        return shared;
+    }
+
+    /**
+     * Run `solve` on one of our threads, recording its queue latency and run time.
+     */
+    void execute(Runnable solve) {
+        long submitted = System.nanoTime();
+        queued.incrementAndGet();
+        executor.execute(() -> {
+            long started = System.nanoTime();
+            queued.decrementAndGet();
+            running.incrementAndGet();
+            queueNanos.record(started - submitted);
+            try {
+                solve.run();
+            } finally {
+                running.decrementAndGet();
+                runNanos.record(System.nanoTime() - started);
+            }
+        });
+    }
+
+    /**
+     * Return a snapshot of this executor's activity so far.  Its fields are read separately, so
+     * they may be slightly inconsistent with one another if solves are in progress.
+     */
+    public Stats stats() {
+        Histogram.Snapshot queue = queueNanos.snapshot();
+        Histogram.Snapshot run = runNanos.snapshot();
+        return new Stats(queued.get(), running.get(), run.count(), millis(queue.percentile(50)),
+                millis(queue.percentile(100)), millis(run.percentile(50)));
+    }
+
+    /**
+     * Return `nanos` in milliseconds.
+     */
+    private static double millis(long nanos) {
+        return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    /**
+     * Return the stats of the executor shared by all selection models.
+     */
+    public static Stats sharedStats() {
+        return shared.stats();
+    }
+}
@@ -0,0 +1,158 @@
+package scissors;
+
+import graph.ShortestPaths;
+import graph.Weigher;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import javax.swing.SwingUtilities;
+import javax.swing.SwingWorker;
+import javax.swing.Timer;
+
+/**
+ * Schedules the shortest-paths solves of one selection model so that rapid requests (as from fast
+ * clicking or repeated undos) do not thrash the background threads.
+ * <ul>
+ *   <li>The newest request takes priority: submitting a solve cancels any solve that is running
+ *   and replaces any that has not yet started, so superseded requests are coalesced.</li>
+ *   <li>At most one solve is actually running at a time; a cancelled solve must finish (which it
+ *   does at its next cancellation check) before its successor starts.</li>
+ *   <li>A request made soon after a solve was started is debounced: it waits until `debounceMillis`
+ *   have passed since that start, in case it is superseded in the meantime.  A request made after
+ *   a pause starts immediately.</li>
+ *   <li>Since solves do not overlap, the memory of one `ShortestPaths` solver is pooled and reused
+ *   by each solve in turn rather than being allocated anew (apart from the settled order that
+ *   each solve's snapshots keep; see `ShortestPaths.setStart()`).</li>
+ * </ul>
+ * Solves are run by the shared `SolveExecutor`.  Apart from the solver pool, methods must be
+ * called from the EDT.
+ */
+class SolveScheduler {
+
+    /**
+     * An idle solver that may be reused, together with the graph it was allocated for.
+     */
+    private record PooledSolver(ImageGraph graph, ShortestPaths<ImageVertex, ImageEdge> solver) {
+    }
+
+    /**
+     * The minimum time between starting successive solves, in nanoseconds.
+     */
+    private final long debounceNanos;
+
+    /**
+     * Fires when a debounced request may be started.
+     */
+    private final Timer timer;
+
+    /**
+     * The most recently submitted solve if it has not yet been started, otherwise null.
+     */
+    private SwingWorker<?, ?> pending;
+
+    /**
+     * The solve that has been started and whose background task has not yet returned, or null if
+     * there is none.
+     */
+    private SwingWorker<?, ?> running;
+
+    /**
+     * The value of `System.nanoTime()` when a solve was last started, or null if none has been.
+     */
+    private Long lastStartNanos;
+
+    /**
+     * The solver released by the last solve to finish, or null if none is idle.  Accessed from
+     * solver threads.
+     */
+    private final AtomicReference<PooledSolver> idle = new AtomicReference<>();
+
+    /**
+     * Create a scheduler that starts successive solves at least `debounceMillis` apart.
+     */
+    SolveScheduler(int debounceMillis) {
+        debounceNanos = TimeUnit.MILLISECONDS.toNanos(debounceMillis);
+        timer = new Timer(debounceMillis, e -> schedule());
+        timer.setRepeats(false);
+    }
+
+    /**
+     * Arrange for `solve` to be run on a background thread, superseding any solve that was
+     * previously submitted.  Superseded solves are cancelled.
+     */
+    void submit(SwingWorker<?, ?> solve) {
+        if (pending != null) {
+            pending.cancel(false);
+        }
+        pending = solve;
+        if (running != null) {
+            running.cancel(false);
+        }
+        schedule();
+    }
+
+    /**
+     * Start the pending solve if there is one and it is allowed to start now; if only the debounce
+     * interval is holding it back, start it when that elapses.
+     */
+    private void schedule() {
+        if (pending == null || running != null) {
+            return;
+        }
+        if (pending.isCancelled()) {
+            pending = null;
+            return;
+        }
+        long now = System.nanoTime();
+        long waitNanos = (lastStartNanos == null) ? 0 : lastStartNanos + debounceNanos - now;
+        if (waitNanos > 0) {
+            timer.setInitialDelay((int) TimeUnit.NANOSECONDS.toMillis(waitNanos) + 1);
+            timer.restart();
+            return;
+        }
+
+        SwingWorker<?, ?> solve = pending;
+        pending = null;
+        running = solve;
+        lastStartNanos = now;
+        SolveExecutor.shared().execute(() -> {
+            try {
+                solve.run();
+            } finally {
+                SwingUtilities.invokeLater(() -> finished(solve));
+            }
+        });
+    }
+
+    /**
+     * Note that the background task of `solve` has returned, and start its successor if one is
+     * waiting.
+     */
+    private void finished(SwingWorker<?, ?> solve) {
+        if (running == solve) {
+            running = null;
+            schedule();
+        }
+    }
+
+    /**
+     * Return a solver for `graph` using `weigher`, reusing the idle pooled solver if it was
+     * allocated for the same graph.  The solver must be returned with `release()` once its results
+     * have been snapshotted.  May be called from any thread.
+     */
+    ShortestPaths<ImageVertex, ImageEdge> acquire(ImageGraph graph, Weigher<ImageEdge> weigher) {
+        PooledSolver pooled = idle.getAndSet(null);
+        if (pooled != null && pooled.graph() == graph) {
+            pooled.solver().setWeigher(weigher);
+            return pooled.solver();
+        }
+        return new ShortestPaths<>(graph, weigher);
+    }
+
+    /**
+     * Return `solver`, which was allocated for `graph`, to the pool.  May be called from any
+     * thread.
+     */
+    void release(ImageGraph graph, ShortestPaths<ImageVertex, ImageEdge> solver) {
+        idle.set(new PooledSolver(graph, solver));
+    }
+}
@@ -0,0 +1,133 @@
+package scissors;
+
+import graph.Weigher;
+import java.awt.image.BufferedImage;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import javax.swing.SwingUtilities;
+import metrics.OperationLog;
+
+/**
+ * Shares Weighers, and the cost maps they precompute, between all selection models working on the
+ * same image.  Switching weight functions creates a new `ScissorsSelectionModel`, so without
+ * sharing, switching back and forth would rebuild the same cost maps each time.  Weighers are built
+ * asynchronously; the cache holds futures for them, so that a weigher still under construction is
+ * not built twice.  Only the weighers for the most recently requested image are kept, bounding the
+ * memory used by cost maps to that of one image; `clear()` releases even those once the image is
+ * no longer being selected from.
+ * <p>
+ * If the system property `scissors.precomputeAllWeighers` is "true", requesting any weigher for a
+ * new image also starts building every other weigher for it, one after another, once the requested
+ * one is finished.  This makes later switches instant at the cost of memory and background CPU
+ * time.
+ * <p>
+ * Methods must be called from the EDT.
+ */
+class WeigherCache {
+
+    /**
+     * Whether to build all weighers for an image when any one of them is requested.
+     */
+    private static final boolean PRECOMPUTE_ALL =
+            Boolean.getBoolean("scissors.precomputeAllWeighers");
+
+    /**
+     * The image whose weighers are cached, or null if none.
+     */
+    private static BufferedImage image;
+
+    /**
+     * `weighers.get(name)` is the Weigher named `name` for `image`, possibly still under
+     * construction.
+     */
+    private static final Map<String, CompletableFuture<Weigher<ImageEdge>>> weighers =
+            new HashMap<>();
+
+    /**
+     * Return the Weigher named `name` (as recognized by `ScissorsWeights`) for the image
+     * represented by `graph`, starting to build it on a background thread if it is neither built
+     * nor under construction.  Any weighers cached for a different image are discarded.
+     */
+    static CompletableFuture<Weigher<ImageEdge>> weigher(String name, ImageGraph graph) {
+        return weigher(name, graph, PRECOMPUTE_ALL);
+    }
+
+    /**
+     * Return the Weigher named `name` for the image represented by `graph` as `weigher(name,
+     * graph)` does, but starting to build every other weigher for a new image afterward only if
+     * `precomputeAll` is true.
+     */
+    static CompletableFuture<Weigher<ImageEdge>> weigher(String name, ImageGraph graph,
+            boolean precomputeAll) {
+        assert SwingUtilities.isEventDispatchThread();
+        if (graph.image() != image) {
+            image = graph.image();
+            weighers.clear();
+        }
+        CompletableFuture<Weigher<ImageEdge>> weigher = weighers.get(name);
+        if (weigher == null) {
+            boolean first = weighers.isEmpty();
+            weigher = CompletableFuture.supplyAsync(() -> build(name, graph));
+            weighers.put(name, weigher);
+            if (first && precomputeAll) {
+                precomputeAfter(weigher, graph);
+            }
+        }
+        return weigher;
+    }
+
+    /**
+     * Discard all cached weighers and the image they are for.  Weighers still under construction
+     * finish, but are not kept; models that already obtained a weigher keep theirs.
+     */
+    static void clear() {
+        assert SwingUtilities.isEventDispatchThread();
+        image = null;
+        weighers.clear();
+    }
+
+    /**
+     * Return the names of the weighers currently cached, whether built or under construction.
+     */
+    static Set<String> cachedNames() {
+        assert SwingUtilities.isEventDispatchThread();
+        return Set.copyOf(weighers.keySet());
+    }
+
+    /**
+     * Return a new Weigher named `name` for `graph`, recording its construction as a
+     * `CostMapBuild` event and in the operation log.
+     */
+    private static Weigher<ImageEdge> build(String name, ImageGraph graph) {
+        ScissorsEvents.CostMapBuild event = new ScissorsEvents.CostMapBuild();
+        event.begin();
+        // Cost maps are computed with parallel streams, so count every thread's allocations
+        OperationLog.Measurement measurement = OperationLog.beginAllThreads();
+        Weigher<ImageEdge> weigher = ScissorsWeights.makeWeigher(name, graph);
+        measurement.finish("costMapBuild", graph.width(), graph.height(), name, null, 0);
+        if (event.shouldCommit()) {
+            event.describe(graph, name);
+            event.commit();
+        }
+        return weigher;
+    }
+
+    /**
+     * Once `first` is built, build every other weigher for `graph` in turn, each starting when the
+     * previous one finishes (so that they compete as little as possible with solves).
+     */
+    private static void precomputeAfter(CompletableFuture<Weigher<ImageEdge>> first,
+            ImageGraph graph) {
+        CompletableFuture<?> previous = first;
+        for (String name : ScissorsWeights.weightNames()) {
+            if (!weighers.containsKey(name)) {
+                CompletableFuture<Weigher<ImageEdge>> next = previous.handleAsync(
+                        (w, e) -> build(name, graph));
+                weighers.put(name, next);
+                previous = next;
+            }
+        }
+    }
+}
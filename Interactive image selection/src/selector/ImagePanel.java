@@ -2,8 +2,9 @@ package selector;
 
 import java.awt.BorderLayout;
 import java.awt.CardLayout;
+import java.awt.Point;
+import java.awt.Rectangle;
 import java.awt.image.BufferedImage;
-import javax.swing.ImageIcon;
 import javax.swing.JLabel;
 import javax.swing.JPanel;
 import javax.swing.SwingConstants;
@@ -11,29 +12,26 @@ import javax.swing.SwingConstants;
 /**
  * A Swing component that displays an image and facilitates interaction with it in order to select
  * a region of the image.  The image and selection model can both be changed, and a placeholder
- * label is shown if no valid image has been set.
+ * label is shown if no valid image has been set.  The image can be zoomed (see `ImageViewport`),
+ * and selection interactions follow the zoom.
  */
 public class ImagePanel extends JPanel {
 
     /**
-     * Label for drawing the image when a valid image has been set.
+     * Viewport for drawing the image when a valid image has been set.
      */
-    private final JLabel pic;
+    private final ImageViewport pic;
 
     /**
      * Component for interactively building a selection; must be placed on top of `pic` with their
-     * upper-left corners aligned in order for coordinates within this component to match pixel
-     * locations in `pic`.
+     * upper-left corners aligned, and must use the same scale as `pic`, in order for coordinates
+     * within this component to map to pixel locations in `pic`.
      */
     private final SelectionComponent selector;
 
     public ImagePanel() {
         // Create components to show when a valid image is set.
-        pic = new JLabel();
-        // Set pic's icon alignment so that its coordinates will match those of any component added
-        //  to `pic`.
-        pic.setHorizontalAlignment(SwingConstants.LEFT);
-        pic.setVerticalAlignment(SwingConstants.TOP);
+        pic = new ImageViewport();
 
         // Default to using a point-to-point selection model
         SelectionModel selection = new PointToPointSelectionModel(true);
@@ -42,12 +40,14 @@ public class ImagePanel extends JPanel {
         //  `selector` is scaled to the same size as `pic`.
         pic.setLayout(new BorderLayout());
         pic.add(selector);
+        // Keep the selector's scale in sync with the viewport's
+        pic.addPropertyChangeListener("scale", e -> selector.setScale((Double) e.getNewValue()));
 
         // Create components to show when no valid image has been set.
         JLabel placeholder = new JLabel("No image loaded.");
         placeholder.setHorizontalAlignment(SwingConstants.CENTER);
         placeholder.setVerticalAlignment(SwingConstants.CENTER);
-        placeholder.setFont(pic.getFont().deriveFont(48.0f));
+        placeholder.setFont(placeholder.getFont().deriveFont(48.0f));
 
         // Use a CardLayout to easily toggle between showing different components when an image is
         //  set vs. when one isn't.
@@ -86,6 +86,22 @@ public class ImagePanel extends JPanel {
         selector.setModel(newModel);
     }
 
+    /**
+     * Record the user's subsequent selection interactions to `recorder`, or stop recording them if
+     * it is null (see `SelectionComponent.setRecorder()`).
+     */
+    public void setRecorder(SessionRecorder recorder) {
+        selector.setRecorder(recorder);
+    }
+
+    /**
+     * Record that the user took `action` (which must not have a point) through another component,
+     * if their interactions are being recorded.
+     */
+    public void record(SessionRecording.Action action) {
+        selector.record(action);
+    }
+
     /**
      * Display and select from `img` instead of our current image.  If `img` is null, then do not
      * display any image or support any selection interaction (a placeholder message will be shown
@@ -98,13 +114,50 @@ public class ImagePanel extends JPanel {
         // We set our own layout manager, so it should still be a CardLayout.
         CardLayout cards = (CardLayout)getLayout();
         if (img != null) {
-            // Update and show image label
-            pic.setIcon(new ImageIcon(img));
+            // Update and show image viewport
+            pic.setImage(img);
+            selector.setVisible(true);
             cards.last(this);
         } else {
             // Free image and display placeholder
-            pic.setIcon(null);
+            pic.setImage(null);
             cards.first(this);
         }
     }
+
+    /**
+     * Display `preview`, a copy of an image being loaded that has been subsampled by a factor of
+     * `subsampling`, until `setImage()` is called with the full image.  The preview is drawn at the
+     * full image's size.  Our selection model's image is cleared, and selection interactions are
+     * disabled while the preview is shown.
+     */
+    public void setPreview(BufferedImage preview, int subsampling) {
+        selection().setImage(null);
+        pic.setPreview(preview, subsampling);
+        selector.setVisible(false);
+        ((CardLayout) getLayout()).last(this);
+    }
+
+    /**
+     * Return the number of screen pixels per image pixel at which our image is displayed.
+     */
+    public double scale() {
+        return pic.scale();
+    }
+
+    /**
+     * Multiply our display scale by `factor`, keeping the center of the visible area fixed.
+     */
+    public void zoom(double factor) {
+        Rectangle visible = pic.getVisibleRect();
+        pic.zoomAt(factor, new Point((int) visible.getCenterX(), (int) visible.getCenterY()));
+    }
+
+    /**
+     * Display our image at full size (one screen pixel per image pixel), keeping the center of the
+     * visible area fixed.
+     */
+    public void zoomToActualSize() {
+        zoom(1 / pic.scale());
+    }
 }
@@ -0,0 +1,463 @@
+package selector;
+
+import java.awt.Dimension;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.awt.Transparency;
+import java.awt.event.MouseWheelEvent;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import javax.swing.JComponent;
+import javax.swing.JScrollPane;
+import javax.swing.JViewport;
+import javax.swing.SwingUtilities;
+import javax.swing.SwingWorker;
+
+/**
+ * A component that displays an image at an adjustable zoom level.  The image is drawn from square
+ * tiles, and only tiles that intersect the area being painted are drawn.  When zoomed out, tiles
+ * are taken from a "mipmap" pyramid of successively half-sized copies of the image, so that the
+ * number of pixels drawn is proportional to the screen area rather than to the image area.
+ * Pyramid levels are built on a background thread when first needed; until the needed level is
+ * ready, tiles are drawn from the coarsest level already built.  Tiles are cached in a format
+ * compatible with the screen (allowing them to be accelerated), with the least recently used tiles
+ * evicted when the cache is full.
+ * <p>
+ * Our preferred size is the size of the image at the current scale.  Holding Ctrl while turning
+ * the mouse wheel zooms about the mouse pointer (keeping the image pixel under the pointer fixed
+ * if we are in a scroll pane); other wheel events are passed on to our parent so that it may
+ * scroll.  Listeners are notified of changes to the "scale" property.
+ */
+public class ImageViewport extends JComponent {
+
+    /**
+     * The width and height of a tile, in pixels of its pyramid level.
+     */
+    static final int TILE_SIZE = 256;
+
+    /**
+     * The maximum number of tiles to keep in the cache (at 4 bytes per pixel, 256 tiles of 256x256
+     * pixels use 64 MiB).
+     */
+    private static final int MAX_CACHED_TILES = 256;
+
+    /**
+     * The factor by which one step of the mouse wheel changes the scale.
+     */
+    private static final double ZOOM_STEP = Math.pow(2, 0.25);
+
+    /**
+     * The smallest and largest allowed scales.
+     */
+    static final double MIN_SCALE = 1.0 / 64;
+    static final double MAX_SCALE = 32;
+
+    /**
+     * The image being displayed, or null if none.
+     */
+    private BufferedImage image;
+
+    /**
+     * The number of screen pixels per image pixel along each axis.
+     */
+    private double scale = 1;
+
+    /**
+     * The number of pixels of the full-resolution image represented by each pixel of `image`
+     * along each axis.  1 unless `image` is a subsampled preview (see `setPreview()`).
+     */
+    private int pixelSize = 1;
+
+    /**
+     * `levels.get(k)` is the image downsampled by a factor of 2^k (rounding sizes up).  Level 0 is
+     * `image` itself; coarser levels are added by `levelBuilder` once they have been needed.
+     */
+    private final List<BufferedImage> levels = new ArrayList<>();
+
+    /**
+     * The coarsest pyramid level needed by a paint so far for the current image.
+     */
+    private int neededLevel;
+
+    /**
+     * Builds the pyramid levels of our image from `levels.size()` to `neededLevel` in the
+     * background, or null if no levels are being built.
+     */
+    private LevelBuilder levelBuilder;
+
+    /**
+     * Cached tiles keyed by `tileKey()`, in least-recently-used order.
+     */
+    private final Map<Long, BufferedImage> tiles =
+            new LinkedHashMap<>(MAX_CACHED_TILES, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Long, BufferedImage> eldest) {
+                    return size() > MAX_CACHED_TILES;
+                }
+            };
+
+    /**
+     * Create a viewport that does not yet show an image.
+     */
+    public ImageViewport() {
+        addMouseWheelListener(this::mouseWheelMoved);
+    }
+
+    /**
+     * Display `img` instead of our current image, keeping the current scale.  If `img` is null,
+     * display nothing.
+     */
+    public void setImage(BufferedImage img) {
+        setPreview(img, 1);
+    }
+
+    /**
+     * Display `preview`, a copy of some image subsampled by a factor of `subsampling` along each
+     * axis, in place of that image.  It is drawn at the size the full image would be at our
+     * current scale, so that our size and scroll position do not change when the full image
+     * replaces it.  Requires `subsampling >= 1`.
+     */
+    public void setPreview(BufferedImage preview, int subsampling) {
+        assert subsampling >= 1;
+        image = preview;
+        pixelSize = subsampling;
+        levels.clear();
+        tiles.clear();
+        neededLevel = 0;
+        if (levelBuilder != null) {
+            levelBuilder.cancel(false);
+            levelBuilder = null;
+        }
+        if (preview != null) {
+            levels.add(preview);
+        }
+        updatePreferredSize();
+        repaint();
+    }
+
+    /**
+     * Return the number of screen pixels per image pixel along each axis.
+     */
+    public double scale() {
+        return scale;
+    }
+
+    /**
+     * Display our image at `newScale` screen pixels per image pixel (clamped to
+     * [MIN_SCALE..MAX_SCALE]) and notify listeners that the "scale" property has changed.
+     */
+    public void setScale(double newScale) {
+        double oldScale = scale;
+        scale = Math.clamp(newScale, MIN_SCALE, MAX_SCALE);
+        updatePreferredSize();
+        repaint();
+        firePropertyChange("scale", oldScale, scale);
+    }
+
+    /**
+     * Multiply our scale by `factor` while keeping the image pixel under `anchor` (in our
+     * coordinates) at the same position on screen, scrolling our enclosing scroll pane (if any) to
+     * do so.
+     */
+    public void zoomAt(double factor, Point anchor) {
+        JViewport viewport = (JViewport) SwingUtilities.getAncestorOfClass(JViewport.class, this);
+        Point anchorInView = (viewport != null)
+                ? SwingUtilities.convertPoint(this, anchor, viewport.getView()) : anchor;
+        Point viewPosition = (viewport != null) ? viewport.getViewPosition() : new Point();
+        double imageX = anchor.x / scale;
+        double imageY = anchor.y / scale;
+
+        setScale(scale * factor);
+        if (viewport == null) {
+            return;
+        }
+
+        // Lay out the scroll pane now so that the view has its new size before we scroll it
+        JScrollPane scrollPane =
+                (JScrollPane) SwingUtilities.getAncestorOfClass(JScrollPane.class, this);
+        if (scrollPane != null) {
+            scrollPane.validate();
+        }
+        Dimension viewSize = viewport.getViewSize();
+        Dimension extent = viewport.getExtentSize();
+        int x = (int) Math.round(imageX * scale) - (anchorInView.x - viewPosition.x);
+        int y = (int) Math.round(imageY * scale) - (anchorInView.y - viewPosition.y);
+        viewport.setViewPosition(new Point(
+                Math.clamp(x, 0, Math.max(0, viewSize.width - extent.width)),
+                Math.clamp(y, 0, Math.max(0, viewSize.height - extent.height))));
+    }
+
+    /**
+     * Zoom by one step per notch about the mouse pointer if Ctrl is held; otherwise, let our parent
+     * handle the event (adding a wheel listener would otherwise prevent an enclosing scroll pane
+     * from scrolling).
+     */
+    private void mouseWheelMoved(MouseWheelEvent e) {
+        if (e.isControlDown() && image != null) {
+            zoomAt(Math.pow(ZOOM_STEP, -e.getPreciseWheelRotation()), e.getPoint());
+        } else if (getParent() != null) {
+            getParent().dispatchEvent(SwingUtilities.convertMouseEvent(this, e, getParent()));
+        }
+    }
+
+    private void updatePreferredSize() {
+        if (image == null) {
+            setPreferredSize(null);
+        } else {
+            setPreferredSize(new Dimension((int) Math.ceil(image.getWidth() * drawScale()),
+                    (int) Math.ceil(image.getHeight() * drawScale())));
+        }
+        revalidate();
+    }
+
+    /**
+     * Return the number of screen pixels per pixel of `image` (as opposed to pixels of the full
+     * image, should `image` be a preview).
+     */
+    private double drawScale() {
+        return scale * pixelSize;
+    }
+
+    /**
+     * Draw the tiles of our image that intersect the clip region of `g`, taking them from the
+     * pyramid level whose resolution is closest to (but not below) that of the screen.  If that
+     * level is not built yet, start building it and draw from the coarsest level built so far.
+     */
+    @Override
+    protected void paintComponent(Graphics g) {
+        if (image == null) {
+            return;
+        }
+        int level = levelFor(drawScale());
+        if (level >= levels.size()) {
+            buildLevels(level);
+            level = levels.size() - 1;
+        }
+        BufferedImage levelImage = levels.get(level);
+        int levelWidth = levelImage.getWidth();
+        int levelHeight = levelImage.getHeight();
+        // Screen pixels per pixel of the chosen level; in (0.5..1] unless zoomed in or the level
+        //  is not built yet
+        double f = drawScale() * (1 << level);
+
+        Rectangle clip = g.getClipBounds();
+        if (clip == null) {
+            clip = new Rectangle(0, 0, getWidth(), getHeight());
+        }
+        int tx0 = Math.max(0, (int) Math.floor(clip.x / f) / TILE_SIZE);
+        int ty0 = Math.max(0, (int) Math.floor(clip.y / f) / TILE_SIZE);
+        int tx1 = Math.min((levelWidth - 1) / TILE_SIZE,
+                (int) Math.floor((clip.x + clip.width) / f) / TILE_SIZE);
+        int ty1 = Math.min((levelHeight - 1) / TILE_SIZE,
+                (int) Math.floor((clip.y + clip.height) / f) / TILE_SIZE);
+
+        Graphics2D g2 = (Graphics2D) g.create();
+        // Show individual pixels when zoomed in; blend when shrinking a level to fit the screen
+        g2.setRenderingHint(RenderingHints.KEY_INTERPOLATION, (f >= 1)
+                ? RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR
+                : RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        for (int ty = ty0; ty <= ty1; ++ty) {
+            for (int tx = tx0; tx <= tx1; ++tx) {
+                BufferedImage tile = tile(level, tx, ty);
+                // Round tile edges the same way for neighboring tiles, so that no seams appear
+                int x0 = tx * TILE_SIZE;
+                int y0 = ty * TILE_SIZE;
+                int x1 = x0 + tile.getWidth();
+                int y1 = y0 + tile.getHeight();
+                g2.drawImage(tile, (int) Math.round(x0 * f), (int) Math.round(y0 * f),
+                        (int) Math.round(x1 * f), (int) Math.round(y1 * f),
+                        0, 0, tile.getWidth(), tile.getHeight(), null);
+            }
+        }
+        g2.dispose();
+    }
+
+    /**
+     * Return the pyramid level to draw from at `scale`: the coarsest level that still has at least
+     * one pixel per screen pixel (and level 0 when zoomed in).  Coarser levels than one whose
+     * image would be a single pixel are never used.
+     */
+    private int levelFor(double scale) {
+        int level = 0;
+        int maxDim = Math.max(image.getWidth(), image.getHeight());
+        while (scale * (2 << level) <= 1 && (maxDim >> (level + 1)) > 0) {
+            level += 1;
+        }
+        return level;
+    }
+
+    /**
+     * Make sure pyramid levels up to `k` will be built, starting to build them in the background
+     * unless they are already being built.
+     */
+    private void buildLevels(int k) {
+        neededLevel = Math.max(neededLevel, k);
+        if (levelBuilder == null) {
+            levelBuilder = new LevelBuilder();
+            levelBuilder.execute();
+        }
+    }
+
+    /**
+     * Return the image for the pyramid level after `prev`, in a format suited to `gc` (if not
+     * null) with transparency `transparency`.  It is produced by shrinking `prev` by half with
+     * bilinear filtering, which averages each 2x2 block of pixels.
+     */
+    private static BufferedImage halve(BufferedImage prev, GraphicsConfiguration gc,
+            int transparency) {
+        BufferedImage next = createImage((prev.getWidth() + 1) / 2, (prev.getHeight() + 1) / 2,
+                gc, transparency);
+        Graphics2D g = next.createGraphics();
+        g.setRenderingHint(RenderingHints.KEY_INTERPOLATION,
+                RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        g.drawImage(prev, 0, 0, next.getWidth(), next.getHeight(), null);
+        g.dispose();
+        return next;
+    }
+
+    /**
+     * Return the tile at column `tx` and row `ty` of pyramid level `level` (which must be built),
+     * copying it from the level's image into a new tile if it is not cached.
+     */
+    private BufferedImage tile(int level, int tx, int ty) {
+        long key = tileKey(level, tx, ty);
+        BufferedImage tile = tiles.get(key);
+        if (tile == null) {
+            BufferedImage src = levels.get(level);
+            int x = tx * TILE_SIZE;
+            int y = ty * TILE_SIZE;
+            int w = Math.min(TILE_SIZE, src.getWidth() - x);
+            int h = Math.min(TILE_SIZE, src.getHeight() - y);
+            tile = createTileImage(w, h);
+            Graphics2D g = tile.createGraphics();
+            g.drawImage(src, 0, 0, w, h, x, y, x + w, y + h, null);
+            g.dispose();
+            tiles.put(key, tile);
+        }
+        return tile;
+    }
+
+    private static long tileKey(int level, int tx, int ty) {
+        return ((long) level << 56) | ((long) ty << 28) | tx;
+    }
+
+    /**
+     * Return a new image of size `width` by `height` in a format suited to drawing on our screen,
+     * with an alpha channel if our image has one.
+     */
+    private BufferedImage createTileImage(int width, int height) {
+        return createImage(width, height, getGraphicsConfiguration(),
+                image.getColorModel().getTransparency());
+    }
+
+    /**
+     * Return a new image of size `width` by `height` with transparency `transparency`, in a
+     * format compatible with `gc` if it is not null.
+     */
+    private static BufferedImage createImage(int width, int height, GraphicsConfiguration gc,
+            int transparency) {
+        if (gc != null) {
+            return gc.createCompatibleImage(width, height, transparency);
+        }
+        return new BufferedImage(width, height, (transparency == Transparency.OPAQUE)
+                ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB);
+    }
+
+    /**
+     * Pyramid level `index` of an image, as built by a `LevelBuilder`.
+     */
+    private record Level(int index, BufferedImage image) {
+    }
+
+    /**
+     * SwingWorker for building the pyramid levels of our image after those already built, up to
+     * `neededLevel`, in the background.  Each level is published as soon as it is built, so that
+     * painting can use it while coarser ones are still being built.
+     */
+    private class LevelBuilder extends SwingWorker<Void, Level> {
+
+        /**
+         * The image whose levels we build.
+         */
+        private final BufferedImage source = image;
+
+        /**
+         * The finest level not yet built.
+         */
+        private final int firstLevel = levels.size();
+
+        /**
+         * The last level already built, which the first level we build is shrunk from.
+         */
+        private final BufferedImage finest = levels.getLast();
+
+        /**
+         * The screen format and transparency of the levels we build.
+         */
+        private final GraphicsConfiguration gc = getGraphicsConfiguration();
+        private final int transparency = image.getColorModel().getTransparency();
+
+        /**
+         * The coarsest level to build, fixed when we start; levels needed later are built by
+         * the next builder.
+         */
+        private final int lastLevel = neededLevel;
+
+        @Override
+        protected Void doInBackground() {
+            BufferedImage prev = finest;
+            for (int k = firstLevel; k <= lastLevel && !isCancelled(); ++k) {
+                prev = halve(prev, gc, transparency);
+                publish(new Level(k, prev));
+            }
+            return null;
+        }
+
+        /**
+         * If our viewport still shows the image we build levels for, add the newly built levels to
+         * its pyramid (unless another builder already has) and repaint with them.  This is
+         * executed on the EDT.
+         */
+        @Override
+        protected void process(List<Level> built) {
+            for (Level level : built) {
+                if (image == source && levels.size() == level.index()) {
+                    levels.add(level.image());
+                }
+            }
+            repaint();
+        }
+
+        /**
+         * If we are still the active builder, start building any levels that were needed while
+         * we were running, or report why we failed.  This is executed on the EDT.
+         */
+        @Override
+        protected void done() {
+            if (levelBuilder != this) {
+                return;
+            }
+            levelBuilder = null;
+            try {
+                get();
+            } catch (InterruptedException | CancellationException e) {
+                return;
+            } catch (ExecutionException e) {
+                throw new RuntimeException(e.getCause());
+            }
+            // Levels we published have been processed by now
+            if (levels.size() <= neededLevel) {
+                buildLevels(neededLevel);
+            }
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package selector;
+
+import java.awt.Point;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import javax.swing.SwingUtilities;
+import metrics.Histogram;
+import metrics.Metrics;
+
+/**
+ * Computes live wires on a background thread so that path reconstruction never runs on the EDT.
+ * Requests are coalesced: if several cursor positions are requested while a live wire is being
+ * computed, only the latest is computed next and the rest are dropped.  Results are delivered on
+ * the EDT to a consumer, but only if they were computed by the current live wire function and are
+ * newer than the last result delivered.  Apart from the background computation itself, all
+ * methods must be called from the EDT.
+ */
+class LiveWireService {
+
+    /**
+     * A request to compute the live wire to `point` using `function`.  `generation` identifies
+     * the function (see `setFunction()`), and `sequence` orders requests.  `requestNanos` is when
+     * the request was made, for measuring latency.
+     */
+    private record Request(Function<Point, PolyLine> function, Point point, long generation,
+                           long sequence, long requestNanos) {
+    }
+
+    /**
+     * Histogram of the latency of delivered live wires, from their request until delivery.
+     */
+    private static final Histogram latencyMetric = Metrics.histogram(Metrics.LIVE_WIRE_NANOS);
+
+    /**
+     * The single thread on which live wires are computed.  Daemon, so that it does not keep the
+     * application alive.
+     */
+    private static final ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "live-wire");
+        t.setDaemon(true);
+        return t;
+    });
+
+    /**
+     * Receives computed live wires on the EDT.
+     */
+    private final Consumer<PolyLine> consumer;
+
+    /**
+     * The most recent request that has not yet been taken up by the background thread, or null if
+     * there is none.  Newer requests replace older ones here, which is what coalesces them.
+     */
+    private final AtomicReference<Request> pending = new AtomicReference<>();
+
+    /**
+     * Whether a task to drain `pending` has been submitted to `executor` and has not yet finished.
+     */
+    private final AtomicBoolean draining = new AtomicBoolean();
+
+    /**
+     * The function used to compute live wires for new requests, or null if no live wire should be
+     * shown.  Only accessed on the EDT.
+     */
+    private Function<Point, PolyLine> function;
+
+    /**
+     * Incremented whenever `function` changes, so that results computed with an older function can
+     * be recognized and dropped.  Only accessed on the EDT.
+     */
+    private long generation;
+
+    /**
+     * The sequence number of the most recent request, and of the request whose result was most
+     * recently delivered.  Only accessed on the EDT.
+     */
+    private long lastRequested;
+    private long lastDelivered;
+
+    /**
+     * Create a service that will deliver computed live wires to `consumer` on the EDT.
+     */
+    LiveWireService(Consumer<PolyLine> consumer) {
+        this.consumer = consumer;
+    }
+
+    /**
+     * Compute future live wires with `newFunction` (which must be safe to call from any thread),
+     * or stop computing live wires if it is null.  Requests made with the previous function that
+     * have not yet been computed or delivered are dropped.
+     */
+    void setFunction(Function<Point, PolyLine> newFunction) {
+        function = newFunction;
+        generation += 1;
+        pending.set(null);
+    }
+
+    /**
+     * Request that the live wire to `p` be computed and delivered.  Does nothing if there is no
+     * current function.  Does not save a reference to `p`.
+     */
+    void request(Point p) {
+        if (function == null) {
+            return;
+        }
+        lastRequested += 1;
+        pending.set(new Request(function, new Point(p), generation, lastRequested,
+                System.nanoTime()));
+        if (draining.compareAndSet(false, true)) {
+            executor.execute(this::drain);
+        }
+    }
+
+    /**
+     * Compute live wires for pending requests until there are none left, delivering each result to
+     * the EDT.  Runs on the background thread.
+     */
+    private void drain() {
+        while (true) {
+            Request request = pending.getAndSet(null);
+            if (request == null) {
+                draining.set(false);
+                // A request may have arrived after we found the queue empty but before we cleared
+                // our flag, in which case its submitter did not start a new drain
+                if (pending.get() == null || !draining.compareAndSet(false, true)) {
+                    return;
+                }
+                continue;
+            }
+            PolyLine line;
+            try {
+                line = request.function().apply(request.point());
+            } catch (RuntimeException e) {
+                // Let later requests start a new drain rather than being stranded
+                draining.set(false);
+                throw e;
+            }
+            SwingUtilities.invokeLater(() -> deliver(request, line));
+        }
+    }
+
+    /**
+     * Hand `line`, computed for `request`, to our consumer unless it is stale.  Runs on the EDT.
+     */
+    private void deliver(Request request, PolyLine line) {
+        if (request.generation() != generation || request.sequence() <= lastDelivered) {
+            return;
+        }
+        lastDelivered = request.sequence();
+        consumer.accept(line);
+        latencyMetric.record(System.nanoTime() - request.requestNanos());
+    }
+}
@@ -0,0 +1,210 @@
+package selector;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import javax.swing.JComponent;
+import javax.swing.Timer;
+import metrics.Histogram;
+import metrics.Metrics;
+
+/**
+ * A translucent overlay showing live performance metrics from `Metrics`: the rate at which
+ * selection solves settle vertices, the size of the most recent search frontier, the duration of
+ * the last solve, the numbers of queued and running solves, and percentiles of solve queue latency,
+ * solve run time, paint time and live wire latency over the last few seconds.  Intended to be
+ * installed as a frame's glass pane; it has no mouse listeners, so events pass through to the
+ * components beneath it.  Refreshes periodically while visible.
+ * <p>
+ * Painting the overlay also repaints what is beneath it, so while it is visible it adds slightly
+ * to the paint times it reports.
+ */
+class PerformanceHud extends JComponent {
+
+    /**
+     * Milliseconds between refreshes.
+     */
+    private static final int REFRESH_MILLIS = 500;
+
+    /**
+     * The number of refreshes that recent percentiles are computed over (about 5 seconds).
+     */
+    private static final int WINDOW_REFRESHES = 10;
+
+    /**
+     * Margin between the overlay's box and the edges of this component, and between the box and
+     * its text.
+     */
+    private static final int MARGIN = 8;
+
+    private final LongAdder settled = Metrics.counter(Metrics.SETTLED);
+    private final AtomicLong frontierSize = Metrics.gauge(Metrics.FRONTIER_SIZE);
+    private final AtomicLong lastSolveNanos = Metrics.gauge(Metrics.LAST_SOLVE_NANOS);
+    private final Histogram paintNanos = Metrics.histogram(Metrics.PAINT_NANOS);
+    private final Histogram liveWireNanos = Metrics.histogram(Metrics.LIVE_WIRE_NANOS);
+    private final AtomicLong solvesQueued = Metrics.gauge(Metrics.SOLVES_QUEUED);
+    private final AtomicLong solvesRunning = Metrics.gauge(Metrics.SOLVES_RUNNING);
+    private final Histogram solveQueueNanos = Metrics.histogram(Metrics.SOLVE_QUEUE_NANOS);
+    private final Histogram solveRunNanos = Metrics.histogram(Metrics.SOLVE_RUN_NANOS);
+
+    /**
+     * Snapshots of each of our histograms at recent refreshes, oldest first.  Recent percentiles
+     * are computed from the difference between the newest and the oldest.
+     */
+    private final Deque<Histogram.Snapshot> paintHistory = new ArrayDeque<>();
+    private final Deque<Histogram.Snapshot> liveWireHistory = new ArrayDeque<>();
+    private final Deque<Histogram.Snapshot> solveQueueHistory = new ArrayDeque<>();
+    private final Deque<Histogram.Snapshot> solveRunHistory = new ArrayDeque<>();
+
+    /**
+     * The value of `settled` and the time (from `System.nanoTime()`) at the previous refresh.
+     */
+    private long previousSettled;
+    private long previousNanos;
+
+    /**
+     * The text lines currently displayed.
+     */
+    private List<String> lines = List.of();
+
+    /**
+     * The region of this component occupied by the overlay's box when it was last painted.
+     */
+    private Rectangle box = new Rectangle();
+
+    /**
+     * Refreshes the displayed metrics while we are visible.
+     */
+    private final Timer timer = new Timer(REFRESH_MILLIS, e -> refresh());
+
+    /**
+     * Create an overlay, initially invisible.
+     */
+    PerformanceHud() {
+        setOpaque(false);
+        setVisible(false);
+        setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
+    }
+
+    /**
+     * Show or hide the overlay, starting or stopping its refreshes.  Recent percentiles start
+     * afresh each time it is shown.
+     */
+    @Override
+    public void setVisible(boolean visible) {
+        if (visible && !timer.isRunning()) {
+            paintHistory.clear();
+            liveWireHistory.clear();
+            solveQueueHistory.clear();
+            solveRunHistory.clear();
+            previousSettled = settled.sum();
+            previousNanos = System.nanoTime();
+            paintHistory.addLast(paintNanos.snapshot());
+            liveWireHistory.addLast(liveWireNanos.snapshot());
+            solveQueueHistory.addLast(solveQueueNanos.snapshot());
+            solveRunHistory.addLast(solveRunNanos.snapshot());
+            lines = List.of("Collecting metrics...");
+            timer.start();
+        } else if (!visible) {
+            timer.stop();
+        }
+        super.setVisible(visible);
+    }
+
+    /**
+     * Read the current metrics, update the displayed text, and repaint.
+     */
+    private void refresh() {
+        long now = System.nanoTime();
+        long settledNow = settled.sum();
+        double settleRate = (settledNow - previousSettled) * 1e9 / Math.max(1, now - previousNanos);
+        previousSettled = settledNow;
+        previousNanos = now;
+
+        List<String> text = new ArrayList<>();
+        text.add(String.format("Settle rate  %,.0f vertices/s", settleRate));
+        text.add(String.format("Frontier     %,d vertices", frontierSize.get()));
+        text.add(String.format("Last solve   %s", millis(lastSolveNanos.get())));
+        text.add(String.format("Solves       %d queued, %d running", solvesQueued.get(),
+                solvesRunning.get()));
+        text.add(String.format("Solve wait   %s", percentiles(solveQueueNanos, solveQueueHistory)));
+        text.add(String.format("Solve run    %s", percentiles(solveRunNanos, solveRunHistory)));
+        text.add(String.format("Paint        %s", percentiles(paintNanos, paintHistory)));
+        text.add(String.format("Live wire    %s", percentiles(liveWireNanos, liveWireHistory)));
+        lines = text;
+
+        repaint(box);
+        repaint(boxBounds());
+    }
+
+    /**
+     * Take a snapshot of `histogram`, append it to `history` (dropping snapshots older than our
+     * window), and return a description of the percentiles of the values recorded in the window.
+     */
+    private static String percentiles(Histogram histogram, Deque<Histogram.Snapshot> history) {
+        Histogram.Snapshot latest = histogram.snapshot();
+        history.addLast(latest);
+        while (history.size() > WINDOW_REFRESHES + 1) {
+            history.removeFirst();
+        }
+        Histogram.Snapshot recent = latest.minus(history.getFirst());
+        if (recent.count() == 0) {
+            return "no samples";
+        }
+        return String.format("p50 %s  p95 %s  p99 %s  (n=%d)", millis(recent.percentile(50)),
+                millis(recent.percentile(95)), millis(recent.percentile(99)), recent.count());
+    }
+
+    /**
+     * Return `nanos` formatted as milliseconds.
+     */
+    private static String millis(long nanos) {
+        return String.format("%.2f ms", nanos / (double) TimeUnit.MILLISECONDS.toNanos(1));
+    }
+
+    /**
+     * Return the region the overlay's box will occupy given the current text: the top right
+     * corner of this component.
+     */
+    private Rectangle boxBounds() {
+        FontMetrics fm = getFontMetrics(getFont());
+        int width = 0;
+        for (String line : lines) {
+            width = Math.max(width, fm.stringWidth(line));
+        }
+        width += 2 * MARGIN;
+        int height = lines.size() * fm.getHeight() + 2 * MARGIN;
+        return new Rectangle(getWidth() - width - MARGIN, MARGIN, width, height);
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        Graphics2D g2 = (Graphics2D) g.create();
+        g2.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING,
+                RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+        g2.setFont(getFont());
+        box = boxBounds();
+        g2.setColor(new Color(0, 0, 0, 160));
+        g2.fillRoundRect(box.x, box.y, box.width, box.height, MARGIN, MARGIN);
+
+        FontMetrics fm = g2.getFontMetrics();
+        g2.setColor(Color.WHITE);
+        int y = box.y + MARGIN + fm.getAscent();
+        for (String line : lines) {
+            g2.drawString(line, box.x + MARGIN, y);
+            y += fm.getHeight();
+        }
+        g2.dispose();
+    }
+}
@@ -2,6 +2,7 @@ package selector;
 
 import java.awt.Point;
 import java.util.ListIterator;
+import java.util.function.Function;
 
 /**
  * Models a selection tool that connects each added point with a straight line.
@@ -31,6 +32,15 @@ public class PointToPointSelectionModel extends SelectionModel {
 
     }
 
+    @Override
+    public Function<Point, PolyLine> liveWireFunction() {
+        if (state() != SelectionState.SELECTING) {
+            return null;
+        }
+        Point end = new Point(lastPoint());
+        return p -> new PolyLine(end, p);
+    }
+
     /**
      * Append a straight line segment to the current selection path connecting its end with `p`.
      */
@@ -2,6 +2,7 @@ package selector;
 
 import java.awt.Point;
 import java.awt.Polygon;
+import java.awt.Rectangle;
 import java.util.Arrays;
 import java.util.List;
 
@@ -84,6 +85,24 @@ public class PolyLine {
         return new Point(xs[xs.length - 1], ys[ys.length - 1]);
     }
 
+    /**
+     * Return the smallest rectangle containing every point along this poly-line.  Its width and
+     * height count pixels, so a horizontal line from x=0 to x=2 has width 3 and height 1.
+     */
+    public Rectangle bounds() {
+        int minX = xs[0];
+        int maxX = xs[0];
+        int minY = ys[0];
+        int maxY = ys[0];
+        for (int i = 1; i < xs.length; ++i) {
+            minX = Math.min(minX, xs[i]);
+            maxX = Math.max(maxX, xs[i]);
+            minY = Math.min(minY, ys[i]);
+            maxY = Math.max(maxY, ys[i]);
+        }
+        return new Rectangle(minX, minY, maxX - minX + 1, maxY - minY + 1);
+    }
+
     @Override
     public boolean equals(Object other) {
         if (other == null || other.getClass() != getClass()) {
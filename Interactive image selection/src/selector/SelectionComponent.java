@@ -2,30 +2,46 @@ package selector;
 
 import static selector.SelectionModel.SelectionState.*;
 
+import java.awt.BasicStroke;
 import java.awt.Color;
 import java.awt.Dimension;
 import java.awt.Graphics;
+import java.awt.Graphics2D;
 import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
 import java.awt.event.MouseEvent;
 import java.awt.event.MouseListener;
 import java.awt.event.MouseMotionListener;
 import java.awt.image.BufferedImage;
 import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.ListIterator;
 import javax.swing.JComponent;
-import java.awt.Rectangle;
+import metrics.Histogram;
+import metrics.Metrics;
 import scissors.ImagePathsSnapshot;
+import selector.SessionRecording.Action;
 
 /**
  * A transparent (overlay) component enabling interactive selection (aka "tracing") of an underlying
  * image.  Layout must ensure that our upper-left corner coincides with that of the underlying image
- * view.
+ * view, and our scale must match the scale at which that view displays the image.  Mouse locations
+ * are mapped from our coordinates to image pixels, and everything except control points (which
+ * keep a constant size on screen) is drawn in image coordinates.
  */
 public class SelectionComponent extends JComponent implements MouseListener, MouseMotionListener,
         PropertyChangeListener {
 
+    /**
+     * Histogram of the time taken by `paintComponent()`.
+     */
+    private static final Histogram paintMetric = Metrics.histogram(Metrics.PAINT_NANOS);
+
     /**
      * The current selection model that we are viewing and controlling.
      */
@@ -40,9 +56,15 @@ public class SelectionComponent extends JComponent implements MouseListener, Mou
     private int selectedIndex;
 
     /**
-     * The last observed position of the mouse pointer over this component, constrained to lie
-     * within the image area.  Must not alias a Point from a MouseEvent, as those objects may be
-     * reused by future events.
+     * The number of screen pixels per image pixel along each axis at which the underlying image is
+     * displayed.
+     */
+    private double scale = 1;
+
+    /**
+     * The last observed position of the mouse pointer over this component, in image coordinates,
+     * constrained to lie within the image area.  Must not alias a Point from a MouseEvent, as
+     * those objects may be reused by future events.
      */
     private Point mouseLocation = new Point();
 
@@ -72,6 +94,86 @@ public class SelectionComponent extends JComponent implements MouseListener, Mou
      */
     private Color controlPointColor = Color.CYAN;
 
+    /**
+     * The ARGB color used to shade pixels whose shortest paths are known while processing.
+     */
+    private int settledColor = new Color(192, 192, 96, 128).getRGB();
+
+    /**
+     * The ARGB color used to shade pixels on the pathfinding frontier while processing.
+     */
+    private int frontierColor = new Color(96, 96, 192, 128).getRGB();
+
+    /* Damage tracking */
+
+    /**
+     * The live wire from our model's selection endpoint to (a recent) `mouseLocation`, as last
+     * drawn (or about to be drawn).  Null if our model is not SELECTING or if no live wire has been
+     * computed since the model last changed.  Live wires are computed off the EDT by
+     * `liveWireService`, which delivers them to `liveWireReady()`.
+     */
+    private PolyLine liveWire;
+
+    /**
+     * The area covered by `liveWire`, or null if there is none.
+     */
+    private Rectangle liveWireBounds;
+
+    /**
+     * The area covered by the move guides as last drawn, or null if none are drawn.
+     */
+    private Rectangle moveGuideBounds;
+
+    /**
+     * The segments of our model's selection as of the last model event.  Compared by identity
+     * against the new selection to find which segments need repainting.
+     */
+    private List<PolyLine> knownSegments = List.of();
+
+    /**
+     * `knownBounds.get(i)` is the area covered by drawing `knownSegments.get(i)` (not including its
+     * control points).  Cached so that it is only computed once per segment.
+     */
+    private List<Rectangle> knownBounds = List.of();
+
+    /* Committed perimeter cache */
+
+    /**
+     * Layer on which `knownSegments` are drawn in our selection perimeter color (and which is
+     * transparent elsewhere), at our layer scale (see `layerScale()`).  Painting the perimeter
+     * draws this layer, which takes the same time no matter how many segments or vertices the
+     * selection has.  Only the tiles of segments that are added or removed are redrawn, and only
+     * tiles near our visible area are kept.  Null if there is no image, or if the layer must be
+     * created afresh for a new image or layer scale.
+     */
+    private TiledLayer perimeterLayer;
+
+    /**
+     * Computes live wires for our mouse locations on a background thread.
+     */
+    private final LiveWireService liveWireService = new LiveWireService(this::liveWireReady);
+
+    /* Pathfinding progress overlay */
+
+    /**
+     * Layer shading pixels by their status in the most recently observed pathfinding search, at
+     * our layer scale.  Kept between paints and updated in place as the search progresses, so
+     * that painting only needs to draw it.  As with `perimeterLayer`, only tiles near our visible
+     * area are kept.  Null if no search is being shown, or if the layer must be created afresh.
+     */
+    private TiledLayer progressOverlay;
+
+    /**
+     * The progress snapshot that `progressOverlay` reflects (or will once its tiles are rendered),
+     * or null if no search is being shown.
+     */
+    private ImagePathsSnapshot overlayProgress;
+
+    /**
+     * Records the user's interactions with our model, or null if they are not being recorded.
+     */
+    private SessionRecorder recorder;
+
     /**
      * Construct a new SelectionComponent that will participate in viewing and controlling the
      * selection modeled by `model`.  View will update upon receiving property change events from
@@ -105,14 +207,23 @@ public class SelectionComponent extends JComponent implements MouseListener, Mou
         model.addPropertyChangeListener(this);
 
         // Update our preferred size to match the image used by the new model
-        if (model.image() != null) {
-            setPreferredSize(new Dimension(model.image().getWidth(), model.image().getHeight()));
-        }
+        updatePreferredSize();
 
         // If we were in the process of moving a point, reset that interaction, since the selected
         // index may not be valid in the new model
         selectedIndex = -1;
 
+        // Progress shown for the old model's searches no longer applies
+        progressOverlay = null;
+        overlayProgress = null;
+
+        // Redraw the new model's whole selection
+        forgetSegments();
+        perimeterLayer = null;
+        updateKnownSegments();
+        resetLiveWire();
+        moveGuideBounds = null;
+
         // Model state has changed; update our view.
         repaint();
     }
@@ -125,18 +236,267 @@ public class SelectionComponent extends JComponent implements MouseListener, Mou
     }
 
     /**
-     * Record `p` as the most recent mouse pointer location and update the view.  If `p` is outside
+     * Record the user's subsequent interactions with our model to `newRecorder`, or stop recording
+     * them if it is null.  Mouse movement is recorded only when it would update a live wire or
+     * move guides.  Does not close any previous recorder.
+     */
+    public void setRecorder(SessionRecorder newRecorder) {
+        recorder = newRecorder;
+    }
+
+    /**
+     * Record that the user took `action` (which must not have a point) if we are recording.
+     * Actions taken from other components (such as buttons for undoing) should be recorded through
+     * this method as well, so that a recording has all of them in order.
+     */
+    public void record(Action action) {
+        if (recorder != null) {
+            recorder.record(action);
+        }
+    }
+
+    /**
+     * Record that the user took `action` at image location `p` if we are recording.
+     */
+    private void record(Action action, Point p) {
+        if (recorder != null) {
+            recorder.record(action, p);
+        }
+    }
+
+    /**
+     * Map mouse locations and draw as if the underlying image were displayed at `newScale` screen
+     * pixels per image pixel.
+     */
+    public void setScale(double newScale) {
+        if (Math.min(newScale, 1) != layerScale()) {
+            // Our layers were drawn at the old scale
+            perimeterLayer = null;
+            progressOverlay = null;
+        }
+        scale = newScale;
+        updatePreferredSize();
+        repaint();
+    }
+
+    /**
+     * Set our preferred size to the size of our model's image at our scale (if it has an image).
+     */
+    private void updatePreferredSize() {
+        BufferedImage img = model.image();
+        if (img != null) {
+            setPreferredSize(new Dimension((int) Math.ceil(img.getWidth() * scale),
+                    (int) Math.ceil(img.getHeight() * scale)));
+        }
+    }
+
+    /**
+     * Return the location of the image pixel containing the point `p` in our coordinates.
+     */
+    private Point toImage(Point p) {
+        return new Point((int) Math.floor(p.x / scale), (int) Math.floor(p.y / scale));
+    }
+    /**
+     * Record the image pixel at `p` (in our coordinates) as the most recent mouse pointer location
+     * and update the view.  If `p` is outside
      * of our model's image area, clamp `p`'s coordinates to the nearest edge of the image area.
      * This method does not modify or save a reference to `p` (meaning the client is free to mutate
      * it after this method returns, which Swing will do with Points used by MouseEvents).
      */
     private void updateMouseLocation(Point p) {
         // Clamp `p`'s coordinates to be within the image bounds and save them in our field
+        p = toImage(p);
         mouseLocation.x = Math.clamp(p.x, 0, model.image().getWidth()-1);
         mouseLocation.y = Math.clamp(p.y, 0, model.image().getHeight()-1) ;
 
-        // Update the view to reflect the new mouse location
-        repaint();
+        // Update the view to reflect the new mouse location.  The live wire is repainted when its
+        // path arrives from the background; for the move guides, repaint only what they covered
+        // before and cover now.
+        liveWireService.request(mouseLocation);
+        Rectangle guides = computeMoveGuideBounds();
+        repaintRegion(union(moveGuideBounds, guides));
+        moveGuideBounds = guides;
+    }
+
+    /**
+     * Show `line` as our live wire, repainting the areas covered by it and by the live wire it
+     * replaces.  Called on the EDT by `liveWireService`.
+     */
+    private void liveWireReady(PolyLine line) {
+        Rectangle damage = liveWireBounds;
+        liveWire = line;
+        liveWireBounds = (line != null) ? lineBounds(line) : null;
+        repaintRegion(union(damage, liveWireBounds));
+    }
+
+    /**
+     * Discard our live wire, since our model has changed, and request a new one from the model's
+     * current state (if it is SELECTING).  Return the area covered by the discarded live wire (null
+     * if none).
+     */
+    private Rectangle resetLiveWire() {
+        Rectangle damage = liveWireBounds;
+        liveWire = null;
+        liveWireBounds = null;
+        liveWireService.setFunction(model.liveWireFunction());
+        liveWireService.request(mouseLocation);
+        return damage;
+    }
+
+    /**
+     * Return the area covered by the move guides for the current mouse location, or null if no
+     * point is being moved.
+     */
+    private Rectangle computeMoveGuideBounds() {
+        Point[] anchors = moveGuideAnchors(model.selection());
+        if (anchors == null) {
+            return null;
+        }
+        Rectangle bounds = new Rectangle(mouseLocation);
+        bounds.add(anchors[0]);
+        bounds.add(anchors[1]);
+        bounds.grow(1, 1);
+        return bounds;
+    }
+
+    /**
+     * Return the area covered by drawing `line`, allowing a pixel of slack for the stroke.
+     */
+    private static Rectangle lineBounds(PolyLine line) {
+        Rectangle bounds = line.bounds();
+        bounds.grow(1, 1);
+        return bounds;
+    }
+
+    /**
+     * Return the smallest rectangle containing both `a` and `b`, either of which may be null
+     * (representing no area).
+     */
+    private static Rectangle union(Rectangle a, Rectangle b) {
+        if (a == null) {
+            return b;
+        } else if (b == null) {
+            return a;
+        }
+        return a.union(b);
+    }
+
+    /**
+     * Schedule a repaint of the area `r` (in image coordinates), or do nothing if `r` is null.
+     */
+    private void repaintRegion(Rectangle r) {
+        if (r != null) {
+            repaint(scaledBounds(r, scale));
+        }
+    }
+
+    /**
+     * Return the area covered by the area `r` of the image when drawn at `s` pixels per image
+     * pixel, padded by a pixel, since lines are at least that wide when zoomed out.
+     */
+    private static Rectangle scaledBounds(Rectangle r, double s) {
+        int x0 = (int) Math.floor(r.x * s) - 1;
+        int y0 = (int) Math.floor(r.y * s) - 1;
+        int x1 = (int) Math.ceil((r.x + r.width) * s) + 1;
+        int y1 = (int) Math.ceil((r.y + r.height) * s) + 1;
+        return new Rectangle(x0, y0, x1 - x0, y1 - y0);
+    }
+
+    /**
+     * Return the scale, in layer pixels per image pixel, of our cached layers: 1 at full size or
+     * larger (so that zooming in only enlarges their pixels), and otherwise our scale (so that
+     * lines stay a screen pixel wide rather than being dropped when the layer is shrunk).
+     */
+    private double layerScale() {
+        return Math.min(scale, 1);
+    }
+
+    /**
+     * Return a new layer covering our model's image at our layer scale, whose tiles are drawn by
+     * `renderer`.  Requires that our model has an image.
+     */
+    private TiledLayer newLayer(TiledLayer.TileRenderer renderer) {
+        BufferedImage img = model.image();
+        return new TiledLayer((int) Math.ceil(img.getWidth() * layerScale()),
+                (int) Math.ceil(img.getHeight() * layerScale()), renderer);
+    }
+
+    /**
+     * Return the image coordinate sampled by layer coordinate `l` along an axis of `size` image
+     * pixels (the image pixel at the layer pixel's center, as when shrinking an image without
+     * interpolation).
+     */
+    private int toImageCoordinate(int l, int size) {
+        return Math.min((int) ((l + 0.5) / layerScale()), size - 1);
+    }
+
+    /**
+     * Return the layer coordinate that samples image coordinate `c` along an axis of `size` image
+     * pixels and `layerSize` layer pixels, or -1 if no layer pixel samples it.
+     */
+    private int toLayerCoordinate(int c, int size, int layerSize) {
+        if (layerScale() == 1) {
+            return c;
+        }
+        int l = (int) Math.ceil(c * layerScale() - 0.5);
+        return (l < layerSize && toImageCoordinate(l, size) == c) ? l : -1;
+    }
+
+    /**
+     * Release the tiles of our layers that are far from our visible area, so that the memory they
+     * use is bounded by the size of the view rather than that of the image.
+     */
+    private void evictHiddenTiles() {
+        Rectangle visible = getVisibleRect();
+        double ratio = layerScale() / scale;
+        Rectangle keep = new Rectangle((int) Math.floor(visible.x * ratio),
+                (int) Math.floor(visible.y * ratio), (int) Math.ceil(visible.width * ratio) + 1,
+                (int) Math.ceil(visible.height * ratio) + 1);
+        keep.grow(TiledLayer.TILE_SIZE, TiledLayer.TILE_SIZE);
+        if (perimeterLayer != null) {
+            perimeterLayer.evictOutside(keep);
+        }
+        if (progressOverlay != null) {
+            progressOverlay.evictOutside(keep);
+        }
+    }
+
+    /**
+     * Return the margin, in image pixels, by which control points extend beyond the segment ends
+     * they are drawn at.  Depends on our scale, since control points keep their size on screen.
+     */
+    private int controlPointMargin() {
+        return (int) Math.ceil((controlPointRadius + 1) / scale);
+    }
+
+    /**
+     * Return a copy of `g` that draws in the coordinates of our layers: image coordinates (without
+     * interpolation) at full size or larger, and otherwise our own coordinates.
+     */
+    private Graphics2D layerGraphics(Graphics g) {
+        Graphics2D g2 = (Graphics2D) g.create();
+        if (scale > 1) {
+            g2.scale(scale, scale);
+            g2.setRenderingHint(RenderingHints.KEY_INTERPOLATION,
+                    RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR);
+        }
+        return g2;
+    }
+
+    /**
+     * Return a copy of `g` that draws lines in image coordinates, given that `g` draws `s` pixels
+     * per image pixel.  When zoomed, lines run through pixel centers and are one image pixel wide
+     * (but no less than one pixel of `g`), so that they cover the same pixels as they would at
+     * full size.
+     */
+    private static Graphics2D lineGraphics(Graphics g, double s) {
+        Graphics2D g2 = (Graphics2D) g.create();
+        if (s != 1) {
+            g2.scale(s, s);
+            g2.translate(0.5, 0.5);
+            g2.setStroke(new BasicStroke((float) Math.max(1, 1 / s)));
+        }
+        return g2;
     }
 
     /**
@@ -152,91 +512,183 @@ public class SelectionComponent extends JComponent implements MouseListener, Mou
      */
     @Override
     public void paintComponent(Graphics g) {
+        long paintStart = System.nanoTime();
         List<PolyLine> segments = model.selection();
+        Graphics2D layers = layerGraphics(g);
+        Graphics2D lines = lineGraphics(g, scale);
 
         // Draw perimeter
-        paintSelectionPerimeter(g, segments);
+        paintSelectionPerimeter(layers);
 
 
         // If dragging a point, draw guide lines
         if (isInteractingWithPoint() && mouseLocation != null) {
-            paintMoveGuides(g, segments);
+            paintMoveGuides(lines, segments);
         }
 
         // Draw live wire
         if (model.state() == SELECTING && mouseLocation != null) {
-            paintLiveWire(g);
+            paintLiveWire(lines);
         }
 
-        // Draw handles
+        // Draw handles (in our own coordinates, so that their size does not depend on scale)
         if (model.state() == SELECTED) {
             paintControlPoints(g, segments);
         }
 
         // New in A6: Paint processing progress (if we recognize its type)
-        if (model.state() == PROCESSING) {
-            Object progress = model.getProcessingProgress();
-            if (progress instanceof ImagePathsSnapshot) {
-                paintPathfindingProgress(g, (ImagePathsSnapshot) progress);
-            }
+        if (model.state() == PROCESSING && overlayProgress != null) {
+            paintPathfindingProgress(layers);
         }
+        layers.dispose();
+        lines.dispose();
+        evictHiddenTiles();
+        paintMetric.record(System.nanoTime() - paintStart);
     }
 
+    /**
+     * Shade image pixels according to their current path search status (settled, frontier, or
+     * undiscovered) by drawing our progress overlay, which `updateProgressOverlay()` keeps current,
+     * with `layers`.
+     */
+    private void paintPathfindingProgress(Graphics2D layers) {
+        if (progressOverlay == null) {
+            progressOverlay = newLayer(this::renderProgressTile);
+        }
+        progressOverlay.paint(layers);
+    }
 
+    /**
+     * Bring our progress overlay up to date with `progress`.  If `progress` continues the search
+     * the overlay already reflects, only the pixels settled since then (and their neighbors, which
+     * may have joined the frontier) are written, and only in tiles that are already rendered;
+     * otherwise the overlay is replaced by one whose tiles will be rendered from `progress` when
+     * painted.  Every frontier pixel is a neighbor of some settled pixel, so this shades the same
+     * pixels as examining the whole image would.  Return the area of the image whose shading
+     * changed, or null if none did.
+     */
+    private Rectangle updateProgressOverlay(ImagePathsSnapshot progress) {
+        BufferedImage img = model.image();
+        int width = img.getWidth();
+        int height = img.getHeight();
+        if (progressOverlay == null || overlayProgress == null
+                || !overlayProgress.sameSearch(progress)
+                || overlayProgress.settledCount() > progress.settledCount()) {
+            progressOverlay = newLayer(this::renderProgressTile);
+            overlayProgress = progress;
+            return new Rectangle(0, 0, width, height);
+        }
 
+        int layerWidth = progressOverlay.width();
+        int layerHeight = progressOverlay.height();
+        int minX = width;
+        int minY = height;
+        int maxX = -1;
+        int maxY = -1;
+        for (int i = overlayProgress.settledCount(); i < progress.settledCount(); ++i) {
+            int index = progress.settledPixel(i);
+            int y = index / width;
+            int x = index - y * width;
+            // Neighbors may also change, hence the margin of 1
+            minX = Math.min(minX, x - 1);
+            maxX = Math.max(maxX, x + 1);
+            minY = Math.min(minY, y - 1);
+            maxY = Math.max(maxY, y + 1);
+            for (int ny = Math.max(y - 1, 0); ny <= Math.min(y + 1, height - 1); ++ny) {
+                int ly = toLayerCoordinate(ny, height, layerHeight);
+                for (int nx = Math.max(x - 1, 0); nx <= Math.min(x + 1, width - 1); ++nx) {
+                    int lx = toLayerCoordinate(nx, width, layerWidth);
+                    if (lx < 0 || ly < 0 || !progressOverlay.isRendered(lx, ly)) {
+                        continue;
+                    }
+                    if (progress.settled(nx, ny)) {
+                        progressOverlay.setRGB(lx, ly, settledColor);
+                    } else if (progress.discovered(nx, ny)) {
+                        progressOverlay.setRGB(lx, ly, frontierColor);
+                    }
+                }
+            }
+        }
+        overlayProgress = progress;
+        return (maxX >= minX) ? new Rectangle(minX, minY, maxX - minX + 1, maxY - minY + 1) : null;
+    }
 
     /**
-     * Shade image pixels according to their current path search status (settled, frontier, or
-     * undiscovered).  Do nothing if there is no pending path solution.
-     */
-    private void paintPathfindingProgress(Graphics g, ImagePathsSnapshot pendingPaths) {
-        int settledColor = new Color(192, 192, 96, 128).getRGB();
-        int frontierColor = new Color(96, 96, 192, 128).getRGB();
-
-        Rectangle bounds = g.getClipBounds();
-        int width = Math.min(bounds.width, model.image().getWidth() - bounds.x);
-        int height = Math.min(bounds.height, model.image().getHeight() - bounds.y);
-
-        BufferedImage img = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
-        for (int x = bounds.x; x < bounds.x + width; ++x) {
-            for (int y = bounds.y; y < bounds.y + height; ++y) {
-                Point p = new Point(x, y);
-                if (pendingPaths.settled(p)) {
-                    img.setRGB(x - bounds.x, y - bounds.y, settledColor);
-                } else if (pendingPaths.discovered(p)) {
-                    img.setRGB(x - bounds.x, y - bounds.y, frontierColor);
+     * Shade the pixels of `tile` in our progress overlay `layer` by the status of the image pixels
+     * they sample in `overlayProgress`.
+     */
+    private void renderProgressTile(TiledLayer layer, Rectangle tile) {
+        ImagePathsSnapshot progress = overlayProgress;
+        if (progress == null) {
+            return;
+        }
+        BufferedImage img = model.image();
+        for (int ly = tile.y; ly < tile.y + tile.height; ++ly) {
+            int y = toImageCoordinate(ly, img.getHeight());
+            for (int lx = tile.x; lx < tile.x + tile.width; ++lx) {
+                int x = toImageCoordinate(lx, img.getWidth());
+                if (progress.settled(x, y)) {
+                    layer.setRGB(lx, ly, settledColor);
+                } else if (progress.discovered(x, y)) {
+                    layer.setRGB(lx, ly, frontierColor);
                 }
             }
         }
-        g.drawImage(img, bounds.x, bounds.y, null);
     }
 
-
-
-
     /**
-     * Draw on `g` along the selection path represented by `segments` using our selection perimeter
-     * color.
+     * Draw our model's selection path using our selection perimeter color, by drawing our
+     * perimeter layer with `layers`.  Only tiles whose segments changed since they were last
+     * painted (or that were evicted) are drawn segment by segment; at any zoom, the rest are
+     * simply copied.
      */
-    private void paintSelectionPerimeter(Graphics g, List<PolyLine> segments) {
-
-        g.setColor(selectionPerimeterColor);
-//        for (PolyLine segment: segments) {
-//            Point start = segment.start();
-//            Point end = segment.end();
-//            int[] xPoints = {start.x, end.x};
-//            int[] yPoints = {start.y, end.y};
-//            g.drawPolyline(xPoints, yPoints, 2);
-//        }
+    private void paintSelectionPerimeter(Graphics2D layers) {
+        if (perimeterLayer == null) {
+            if (model.image() == null) {
+                return;
+            }
+            perimeterLayer = newLayer(this::renderPerimeterTile);
+        }
+        perimeterLayer.paint(layers);
+    }
 
-        for (PolyLine segment : segments){
-            g.drawPolyline(segment.xs(),segment.ys(),segment.size());
+    /**
+     * Draw the known segments that pass through `tile` of our perimeter `layer`.  Nothing is
+     * allocated for tiles that no segment passes through.
+     */
+    private void renderPerimeterTile(TiledLayer layer, Rectangle tile) {
+        double s = layerScale();
+        // Lines are a layer pixel wide, which may be several image pixels
+        int slack = (int) Math.ceil(1 / s);
+        Rectangle area = new Rectangle((int) Math.floor(tile.x / s) - slack,
+                (int) Math.floor(tile.y / s) - slack, (int) Math.ceil(tile.width / s) + 2 * slack,
+                (int) Math.ceil(tile.height / s) + 2 * slack);
+        Graphics2D g = null;
+        for (int i = 0; i < knownSegments.size(); ++i) {
+            if (knownBounds.get(i).intersects(area)) {
+                if (g == null) {
+                    Graphics2D tileGraphics = layer.createGraphics(tile);
+                    g = lineGraphics(tileGraphics, s);
+                    tileGraphics.dispose();
+                    g.setColor(selectionPerimeterColor);
+                }
+                PolyLine segment = knownSegments.get(i);
+                g.drawPolyline(segment.xs(), segment.ys(), segment.size());
+            }
         }
+        if (g != null) {
+            g.dispose();
+        }
+    }
 
-        // TODO 3B: Implement this method as specified.
-        //  The Graphics API documentation [1] is essential to finding appropriate methods to draw
-        //  the segments and control their color.
-        //  [1] https://docs.oracle.com/en/java/javase/21/docs/api/java.desktop/java/awt/Graphics.html
+    /**
+     * Mark the area `region` of the image (if not null) as needing its perimeter redrawn when
+     * next painted.
+     */
+    private void invalidatePerimeter(Rectangle region) {
+        if (region != null && perimeterLayer != null) {
+            perimeterLayer.invalidate(scaledBounds(region, layerScale()));
+        }
     }
 
     /**
@@ -254,8 +706,9 @@ public class SelectionComponent extends JComponent implements MouseListener, Mou
 //        int[] yPoints = {start.y, end.y};
 //        g.drawPolyline(xPoints, yPoints, 2);
 
-        if(model.state()==SELECTING && mouseLocation != null){
-            PolyLine liveWirePath = model.liveWire(mouseLocation);
+        // The live wire is computed in the background by `liveWireService`; never compute it here
+        if(model.state()==SELECTING && liveWire != null){
+            PolyLine liveWirePath = liveWire;
             int[] xPoints = liveWirePath.xs();
             int[] yPoints = liveWirePath.ys();
             int nPoints = liveWirePath.size();
@@ -279,10 +732,10 @@ public class SelectionComponent extends JComponent implements MouseListener, Mou
 
         for (PolyLine line :segments){
 
-            Point point = line.start();
+            Point point = toScreen(line.start());
             g.fillOval(point.x-controlPointRadius,point.y-controlPointRadius,
                     controlPointRadius*2,controlPointRadius*2);
-            point = line.end();
+            point = toScreen(line.end());
             g.fillOval(point.x-controlPointRadius,point.y-controlPointRadius,
                     controlPointRadius*2,controlPointRadius*2);
         }
@@ -290,6 +743,15 @@ public class SelectionComponent extends JComponent implements MouseListener, Mou
 
     }
 
+    /**
+     * Return the point in our coordinates at the center of the image pixel at `p`.  At full size,
+     * this is `p` itself.
+     */
+    private Point toScreen(Point p) {
+        return new Point((int) Math.round((p.x + 0.5) * scale - 0.5),
+                (int) Math.round((p.y + 0.5) * scale - 0.5));
+    }
+
     /**
      * Draw straight lines on `g` connecting our last-known mouse pointer location to the control
      * points before and after our selected point.  Requires `selectedIndex` is in
@@ -297,30 +759,35 @@ public class SelectionComponent extends JComponent implements MouseListener, Mou
      */
     private void paintMoveGuides(Graphics g, List<PolyLine> segments) {
         // TODO 4G: Implement this method as specified.
-        if (selectedIndex < 0 || selectedIndex >= segments.size()) {
-            return;
-        }
-
-        if (isInteractingWithPoint()) {
+        Point[] anchors = moveGuideAnchors(segments);
+        if (anchors != null) {
             g.setColor(liveWireColor);
 
+            Point precedingPoint = anchors[0];
+            Point followingPoint = anchors[1];
 
-            int precedingIndex = selectedIndex == 0 ? segments.size() - 1 : (selectedIndex - 1);
-            int followingIndex = selectedIndex == (segments.size() - 1) ? 0 : (selectedIndex + 1);
-
-
-            PolyLine precedingSegment = segments.get(precedingIndex);
-            PolyLine followingSegment = segments.get(followingIndex);
+            g.drawLine(precedingPoint.x, precedingPoint.y, mouseLocation.x, mouseLocation.y);
 
+            g.drawLine(mouseLocation.x, mouseLocation.y, followingPoint.x, followingPoint.y);
+        }
+    }
 
-            Point precedingPoint = precedingSegment.start();
-            Point followingPoint = followingSegment.end();
+    /**
+     * Return the control points {before, after} our selected point that the move guides connect
+     * the mouse pointer to, or null if we are not interacting with a point in `segments`.
+     */
+    private Point[] moveGuideAnchors(List<PolyLine> segments) {
+        if (!isInteractingWithPoint() || selectedIndex >= segments.size()) {
+            return null;
+        }
 
+        int precedingIndex = selectedIndex == 0 ? segments.size() - 1 : (selectedIndex - 1);
+        int followingIndex = selectedIndex == (segments.size() - 1) ? 0 : (selectedIndex + 1);
 
-            g.drawLine(precedingPoint.x, precedingPoint.y, mouseLocation.x, mouseLocation.y);
+        PolyLine precedingSegment = segments.get(precedingIndex);
+        PolyLine followingSegment = segments.get(followingIndex);
 
-            g.drawLine(mouseLocation.x, mouseLocation.y, followingPoint.x, followingPoint.y);
-        }
+        return new Point[]{precedingSegment.start(), followingSegment.end()};
     }
 
 
@@ -344,16 +811,20 @@ public class SelectionComponent extends JComponent implements MouseListener, Mou
         if (e.getButton() == MouseEvent.BUTTON1) {
 
             if (model.state() == SELECTING || model.state() == NO_SELECTION) {
-                model.addPoint(e.getPoint());
+                Point p = toImage(e.getPoint());
+                record(Action.ADD_POINT, p);
+                model.addPoint(p);
             }
         } else if (e.getButton() == MouseEvent.BUTTON2) {
 
             if (model.state() == SELECTING) {
+                record(Action.FINISH);
                 model.finishSelection();
             }
         } else if (e.getButton() == MouseEvent.BUTTON3) {
 
             if (model.state() == SELECTING || model.state() == SELECTED) {
+                record(Action.UNDO);
                 model.undo();
             }
         }
@@ -368,6 +839,7 @@ public class SelectionComponent extends JComponent implements MouseListener, Mou
     public void mouseMoved(MouseEvent e) {
         if (model.state() == SELECTING) {
             updateMouseLocation(e.getPoint());
+            record(Action.MOVE, mouseLocation);
         }
     }
 
@@ -381,6 +853,7 @@ public class SelectionComponent extends JComponent implements MouseListener, Mou
     public void mouseDragged(MouseEvent e) {
         if (model.state() == SELECTING || isInteractingWithPoint()) {
             updateMouseLocation(e.getPoint());
+            record(Action.DRAG, mouseLocation);
         }
     }
 
@@ -397,8 +870,11 @@ public class SelectionComponent extends JComponent implements MouseListener, Mou
 
         if(e.getButton() == MouseEvent.BUTTON1){
             if(model.state() == SELECTED){
-                int maxDistanceSq = controlPointRadius * controlPointRadius;
-                Point clickPoint = e.getPoint();
+                // Control points keep their size on screen, so the tolerance in image pixels
+                // depends on our scale
+                double maxDistance = controlPointRadius / scale;
+                int maxDistanceSq = (int) Math.ceil(maxDistance * maxDistance);
+                Point clickPoint = toImage(e.getPoint());
                 int closestIndex = model.closestPoint(clickPoint, maxDistanceSq);
                 if (closestIndex != -1) { // Valid control point found within the threshold
                     selectedIndex = closestIndex; // Select this control point
@@ -416,6 +892,9 @@ public class SelectionComponent extends JComponent implements MouseListener, Mou
     @Override
     public void mouseReleased(MouseEvent e) {
         if (e.getButton() == MouseEvent.BUTTON1 && isInteractingWithPoint()) {
+            if (recorder != null) {
+                recorder.recordMovePoint(selectedIndex, mouseLocation);
+            }
             model.movePoint(selectedIndex, mouseLocation);
             // No need to call `repaint()` ourselves, since moving the point will trigger a property
             // change, which will then trigger a repaint when we observe it.
@@ -431,20 +910,113 @@ public class SelectionComponent extends JComponent implements MouseListener, Mou
      */
     @Override
     public void propertyChange(PropertyChangeEvent e) {
-        // If model image changed, update preferred size
-        if (e.getPropertyName().equals("image") && e.getNewValue() != null) {
-            BufferedImage img = (BufferedImage) e.getNewValue();
-            setPreferredSize(new Dimension(img.getWidth(), img.getHeight()));
+        // If model image changed, update preferred size and discard progress for the old image
+        if (e.getPropertyName().equals("image")) {
+            progressOverlay = null;
+            overlayProgress = null;
+            forgetSegments();
+            perimeterLayer = null;
+            updatePreferredSize();
         }
 
+        // Changes to the selection or to pathfinding progress only affect part of our view, so
+        // we repaint just the areas that changed for those.  Anything else (such as a change of
+        // state, which can show or hide whole layers) repaints everything.
+        Rectangle damage = null;
+        boolean repaintAll = !e.getPropertyName().equals("selection")
+                && !e.getPropertyName().equals("progress");
+
         // If the model's selection changed while we are interacting with a control point, cancel
         // that interaction (since our selected index may no longer be valid).
         if (e.getPropertyName().equals("selection")) {
             selectedIndex = -1;
+            damage = moveGuideBounds;
+            moveGuideBounds = null;
         }
 
-        // If any property of the model changed, repaint to update view
-        repaint();
+        // Bring our cached perimeter up to date with the selection.  This is not limited to
+        // "selection" events, since segments may also be added along with a change of state.
+        if (!e.getPropertyName().equals("progress")) {
+            Rectangle changed = updateKnownSegments();
+            invalidatePerimeter(changed);
+            if (changed != null) {
+                // Control points at the ends of changed segments need repainting too
+                changed.grow(controlPointMargin(), controlPointMargin());
+                damage = union(damage, changed);
+            }
+        }
+
+        // Fold any new pathfinding progress into our overlay (the model reports progress via
+        // "progress" events and enters PROCESSING via "state" events)
+        if (model.state() == PROCESSING
+                && model.getProcessingProgress() instanceof ImagePathsSnapshot progress) {
+            damage = union(damage, updateProgressOverlay(progress));
+        } else if (model.state() != PROCESSING && overlayProgress != null) {
+            // Release the finished search's snapshot and the overlay showing it
+            progressOverlay = null;
+            overlayProgress = null;
+            repaintAll = true;
+        }
+
+        // The live wire depends on both the selection and the state (but not on progress)
+        if (!e.getPropertyName().equals("progress")) {
+            damage = union(damage, resetLiveWire());
+        }
+
+        if (repaintAll) {
+            repaint();
+        } else {
+            repaintRegion(damage);
+        }
+    }
+
+    /**
+     * Record our model's current selection as the known one, and return the area covered by the
+     * segments (not including their control points) that were added to or removed from the
+     * selection since it was last recorded, or null if none were.  Segments are compared by
+     * identity, since models replace rather than mutate the segments that change.
+     */
+    private Rectangle updateKnownSegments() {
+        List<PolyLine> segments = model.selection();
+        // Maps each previously known segment to its cached bounds; entries still in the selection
+        // are removed below, leaving those of the removed segments
+        Map<PolyLine, Rectangle> removed = new IdentityHashMap<>();
+        for (int i = 0; i < knownSegments.size(); ++i) {
+            removed.put(knownSegments.get(i), knownBounds.get(i));
+        }
+
+        Rectangle damage = null;
+        List<Rectangle> bounds = new ArrayList<>(segments.size());
+        for (PolyLine segment : segments) {
+            Rectangle b = removed.remove(segment);
+            if (b == null) {
+                b = segmentBounds(segment);
+                damage = union(damage, b);
+            }
+            bounds.add(b);
+        }
+        for (Rectangle b : removed.values()) {
+            damage = union(damage, b);
+        }
+        knownSegments = List.copyOf(segments);
+        knownBounds = bounds;
+        return damage;
+    }
+
+    /**
+     * Forget our known segments, so that the next call to `updateKnownSegments()` treats the whole
+     * selection as new.
+     */
+    private void forgetSegments() {
+        knownSegments = List.of();
+        knownBounds = List.of();
+    }
+
+    /**
+     * Return the area covered by drawing `segment` (not including its control points).
+     */
+    private Rectangle segmentBounds(PolyLine segment) {
+        return lineBounds(segment);
     }
 
     @Override
@@ -13,6 +13,7 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.function.Function;
 import javax.imageio.ImageIO;
 import javax.swing.event.SwingPropertyChangeSupport;
 
@@ -203,6 +204,14 @@ public abstract class SelectionModel {
      */
     public abstract PolyLine liveWire(Point p);
 
+    /**
+     * Return a function that computes `liveWire(p)` for the selection as it is now, or null if we
+     * are not SELECTING.  Unlike `liveWire()`, the returned function may be called from any thread,
+     * and later changes to this model do not affect its results.  Must be called from the EDT if
+     * this model notifies on the EDT.
+     */
+    public abstract Function<Point, PolyLine> liveWireFunction();
+
     /**
      * If we are still processing the most recently added point, cancel that operation.  Otherwise,
      * remove the last segment from the selection path.  If the selection path does not contain any
@@ -307,6 +316,15 @@ public abstract class SelectionModel {
         if (state != SELECTED) {
             throw new IllegalStateException("Must complete selection before saving");
         }
+        ImageIO.write(cutout(img, selection), "png", out);
+    }
+
+    /**
+     * Return an image containing the pixels of `img` enclosed by the closed sequence of
+     * poly-lines `selection`.  The size of the image matches the bounding box of the selection,
+     * and pixels outside of the selection are transparent.  Requires `selection` is non-empty.
+     */
+    public static BufferedImage cutout(BufferedImage img, List<PolyLine> selection) {
         Polygon clip = PolyLine.makePolygon(selection);
         Rectangle bounds = clip.getBounds();
         clip.translate(-bounds.x, -bounds.y);
@@ -315,7 +333,8 @@ public abstract class SelectionModel {
         var g = dst.createGraphics();
         g.setClip(clip);
         g.drawImage(img, -bounds.x, -bounds.y, null);
-        ImageIO.write(dst, "png", out);
+        g.dispose();
+        return dst;
     }
 
     /* Specialization interface */
@@ -7,18 +7,33 @@ import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.awt.event.InputEvent;
 import java.awt.event.KeyEvent;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
 import java.awt.image.BufferedImage;
 import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
 import java.io.*;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
 import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.event.IIOReadProgressListener;
+import javax.imageio.stream.ImageInputStream;
 import javax.swing.*;
 import javax.swing.filechooser.FileNameExtensionFilter;
+import metrics.OperationLog;
 import selector.SelectionModel.SelectionState;
+import selector.SessionRecording.Action;
 import scissors.ScissorsSelectionModel;
 
 /**
  * A graphical application for selecting and extracting regions of images.
+ * <p>
+ * If the system property `selector.operationLog` names a file, a performance record of each
+ * solve, cost map build and save is appended to it as a line of JSON (see `OperationLog`).
  */
 public class SelectorApp implements PropertyChangeListener {
 
@@ -40,12 +55,18 @@ public class SelectorApp implements PropertyChangeListener {
     /* Components whose state must be changed during the selection process. */
     private JMenuItem saveItem;
     private JMenuItem undoItem;
+    private JMenuItem recordItem;
     private JButton cancelButton;
     private JButton undoButton;
     private JButton resetButton;
     private JButton finishButton;
     private final JLabel statusLabel;
 
+    /**
+     * Overlay of live performance metrics, toggled from the View menu.
+     */
+    private final PerformanceHud hud;
+
 
     // New in A6
     /**
@@ -54,6 +75,36 @@ public class SelectorApp implements PropertyChangeListener {
      */
     private JProgressBar processingProgress;
 
+    /**
+     * The worker currently loading an image chosen by the user, or null if no image is being
+     * loaded.  Workers whose loads have been superseded must not change our state.
+     */
+    private ImageLoadWorker loader;
+
+    /**
+     * The time in milliseconds from starting the current selection until its first live wire was
+     * available, as last reported by our model, or null if not reported since the model or image
+     * last changed.  Shown in the status bar while selecting.
+     */
+    private Long firstLiveWireMillis;
+
+    /**
+     * Records the user's interactions with the current image to a file chosen by them, or null if
+     * no session is being recorded.  Recording stops when the image changes.
+     */
+    private SessionRecorder recorder;
+
+    /**
+     * The log that performance records of operations are appended to, or null if none.
+     */
+    private OperationLog operationLog;
+
+    /**
+     * Images larger than this (in pixels along either axis) are first shown as a subsampled preview
+     * no larger than this while the full image is decoded.
+     */
+    private static final int PREVIEW_SIZE = 1024;
+
 
     /**
      * Construct a new application instance.  Initializes GUI components, so must be invoked on the
@@ -64,6 +115,17 @@ public class SelectorApp implements PropertyChangeListener {
         // Initialize application window
         frame = new JFrame("Selector");
         frame.setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
+        // Don't lose the buffered end of a recording when the window is closed while recording
+        frame.addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosed(WindowEvent e) {
+                // Also stops recording, and releases the image and the cost maps built for it
+                setImage(null);
+                stopOperationLog();
+                // Stop its refresh timer so that it doesn't keep the application running
+                hud.setVisible(false);
+            }
+        });
         // New in A6: Add progress bar
         processingProgress = new JProgressBar();
         frame.add(processingProgress, BorderLayout.PAGE_START);
@@ -91,8 +153,15 @@ public class SelectorApp implements PropertyChangeListener {
         frame.add(imgPanel,BorderLayout.CENTER);  // Replace this line
         JScrollPane scrollPane = new JScrollPane(imgPanel);
         scrollPane.setPreferredSize(new Dimension(500,500));
+        // Scroll by a useful amount per mouse wheel notch
+        scrollPane.getVerticalScrollBar().setUnitIncrement(16);
+        scrollPane.getHorizontalScrollBar().setUnitIncrement(16);
         frame.add(scrollPane,BorderLayout.CENTER);
 
+        // Add performance overlay (hidden until toggled from the View menu)
+        hud = new PerformanceHud();
+        frame.setGlassPane(hud);
+
         // Add menu bar
         frame.setJMenuBar(makeMenuBar());
 
@@ -122,6 +191,8 @@ public class SelectorApp implements PropertyChangeListener {
         fileMenu.add(saveItem);
         JMenuItem closeItem = new JMenuItem("Close");
         fileMenu.add(closeItem);
+        recordItem = new JMenuItem("Record session...");
+        fileMenu.add(recordItem);
         JMenuItem exitItem = new JMenuItem("Exit");
         fileMenu.add(exitItem);
 
@@ -131,15 +202,46 @@ public class SelectorApp implements PropertyChangeListener {
         undoItem = new JMenuItem("Undo");
         editMenu.add(undoItem);
 
+        // Create and populate View menu (Ctrl+mouse wheel also zooms)
+        JMenu viewMenu = new JMenu("View");
+        menuBar.add(viewMenu);
+        int shortcutMask = Toolkit.getDefaultToolkit().getMenuShortcutKeyMaskEx();
+        JMenuItem zoomInItem = new JMenuItem("Zoom in");
+        zoomInItem.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_EQUALS, shortcutMask));
+        viewMenu.add(zoomInItem);
+        JMenuItem zoomOutItem = new JMenuItem("Zoom out");
+        zoomOutItem.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_MINUS, shortcutMask));
+        viewMenu.add(zoomOutItem);
+        JMenuItem actualSizeItem = new JMenuItem("Actual size");
+        actualSizeItem.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_0, shortcutMask));
+        viewMenu.add(actualSizeItem);
+        viewMenu.addSeparator();
+        JCheckBoxMenuItem hudItem = new JCheckBoxMenuItem("Performance HUD");
+        viewMenu.add(hudItem);
+
         // TODO (embellishment): Assign keyboard shortcuts to menu items [1].  (1 point)
         //  [1] https://docs.oracle.com/javase/tutorial/uiswing/components/menu.html#mnemonic
 
         // Controller: Attach menu item listeners
         openItem.addActionListener(e -> openImage());
-        closeItem.addActionListener(e -> imgPanel.setImage(null));
+        closeItem.addActionListener(e -> setImage(null));
         saveItem.addActionListener(e -> saveSelection());
+        recordItem.addActionListener(e -> {
+            if (recorder == null) {
+                startRecording();
+            } else {
+                stopRecording();
+            }
+        });
         exitItem.addActionListener(e -> frame.dispose());
-        undoItem.addActionListener(e -> model.undo());
+        undoItem.addActionListener(e -> {
+            imgPanel.record(Action.UNDO);
+            model.undo();
+        });
+        zoomInItem.addActionListener(e -> imgPanel.zoom(2));
+        zoomOutItem.addActionListener(e -> imgPanel.zoom(0.5));
+        actualSizeItem.addActionListener(e -> imgPanel.zoomToActualSize());
+        hudItem.addActionListener(e -> hud.setVisible(hudItem.isSelected()));
 
         return menuBar;
     }
@@ -165,8 +267,12 @@ public class SelectorApp implements PropertyChangeListener {
         String option1 = "PointToPointSelectionModel";
         String option2 = "Intelligent scissors: gray";
         String option3 = "Intelligent scissors: color";
+        String option4 = "Intelligent scissors: classic";
+        String option5 = "Intelligent scissors: trained";
+        String option6 = "Intelligent scissors: multi-scale";
+        String option7 = "Intelligent scissors: perceptual color";
 
-        String[] options = {option1,option2,option3};
+        String[] options = {option1,option2,option3,option4,option5,option6,option7};
 
         JComboBox<String> dropDown = new JComboBox<>(options);
 
@@ -177,11 +283,23 @@ public class SelectorApp implements PropertyChangeListener {
         panel.add(finishButton);
         panel.add(dropDown);
 
-        cancelButton.addActionListener(e -> model.cancelProcessing());
-        undoButton.addActionListener(e -> model.undo());
+        cancelButton.addActionListener(e -> {
+            imgPanel.record(Action.CANCEL);
+            model.cancelProcessing();
+        });
+        undoButton.addActionListener(e -> {
+            imgPanel.record(Action.UNDO);
+            model.undo();
+        });
 
-        resetButton.addActionListener(e -> model.reset());
-        finishButton.addActionListener(e -> model.finishSelection());
+        resetButton.addActionListener(e -> {
+            imgPanel.record(Action.RESET);
+            model.reset();
+        });
+        finishButton.addActionListener(e -> {
+            imgPanel.record(Action.FINISH);
+            model.finishSelection();
+        });
 
 
 
@@ -201,6 +319,18 @@ public class SelectorApp implements PropertyChangeListener {
             } else if (selectedOption.equals(option3)) {
                 SelectionModel newModel = new ScissorsSelectionModel("ColorAware", model);
                 setSelectionModel(newModel);
+            } else if (selectedOption.equals(option4)) {
+                SelectionModel newModel = new ScissorsSelectionModel("MortensenBarrett", model);
+                setSelectionModel(newModel);
+            } else if (selectedOption.equals(option5)) {
+                SelectionModel newModel = new ScissorsSelectionModel("Trained", model);
+                setSelectionModel(newModel);
+            } else if (selectedOption.equals(option6)) {
+                SelectionModel newModel = new ScissorsSelectionModel("MultiScale", model);
+                setSelectionModel(newModel);
+            } else if (selectedOption.equals(option7)) {
+                SelectionModel newModel = new ScissorsSelectionModel("Lab", model);
+                setSelectionModel(newModel);
             }
 
 
@@ -220,17 +350,63 @@ public class SelectorApp implements PropertyChangeListener {
         frame.pack();
 
         frame.setVisible(true);
+        startOperationLog();
+    }
+
+    /**
+     * Start appending performance records of operations to the file named by the system property
+     * `selector.operationLog`, if it is set.  Show an error message dialog if the file could not
+     * be opened.
+     */
+    private void startOperationLog() {
+        String path = System.getProperty("selector.operationLog");
+        if (path == null || path.isEmpty()) {
+            return;
+        }
+        try {
+            operationLog = new OperationLog(new FileOutputStream(path, true));
+        } catch (IOException e) {
+            JOptionPane.showMessageDialog(frame, "Unable to log operations to " + path + ".\n"
+                    + e.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        OperationLog.install(operationLog);
+    }
+
+    /**
+     * Stop logging operations, if they are being logged, and finish writing the log.  Show an
+     * error message dialog if any of it could not be written.
+     */
+    private void stopOperationLog() {
+        if (operationLog == null) {
+            return;
+        }
+        OperationLog.install(null);
+        try {
+            operationLog.close();
+        } catch (IOException e) {
+            JOptionPane.showMessageDialog(frame, "The operation log is incomplete.\n"
+                    + e.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+        } finally {
+            operationLog = null;
+        }
     }
 
     /**
      * React to property changes in an observed model.  Supported properties include:
      * * "state": Update components to reflect the new selection state.
+     * * "first-live-wire-millis": Show how long the selection took to become ready in the status
+     *   bar.
      */
     @Override
     public void propertyChange(PropertyChangeEvent evt) {
         if ("state".equals(evt.getPropertyName())) {
                 reflectSelectionState(model.state());
         }
+        if ("first-live-wire-millis".equals(evt.getPropertyName())) {
+            firstLiveWireMillis = (Long) evt.getNewValue();
+            reflectSelectionState(model.state());
+        }
 
         // TODO A6.0b: Update the progress bar [1] as follows:
         //  * When the model transitions into the PROCESSING state, set the progress bar to
@@ -264,8 +440,12 @@ public class SelectorApp implements PropertyChangeListener {
      * whose actions are invalid in that state, and update the status bar.
      */
     private void reflectSelectionState(SelectionState state) {
-        // Update status bar to show current state
-        statusLabel.setText(state.toString());
+        // Update status bar to show current state (and how quickly the selection became ready)
+        if (state == SELECTING && firstLiveWireMillis != null) {
+            statusLabel.setText(state + " (first live wire in " + firstLiveWireMillis + " ms)");
+        } else {
+            statusLabel.setText(state.toString());
+        }
 
         cancelButton.setEnabled(state == PROCESSING);
         undoButton.setEnabled(state != NO_SELECTION);
@@ -305,6 +485,8 @@ public class SelectorApp implements PropertyChangeListener {
         model = imgPanel.selection();
         model.addPropertyChangeListener("state", this);
         model.addPropertyChangeListener("progress", this);
+        model.addPropertyChangeListener("first-live-wire-millis", this);
+        firstLiveWireMillis = null;
 
         // Since the new model's initial state may be different from the old model's state, manually
         //  trigger an update to our state-dependent view.
@@ -316,9 +498,73 @@ public class SelectorApp implements PropertyChangeListener {
      * null, in which case no image is displayed and the current selection is reset.
      */
     public void setImage(BufferedImage img) {
+        // An image set directly supersedes any that is still loading
+        if (loader != null) {
+            loader.cancel(false);
+            loader = null;
+        }
+        stopRecording();
+        firstLiveWireMillis = null;
+        // Cost maps built for the previous image are no longer needed, even if the current model
+        //  does not use them
+        ScissorsSelectionModel.releaseSharedWeighers();
         imgPanel.setImage(img);
     }
 
+    /**
+     * Allow the user to choose a file from a "save" dialog and start recording their interactions
+     * with the current image to it (see `SessionRecording`).  Show an error message dialog if
+     * there is no image or the file could not be created.
+     */
+    private void startRecording() {
+        BufferedImage img = imgPanel.image();
+        if (img == null) {
+            JOptionPane.showMessageDialog(frame, "Open an image to record a session with.",
+                    "No Image", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        JFileChooser chooser = new JFileChooser();
+        chooser.setCurrentDirectory(new File(System.getProperty("user.dir")));
+        chooser.setFileFilter(new FileNameExtensionFilter("Recorded sessions", "session"));
+        if (chooser.showSaveDialog(frame) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        File file = chooser.getSelectedFile();
+        if (!file.getName().toLowerCase().endsWith(".session")) {
+            file = new File(file.getParentFile(), file.getName() + ".session");
+        }
+        try {
+            recorder = new SessionRecorder(new FileOutputStream(file), img.getWidth(),
+                    img.getHeight());
+        } catch (IOException e) {
+            JOptionPane.showMessageDialog(frame, "Unable to record to " + file.getName() + ".\n"
+                    + e.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        imgPanel.setRecorder(recorder);
+        recordItem.setText("Stop recording");
+    }
+
+    /**
+     * Stop recording the current session, if one is being recorded, and finish writing its file.
+     * Show an error message dialog if any of it could not be written.
+     */
+    private void stopRecording() {
+        if (recorder == null) {
+            return;
+        }
+        imgPanel.setRecorder(null);
+        recordItem.setText("Record session...");
+        try {
+            recorder.close();
+        } catch (IOException e) {
+            JOptionPane.showMessageDialog(frame, "The recorded session is incomplete.\n"
+                    + e.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+        } finally {
+            recorder = null;
+        }
+    }
+
     /**
      * Allow the user to choose a new image from an "open" dialog.  If they do, start displaying and
      * selecting from that image.  Show an error message dialog (and retain any previous image) if
@@ -347,17 +593,22 @@ public class SelectorApp implements PropertyChangeListener {
         //  chooser, the dialog will show the same directory as before the problem. (1 point)
 
 
-        try {
-            int returnVal = chooser.showOpenDialog(frame);
-            File file = chooser.getSelectedFile();
-            BufferedImage img = ImageIO.read(file);
-            this.setImage(img);
+        int returnVal = chooser.showOpenDialog(frame);
+        if (returnVal != JFileChooser.APPROVE_OPTION) {
+            return;
         }
-        catch (Exception e) {
-            JOptionPane.showMessageDialog(frame, "Unable to open image file, try again",
-                    "Unsupported Type",
-                    JOptionPane.ERROR_MESSAGE);
+        File file = chooser.getSelectedFile();
+
+        // Decode in the background (showing a preview first) so that the UI stays responsive;
+        // errors are reported when the worker finishes
+        if (loader != null) {
+            loader.cancel(false);
         }
+        stopRecording();
+        loader = new ImageLoadWorker(file);
+        statusLabel.setText("Loading " + file.getName() + "...");
+        processingProgress.setIndeterminate(true);
+        loader.execute();
 
 
 
@@ -445,4 +696,162 @@ public class SelectorApp implements PropertyChangeListener {
             app.start();
         });
     }
+
+    /**
+     * SwingWorker for decoding an image file in the background.  If the image is large, it first
+     * decodes and publishes a subsampled preview (which is much faster to decode), then decodes the
+     * full image while reporting progress.  Returns the full image.
+     */
+    private class ImageLoadWorker extends SwingWorker<BufferedImage, BufferedImage> {
+
+        /**
+         * The file to load.
+         */
+        private final File file;
+
+        /**
+         * The factor by which the published preview was subsampled along each axis.  Written by
+         * the background thread before publishing the preview.
+         */
+        private volatile int subsampling = 1;
+
+        ImageLoadWorker(File file) {
+            this.file = file;
+            addPropertyChangeListener(e -> {
+                if ("progress".equals(e.getPropertyName()) && loader == this) {
+                    processingProgress.setIndeterminate(false);
+                    processingProgress.setValue((Integer) e.getNewValue());
+                }
+            });
+        }
+
+        /**
+         * Decode `file`, publishing a preview first if it is larger than `PREVIEW_SIZE`.  Throws
+         * IOException if the file cannot be read or is not in a supported format.  Returns null if
+         * cancelled.
+         */
+        @Override
+        protected BufferedImage doInBackground() throws IOException {
+            try (ImageInputStream in = ImageIO.createImageInputStream(file)) {
+                if (in == null) {
+                    throw new IOException("Cannot read " + file);
+                }
+                Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+                if (!readers.hasNext()) {
+                    throw new IOException("Unsupported image format: " + file.getName());
+                }
+                ImageReader reader = readers.next();
+                try {
+                    reader.setInput(in);
+                    int size = Math.max(reader.getWidth(0), reader.getHeight(0));
+                    int factor = Math.ceilDiv(size, PREVIEW_SIZE);
+                    if (factor > 1) {
+                        ImageReadParam param = reader.getDefaultReadParam();
+                        param.setSourceSubsampling(factor, factor, 0, 0);
+                        BufferedImage preview = reader.read(0, param);
+                        subsampling = factor;
+                        publish(preview);
+                    }
+                    if (isCancelled()) {
+                        return null;
+                    }
+
+                    reader.addIIOReadProgressListener(new ProgressListener());
+                    return reader.read(0);
+                } finally {
+                    reader.dispose();
+                }
+            }
+        }
+
+        /**
+         * Show the preview, if we are still the active loader.  This is executed on the EDT.
+         */
+        @Override
+        protected void process(List<BufferedImage> previews) {
+            if (loader == this) {
+                imgPanel.setPreview(previews.getLast(), subsampling);
+            }
+        }
+
+        /**
+         * If we are still the active loader, start displaying and selecting from the full image,
+         * or show an error dialog if it could not be loaded.  This is executed on the EDT.
+         */
+        @Override
+        protected void done() {
+            if (loader != this) {
+                return;
+            }
+            loader = null;
+            processingProgress.setIndeterminate(false);
+            processingProgress.setValue(0);
+            try {
+                BufferedImage img = get();
+                if (img == null) {
+                    throw new IOException("Unable to decode " + file.getName());
+                }
+                setImage(img);
+            } catch (CancellationException | InterruptedException e) {
+                // Superseded; nothing to do
+            } catch (ExecutionException | IOException e) {
+                // Don't leave a preview of an image that can't be selected from
+                if (imgPanel.selection().image() == null) {
+                    imgPanel.setImage(null);
+                }
+                Throwable cause = (e instanceof ExecutionException) ? e.getCause() : e;
+                JOptionPane.showMessageDialog(frame,
+                        "Unable to open image file, try again.\n" + cause.getMessage(),
+                        "Unsupported Type", JOptionPane.ERROR_MESSAGE);
+            }
+            reflectSelectionState(model.state());
+        }
+
+        /**
+         * Reports decoding progress as our progress, and aborts decoding if we are cancelled.
+         */
+        private class ProgressListener implements IIOReadProgressListener {
+
+            @Override
+            public void imageProgress(ImageReader source, float percentageDone) {
+                if (isCancelled()) {
+                    source.abort();
+                } else {
+                    setProgress(Math.clamp((int) percentageDone, 0, 100));
+                }
+            }
+
+            @Override
+            public void sequenceStarted(ImageReader source, int minIndex) {
+            }
+
+            @Override
+            public void sequenceComplete(ImageReader source) {
+            }
+
+            @Override
+            public void imageStarted(ImageReader source, int imageIndex) {
+            }
+
+            @Override
+            public void imageComplete(ImageReader source) {
+            }
+
+            @Override
+            public void thumbnailStarted(ImageReader source, int imageIndex, int thumbnailIndex) {
+            }
+
+            @Override
+            public void thumbnailProgress(ImageReader source, float percentageDone) {
+            }
+
+            @Override
+            public void thumbnailComplete(ImageReader source) {
+            }
+
+            @Override
+            public void readAborted(ImageReader source) {
+            }
+        }
+    }
 }
@@ -0,0 +1,133 @@
+package selector;
+
+import java.awt.Point;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import selector.SessionRecording.Action;
+
+/**
+ * Records a user's selection session to a stream in the format read by `SessionRecording`.
+ * Recording must not disturb the interaction being recorded, so `record()` never throws: if
+ * writing fails, recording stops and the failure is reported by `close()`.  All methods must be
+ * called from the same thread (the EDT, for a recorder attached to a `SelectionComponent`).
+ */
+public class SessionRecorder implements Closeable {
+
+    /**
+     * The stream events are written to.  Buffered, so that recording mouse movement does not
+     * write to the underlying stream for every event.
+     */
+    private final DataOutputStream out;
+
+    /**
+     * The time of the previous event (or of the start of recording), from `System.nanoTime()`.
+     */
+    private long lastNanos;
+
+    /**
+     * The point of the previous event that had one, from which the next point is offset.
+     */
+    private int lastX;
+    private int lastY;
+
+    /**
+     * The first failure to write an event, or null if writing has not failed.
+     */
+    private IOException failure;
+
+    /**
+     * Whether `close()` has been called.
+     */
+    private boolean closed;
+
+    /**
+     * Start recording a session of selecting from an image of size `width` by `height` to `out`,
+     * which will be closed when we are closed.
+     */
+    public SessionRecorder(OutputStream out, int width, int height) throws IOException {
+        this.out = new DataOutputStream(new BufferedOutputStream(out));
+        this.out.write(SessionRecording.MAGIC);
+        SessionRecording.writeVarLong(this.out, width);
+        SessionRecording.writeVarLong(this.out, height);
+        lastNanos = System.nanoTime();
+    }
+
+    /**
+     * Record that the user took `action`, which must not have a point, now.
+     */
+    public void record(Action action) {
+        assert !action.hasPoint();
+        write(action, null, 0);
+    }
+
+    /**
+     * Record that the user took `action`, which must have a point (other than MOVE_POINT), at `p`
+     * (in image coordinates) now.
+     */
+    public void record(Action action, Point p) {
+        assert action.hasPoint() && action != Action.MOVE_POINT;
+        write(action, p, 0);
+    }
+
+    /**
+     * Record that the user moved the starting point of the segment at `index` to `p` now.
+     */
+    public void recordMovePoint(int index, Point p) {
+        write(Action.MOVE_POINT, p, index);
+    }
+
+    /**
+     * Write an event for `action` taken now at `p` (null if it has no point) and `index`, unless
+     * we have been closed or have failed.
+     */
+    private void write(Action action, Point p, int index) {
+        if (closed || failure != null) {
+            return;
+        }
+        long now = System.nanoTime();
+        try {
+            out.writeByte(action.ordinal());
+            SessionRecording.writeVarLong(out, (now - lastNanos) / 1000);
+            if (p != null) {
+                SessionRecording.writeVarLong(out, SessionRecording.zigzag(p.x - lastX));
+                SessionRecording.writeVarLong(out, SessionRecording.zigzag(p.y - lastY));
+                lastX = p.x;
+                lastY = p.y;
+            }
+            if (action == Action.MOVE_POINT) {
+                SessionRecording.writeVarLong(out, index);
+            }
+        } catch (IOException e) {
+            failure = e;
+        }
+        // Measure from when this event was recorded, so that rounding errors don't accumulate
+        lastNanos += (now - lastNanos) / 1000 * 1000;
+    }
+
+    /**
+     * Stop recording and close our stream.  Throws the first exception encountered while writing
+     * events, if any, or any exception encountered while closing.
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            out.close();
+        } catch (IOException e) {
+            if (failure == null) {
+                failure = e;
+            } else {
+                failure.addSuppressed(e);
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package selector;
+
+import java.io.BufferedInputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A recorded interactive selection session: the size of the image that was being selected from,
+ * and the user's actions in the order they happened (see `SessionRecorder`).  Sessions can be
+ * replayed against a `SelectionModel` to measure how responsive it is to realistic input.
+ * <p>
+ * Sessions are stored compactly, so that hours of mouse movement fit in a few megabytes.  A file
+ * starts with the 4 bytes "SSN1" followed by the image width and height, then lists events.  Each
+ * event is its action's ordinal (1 byte) and the microseconds since the previous event, followed
+ * (for actions with a point) by the offset of its point from the previous event's point, and (for
+ * MOVE_POINT) the index of the moved point.  All numbers after the header bytes are variable-length
+ * integers with 7 bits per byte (offsets are zigzag-encoded first, so small offsets of either sign
+ * take a single byte).
+ */
+public record SessionRecording(int width, int height, List<Event> events) {
+
+    /**
+     * The first bytes of every session file; the last identifies the format version.
+     */
+    static final byte[] MAGIC = {'S', 'S', 'N', '1'};
+
+    /**
+     * A user action that changes or queries a selection.
+     */
+    public enum Action {
+        /**
+         * The mouse pointer moved to a point (with no button held).
+         */
+        MOVE,
+        /**
+         * The mouse pointer was dragged to a point.
+         */
+        DRAG,
+        /**
+         * A point was added to the selection.
+         */
+        ADD_POINT,
+        /**
+         * The selection was finished.
+         */
+        FINISH,
+        /**
+         * The last point was undone (or processing for it cancelled).
+         */
+        UNDO,
+        /**
+         * The selection was reset.
+         */
+        RESET,
+        /**
+         * Processing was cancelled (which has no effect if the model was not processing).
+         */
+        CANCEL,
+        /**
+         * The starting point of the segment at an index was moved to a point.
+         */
+        MOVE_POINT;
+
+        /**
+         * Return whether events of this action have a point.
+         */
+        public boolean hasPoint() {
+            return this == MOVE || this == DRAG || this == ADD_POINT || this == MOVE_POINT;
+        }
+    }
+
+    /**
+     * An action taken `micros` microseconds after the previous event (or after recording started,
+     * for the first event).  `x` and `y` are the image coordinates of the action's point (0 if it
+     * has none), and `index` is the index of the moved point for MOVE_POINT (0 otherwise).
+     */
+    public record Event(Action action, long micros, int x, int y, int index) {
+    }
+
+    /**
+     * Create a session from the recorded `events` of a selection of an image of size `width` by
+     * `height`.
+     */
+    public SessionRecording {
+        events = List.copyOf(events);
+    }
+
+    /**
+     * Return the session stored in `in`, reading it to its end.  Throws an `IOException` if `in`
+     * does not contain a session in our format (although a session truncated after a complete
+     * event, as when a recording application exits abnormally, is read up to that event).
+     */
+    public static SessionRecording read(InputStream in) throws IOException {
+        DataInputStream data = new DataInputStream(new BufferedInputStream(in));
+        byte[] magic = new byte[MAGIC.length];
+        data.readFully(magic);
+        if (!Arrays.equals(magic, MAGIC)) {
+            throw new IOException("Not a recorded session");
+        }
+        int width = (int) readVarLong(data);
+        int height = (int) readVarLong(data);
+
+        List<Event> events = new ArrayList<>();
+        Action[] actions = Action.values();
+        int x = 0;
+        int y = 0;
+        int ordinal;
+        while ((ordinal = data.read()) != -1) {
+            if (ordinal >= actions.length) {
+                throw new IOException("Unknown session action: " + ordinal);
+            }
+            Action action = actions[ordinal];
+            try {
+                long micros = readVarLong(data);
+                int index = 0;
+                if (action.hasPoint()) {
+                    x += unzigzag(readVarLong(data));
+                    y += unzigzag(readVarLong(data));
+                }
+                if (action == Action.MOVE_POINT) {
+                    index = (int) readVarLong(data);
+                }
+                events.add(new Event(action, micros, action.hasPoint() ? x : 0,
+                        action.hasPoint() ? y : 0, index));
+            } catch (EOFException e) {
+                // Truncated while writing the last event; keep the complete ones
+                break;
+            }
+        }
+        return new SessionRecording(width, height, events);
+    }
+
+    /**
+     * Write `value`, which must not be negative, to `out` as a variable-length integer.
+     */
+    static void writeVarLong(DataOutput out, long value) throws IOException {
+        while ((value & ~0x7fL) != 0) {
+            out.writeByte((int) (value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    /**
+     * Return the next variable-length integer from `in`.
+     */
+    static long readVarLong(DataInput in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (long) (b & 0x7f) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed variable-length integer");
+    }
+
+    /**
+     * Return `value` mapped to a non-negative number whose magnitude is about twice that of
+     * `value`, so that numbers close to zero of either sign are small.
+     */
+    static long zigzag(int value) {
+        return Integer.toUnsignedLong((value << 1) ^ (value >> 31));
+    }
+
+    /**
+     * Return the number that `zigzag()` maps to `value`.
+     */
+    static int unzigzag(long value) {
+        int v = (int) value;
+        return (v >>> 1) ^ -(v & 1);
+    }
+}
@@ -0,0 +1,253 @@
+package selector;
+
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.function.IntConsumer;
+
+/**
+ * A transparent ARGB layer divided into square tiles, each of which is rendered on demand when it
+ * is first painted and only allocated if something is drawn on it.  Tiles may be invalidated (to
+ * be rendered again when next painted) or evicted at any time, so a layer covering a huge image
+ * only holds memory for the tiles near what has recently been painted, and only for those with
+ * content.
+ */
+class TiledLayer {
+
+    /**
+     * The width and height of a tile, in layer pixels (tiles along the right and bottom edges may
+     * be smaller).
+     */
+    static final int TILE_SIZE = 256;
+
+    /**
+     * Draws the content of a tile.
+     */
+    interface TileRenderer {
+
+        /**
+         * Draw the content of `layer` within `tile` (in layer coordinates, and covering a single
+         * tile, which is transparent beforehand), using `layer.createGraphics()` or
+         * `layer.setRGB()`.  Nothing need be drawn if the tile is transparent.
+         */
+        void render(TiledLayer layer, Rectangle tile);
+    }
+
+    /**
+     * The dimensions of this layer, in pixels.
+     */
+    private final int width;
+    private final int height;
+
+    /**
+     * The number of tiles across and down this layer.
+     */
+    private final int columns;
+    private final int rows;
+
+    /**
+     * Draws tiles when they need to be rendered.
+     */
+    private final TileRenderer renderer;
+
+    /**
+     * `tiles[column + columns * row]` holds the pixels of that tile, or is null if the tile is
+     * transparent or not rendered.
+     */
+    private final BufferedImage[] tiles;
+
+    /**
+     * `pixels[i]` is the backing array of `tiles[i]`, or null if it has not been needed (drawing
+     * with Graphics is faster on images whose arrays have not been exposed).
+     */
+    private final int[][] pixels;
+
+    /**
+     * `rendered[i]` is whether `tiles[i]` is up to date.
+     */
+    private final boolean[] rendered;
+
+    /**
+     * Create a `width` by `height` layer whose tiles are drawn by `renderer` when painted.
+     */
+    TiledLayer(int width, int height, TileRenderer renderer) {
+        this.width = width;
+        this.height = height;
+        this.renderer = renderer;
+        columns = Math.ceilDiv(width, TILE_SIZE);
+        rows = Math.ceilDiv(height, TILE_SIZE);
+        tiles = new BufferedImage[columns * rows];
+        pixels = new int[tiles.length][];
+        rendered = new boolean[tiles.length];
+    }
+
+    /**
+     * Return the width of this layer, in pixels.
+     */
+    int width() {
+        return width;
+    }
+
+    /**
+     * Return the height of this layer, in pixels.
+     */
+    int height() {
+        return height;
+    }
+
+    /**
+     * Return the number of tiles currently allocated.
+     */
+    int allocatedTiles() {
+        int count = 0;
+        for (BufferedImage tile : tiles) {
+            if (tile != null) {
+                count += 1;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Return the index of the tile containing pixel (`x`, `y`).
+     */
+    private int tileIndex(int x, int y) {
+        return x / TILE_SIZE + columns * (y / TILE_SIZE);
+    }
+
+    /**
+     * Return the area of this layer covered by the tile at index `i`.
+     */
+    private Rectangle tileBounds(int i) {
+        int x = (i % columns) * TILE_SIZE;
+        int y = (i / columns) * TILE_SIZE;
+        return new Rectangle(x, y, Math.min(TILE_SIZE, width - x), Math.min(TILE_SIZE, height - y));
+    }
+
+    /**
+     * Return the tile at index `i`, allocating it if necessary.
+     */
+    private BufferedImage allocate(int i) {
+        if (tiles[i] == null) {
+            Rectangle bounds = tileBounds(i);
+            tiles[i] = new BufferedImage(bounds.width, bounds.height, BufferedImage.TYPE_INT_ARGB);
+        }
+        return tiles[i];
+    }
+
+    /**
+     * Return whether pixel (`x`, `y`) lies in a tile that is up to date, so that changes to it
+     * are kept.  Changes to other tiles are unnecessary, since those tiles will be rendered from
+     * scratch when next painted.
+     */
+    boolean isRendered(int x, int y) {
+        return rendered[tileIndex(x, y)];
+    }
+
+    /**
+     * Return the color of pixel (`x`, `y`) in ARGB form.  Requires that its tile is rendered.
+     */
+    int getRGB(int x, int y) {
+        int i = tileIndex(x, y);
+        if (tiles[i] == null) {
+            return 0;
+        }
+        return tilePixels(i)[(x % TILE_SIZE) + tiles[i].getWidth() * (y % TILE_SIZE)];
+    }
+
+    /**
+     * Set the color of pixel (`x`, `y`) to `argb`, allocating its tile if necessary.  Requires
+     * that its tile is rendered or being rendered.
+     */
+    void setRGB(int x, int y, int argb) {
+        int i = tileIndex(x, y);
+        allocate(i);
+        tilePixels(i)[(x % TILE_SIZE) + tiles[i].getWidth() * (y % TILE_SIZE)] = argb;
+    }
+
+    /**
+     * Return the backing array of the (allocated) tile at index `i`.
+     */
+    private int[] tilePixels(int i) {
+        if (pixels[i] == null) {
+            pixels[i] = ((DataBufferInt) tiles[i].getRaster().getDataBuffer()).getData();
+        }
+        return pixels[i];
+    }
+
+    /**
+     * Return a graphics context, in layer coordinates and clipped to `tile`, for drawing on the
+     * tile covering `tile`, allocating it if necessary.  Requires that `tile` was passed to our
+     * renderer.  The caller must dispose of the result.
+     */
+    Graphics2D createGraphics(Rectangle tile) {
+        Graphics2D g = allocate(tileIndex(tile.x, tile.y)).createGraphics();
+        g.translate(-tile.x, -tile.y);
+        g.clip(tile);
+        return g;
+    }
+
+    /**
+     * Mark the tiles overlapping `region` (in layer coordinates) as out of date, releasing their
+     * pixels.  They will be rendered again when next painted.
+     */
+    void invalidate(Rectangle region) {
+        forEachTile(region, this::release);
+    }
+
+    /**
+     * Release the pixels of every tile that does not overlap `area` (in layer coordinates).  They
+     * will be rendered again if painted later.
+     */
+    void evictOutside(Rectangle area) {
+        for (int i = 0; i < tiles.length; ++i) {
+            if (rendered[i] && !tileBounds(i).intersects(area)) {
+                release(i);
+            }
+        }
+    }
+
+    /**
+     * Discard the contents of the tile at index `i` and mark it as out of date.
+     */
+    private void release(int i) {
+        tiles[i] = null;
+        pixels[i] = null;
+        rendered[i] = false;
+    }
+
+    /**
+     * Draw the tiles overlapping the clip of `g` (which must draw in layer coordinates), first
+     * rendering any that are out of date.
+     */
+    void paint(Graphics2D g) {
+        Rectangle clip = g.getClipBounds();
+        forEachTile((clip != null) ? clip : new Rectangle(0, 0, width, height), i -> {
+            Rectangle bounds = tileBounds(i);
+            if (!rendered[i]) {
+                rendered[i] = true;
+                renderer.render(this, bounds);
+            }
+            if (tiles[i] != null) {
+                g.drawImage(tiles[i], bounds.x, bounds.y, null);
+            }
+        });
+    }
+
+    /**
+     * Call `action` with the index of every tile overlapping `region` (in layer coordinates).
+     */
+    private void forEachTile(Rectangle region, IntConsumer action) {
+        int minColumn = Math.max(0, Math.floorDiv(region.x, TILE_SIZE));
+        int minRow = Math.max(0, Math.floorDiv(region.y, TILE_SIZE));
+        int maxColumn = Math.min(columns - 1,
+                Math.floorDiv(region.x + region.width - 1, TILE_SIZE));
+        int maxRow = Math.min(rows - 1, Math.floorDiv(region.y + region.height - 1, TILE_SIZE));
+        for (int row = minRow; row <= maxRow; ++row) {
+            for (int column = minColumn; column <= maxColumn; ++column) {
+                action.accept(column + columns * row);
+            }
+        }
+    }
+}
@@ -153,6 +153,129 @@ class ShortestPathsTest {
         assertEquals(g.vertexCount(), pathfinder.settledCount());
         assertTrue(pathfinder.allPathsFound());
     }
+
+    @DisplayName("GIVEN snapshots taken while extending a search, THEN each one's settle order is a "
+            + "prefix of the next's, in nondecreasing distance, and a restarted search is distinct")
+    @Test
+    void testSettledOrder() {
+        SimpleGraph g = SimpleGraph.fromText(graph1);
+        ShortestPaths<SimpleVertex, SimpleEdge> pathfinder =
+                new ShortestPaths<>(g, new SimpleWeigher());
+        pathfinder.setStart(g.getVertexByLabel("A").id());
+        PathfindingSnapshot early = pathfinder.extendSearch(3);
+        PathfindingSnapshot late = pathfinder.extendSearch(g.vertexCount());
+
+        assertEquals(3, early.settledCount());
+        assertEquals(g.vertexCount(), late.settledCount());
+        assertTrue(early.sameSearch(late));
+        assertEquals(g.getVertexByLabel("A").id(), late.settledId(0));
+        for (int i = 0; i < early.settledCount(); ++i) {
+            assertEquals(early.settledId(i), late.settledId(i));
+        }
+        for (int i = 1; i < late.settledCount(); ++i) {
+            assertTrue(late.distanceTo(late.settledId(i - 1))
+                    <= late.distanceTo(late.settledId(i)));
+        }
+
+        PathfindingSnapshot restarted = pathfinder.findAllPaths(g.getVertexByLabel("A").id());
+        assertFalse(restarted.sameSearch(late));
+    }
+
+    @DisplayName("GIVEN a snapshot of a search, WHEN the solver searches again (with or without "
+            + "an unshared search in between), THEN the snapshot's settle order is unchanged")
+    @Test
+    void testSettledOrderSurvivesReuse() {
+        SimpleGraph g = SimpleGraph.fromText(graph1);
+        ShortestPaths<SimpleVertex, SimpleEdge> pathfinder =
+                new ShortestPaths<>(g, new SimpleWeigher());
+        PathfindingSnapshot fromA = pathfinder.findAllPaths(g.getVertexByLabel("A").id());
+        int[] order = new int[fromA.settledCount()];
+        for (int i = 0; i < order.length; ++i) {
+            order[i] = fromA.settledId(i);
+        }
+
+        // Searches whose results are never snapshotted may reuse the solver's state freely
+        for (String label : new String[]{"C", "E"}) {
+            pathfinder.setStart(g.getVertexByLabel(label).id());
+            pathfinder.settle(g.vertexCount());
+        }
+        PathfindingSnapshot fromE = pathfinder.snapshot();
+        assertEquals(g.getVertexByLabel("E").id(), fromE.settledId(0));
+        assertFalse(fromE.sameSearch(fromA));
+        for (int i = 0; i < order.length; ++i) {
+            assertEquals(order[i], fromA.settledId(i));
+        }
+    }
+
+    @DisplayName("GIVEN a search settled in batches without snapshots, THEN each batch reports how "
+            + "many vertices it settled, and the final snapshot matches a search done all at once")
+    @Test
+    void testSettleInBatches() {
+        SimpleGraph g = SimpleGraph.fromText(graph1);
+        ShortestPaths<SimpleVertex, SimpleEdge> pathfinder =
+                new ShortestPaths<>(g, new SimpleWeigher());
+        pathfinder.setStart(g.getVertexByLabel("A").id());
+        int total = 0;
+        while (!pathfinder.allPathsFound()) {
+            int settled = pathfinder.settle(2);
+            assertTrue(settled <= 2);
+            total += settled;
+            assertEquals(total, pathfinder.settledCount());
+        }
+        PathfindingSnapshot batched = pathfinder.snapshot();
+
+        PathfindingSnapshot expected = new ShortestPaths<>(g, new SimpleWeigher())
+                .findAllPaths(g.getVertexByLabel("A").id());
+        for (int id = 0; id < g.vertexCount(); ++id) {
+            assertEquals(expected.distanceTo(id), batched.distanceTo(id));
+        }
+    }
+
+    @DisplayName("GIVEN a search in progress, WHEN a progress snapshot is taken, THEN it reports "
+            + "the same discovered and settled vertices as a full snapshot, but not paths")
+    @Test
+    void testProgressSnapshot() {
+        SimpleGraph g = SimpleGraph.fromText(graph1);
+        ShortestPaths<SimpleVertex, SimpleEdge> pathfinder =
+                new ShortestPaths<>(g, new SimpleWeigher());
+        pathfinder.setStart(g.getVertexByLabel("A").id());
+        pathfinder.settle(2);
+        PathfindingSnapshot full = pathfinder.snapshot();
+        PathfindingSnapshot progress = pathfinder.progressSnapshot();
+
+        assertTrue(full.hasPaths());
+        assertFalse(progress.hasPaths());
+        assertEquals(full.settledCount(), progress.settledCount());
+        assertTrue(progress.sameSearch(full));
+        for (int id = 0; id < g.vertexCount(); ++id) {
+            assertEquals(full.discovered(id), progress.discovered(id));
+            assertEquals(full.settled(id), progress.settled(id));
+        }
+        assertThrows(IllegalStateException.class, () -> progress.pathTo(full.settledId(0)));
+    }
+
+    @DisplayName("GIVEN a search in progress, WHEN the path to a settled vertex is queried from "
+            + "the solver, THEN it matches the snapshot's path, AND querying an unsettled vertex "
+            + "throws")
+    @Test
+    void testSolverPathTo() {
+        SimpleGraph g = SimpleGraph.fromText(graph1);
+        ShortestPaths<SimpleVertex, SimpleEdge> pathfinder =
+                new ShortestPaths<>(g, new SimpleWeigher());
+        pathfinder.setStart(g.getVertexByLabel("A").id());
+        pathfinder.settle(3);
+        PathfindingSnapshot full = pathfinder.snapshot();
+
+        for (int id = 0; id < g.vertexCount(); ++id) {
+            assertEquals(full.settled(id), pathfinder.isSettled(id));
+            if (pathfinder.isSettled(id)) {
+                assertEquals(full.pathTo(id), pathfinder.pathTo(id));
+            } else {
+                int unsettled = id;
+                assertThrows(IllegalArgumentException.class, () -> pathfinder.pathTo(unsettled));
+            }
+        }
+    }
 }
 
 /*
@@ -0,0 +1,63 @@
+package metrics;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Random;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class HistogramTest {
+
+    @DisplayName("GIVEN any non-negative value, WHEN its bucket is found, THEN the bucket's "
+            + "largest value is at least the value and exceeds it by at most 1/16 of it")
+    @Test
+    void testBucketAccuracy() {
+        Random rng = new Random(1);
+        for (int i = 0; i < 100_000; ++i) {
+            long value = rng.nextLong(Long.MAX_VALUE) >>> rng.nextInt(63);
+            int index = Histogram.bucketIndex(value);
+            assertTrue(index >= 0 && index < Histogram.BUCKET_COUNT, "Index " + index);
+            long max = Histogram.bucketMax(index);
+            assertTrue(max >= value && max - value <= value / 16,
+                    value + " in bucket up to " + max);
+        }
+        assertEquals(0, Histogram.bucketMax(Histogram.bucketIndex(0)));
+        assertEquals(Long.MAX_VALUE, Histogram.bucketMax(Histogram.BUCKET_COUNT - 1));
+    }
+
+    @DisplayName("GIVEN the values 1 to 1000 were recorded, WHEN percentiles are computed, THEN "
+            + "each is within 1/16 above the exact percentile")
+    @Test
+    void testPercentiles() {
+        Histogram histogram = new Histogram();
+        assertEquals(0, histogram.snapshot().percentile(50));
+        for (int v = 1000; v >= 1; --v) {
+            histogram.record(v);
+        }
+        Histogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(1000, snapshot.count());
+        for (int p : new int[]{1, 50, 95, 99, 100}) {
+            long exact = 10L * p;
+            long estimate = snapshot.percentile(p);
+            assertTrue(estimate >= exact && estimate <= exact + exact / 16,
+                    "p" + p + " was " + estimate);
+        }
+    }
+
+    @DisplayName("GIVEN a snapshot was taken, WHEN more values are recorded and a later snapshot "
+            + "minus the earlier one is taken, THEN it describes only the later values")
+    @Test
+    void testMinus() {
+        Histogram histogram = new Histogram();
+        for (int i = 0; i < 100; ++i) {
+            histogram.record(1_000_000);
+        }
+        Histogram.Snapshot earlier = histogram.snapshot();
+        for (int i = 0; i < 10; ++i) {
+            histogram.record(5);
+        }
+        Histogram.Snapshot recent = histogram.snapshot().minus(earlier);
+        assertEquals(10, recent.count());
+        assertEquals(5, recent.percentile(99));
+    }
+}
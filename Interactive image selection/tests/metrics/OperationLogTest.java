@@ -0,0 +1,145 @@
+package metrics;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class OperationLogTest {
+
+    @DisplayName("GIVEN an operation log, WHEN entries are logged and it is closed, THEN each was "
+            + "written as a line of JSON in order, with null for inapplicable fields")
+    @Test
+    void testLogEntries() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        OperationLog log = new OperationLog(bytes);
+        log.log(new OperationLog.Entry("solve", 640, 480, "CrossGradMono", "HeapMinQueue",
+                12_345_678, 307_200, 98_765));
+        log.log(new OperationLog.Entry("saveSelection", 640, 480, "Cross\"Grad", null, 42, 0,
+                -1));
+        log.close();
+        assertEquals(0, log.dropped());
+
+        List<String> lines = bytes.toString(StandardCharsets.UTF_8).lines().toList();
+        assertEquals(2, lines.size());
+        assertTrue(lines.get(0).matches("\\{\"time\":\\d+,\"operation\":\"solve\","
+                + "\"imageWidth\":640,\"imageHeight\":480,\"weigher\":\"CrossGradMono\","
+                + "\"queue\":\"HeapMinQueue\",\"durationNanos\":12345678,\"settled\":307200,"
+                + "\"allocatedBytes\":98765}"), lines.get(0));
+        assertTrue(lines.get(1).contains(
+                "\"weigher\":\"Cross\\\"Grad\",\"queue\":null,"), lines.get(1));
+    }
+
+    @DisplayName("GIVEN an installed operation log, WHEN an operation is measured, THEN an entry "
+            + "is logged for it; AND GIVEN no installed log, THEN nothing is measured")
+    @Test
+    void testMeasurement() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        OperationLog log = new OperationLog(bytes);
+        OperationLog previous = OperationLog.install(log);
+        try {
+            OperationLog.Measurement measurement = OperationLog.begin();
+            assertTrue(measurement.enabled());
+            measurement.finish("test", 1, 2, null, null, 1000);
+        } finally {
+            OperationLog.install(previous);
+        }
+        log.close();
+        String line = bytes.toString(StandardCharsets.UTF_8).strip();
+        assertTrue(line.contains("\"operation\":\"test\""), line);
+        assertTrue(line.contains("\"settled\":1000"), line);
+
+        OperationLog.install(null);
+        assertFalse(OperationLog.begin().enabled());
+        OperationLog.install(previous);
+    }
+
+    @DisplayName("GIVEN an installed operation log, WHEN an operation on several threads is "
+            + "measured, THEN the bytes allocated by the other threads are counted")
+    @Test
+    void testMeasurementAllThreads() throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        OperationLog log = new OperationLog(bytes);
+        OperationLog previous = OperationLog.install(log);
+        try {
+            OperationLog.Measurement measurement = OperationLog.beginAllThreads();
+            Thread other = new Thread(() -> sink = new byte[1 << 20]);
+            other.start();
+            other.join();
+            measurement.finish("parallel", 1, 1, null, null, 0);
+        } finally {
+            OperationLog.install(previous);
+        }
+        log.close();
+        String line = bytes.toString(StandardCharsets.UTF_8).strip();
+        Matcher m = Pattern.compile("\"allocatedBytes\":(-?\\d+)").matcher(line);
+        assertTrue(m.find(), line);
+        long allocated = Long.parseLong(m.group(1));
+        assertTrue(allocated == -1 || allocated >= 1 << 20, line);
+    }
+
+    /**
+     * Keeps allocations made for tests from being optimized away.
+     */
+    private static volatile Object sink;
+
+    @DisplayName("GIVEN an operation log whose stream stalls, WHEN more entries are logged than "
+            + "can wait, THEN the excess are dropped AND closing writes their count last")
+    @Test
+    void testDroppedRecord() throws Exception {
+        CountDownLatch stalled = new CountDownLatch(1);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        OperationLog log = new OperationLog(new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                write(new byte[]{(byte) b}, 0, 1);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                try {
+                    stalled.await();
+                } catch (InterruptedException e) {
+                    throw new IOException(e);
+                }
+                bytes.write(b, off, len);
+            }
+        });
+        for (int i = 0; i < 5000; ++i) {
+            log.log(new OperationLog.Entry("solve", 1, 1, null, null, i, 0, 0));
+        }
+        stalled.countDown();
+        log.close();
+        assertTrue(log.dropped() > 0);
+
+        List<String> lines = bytes.toString(StandardCharsets.UTF_8).lines().toList();
+        assertEquals(5000 - log.dropped() + 1, lines.size());
+        assertTrue(lines.getLast().matches(
+                "\\{\"time\":\\d+,\"dropped\":" + log.dropped() + "}"), lines.getLast());
+    }
+
+    @DisplayName("GIVEN an operation log whose stream fails, WHEN entries are logged, THEN "
+            + "logging does not throw AND closing throws the failure")
+    @Test
+    void testFailure() {
+        OperationLog log = new OperationLog(new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                throw new IOException("disk full");
+            }
+        });
+        for (int i = 0; i < 10_000; ++i) {
+            log.log(new OperationLog.Entry("solve", 1, 1, null, null, i, 0, 0));
+        }
+        IOException e = assertThrows(IOException.class, log::close);
+        assertEquals("disk full", e.getMessage());
+    }
+}
@@ -0,0 +1,54 @@
+package scissors;
+
+import metrics.ThreadAllocation;
+
+/**
+ * Measures the bytes allocated by the current thread while running some code, for asserting the
+ * allocation budgets of hot paths.  Relies on the per-thread allocation counters read by
+ * `ThreadAllocation`, which count objects that the JIT would later eliminate too, so budgets hold
+ * whether or not the code has been compiled.  Callers should run the measured code
+ * once beforehand, so that class loading and lazily grown buffers are not charged to it.
+ */
+final class AllocationMeter {
+
+    /**
+     * The bytes counted for measuring nothing, subtracted from every measurement.
+     */
+    private static final long OVERHEAD = ThreadAllocation.supported() ? calibrate() : 0;
+
+    private AllocationMeter() {
+    }
+
+    /**
+     * Return whether this JVM can measure allocation.  Tests should be skipped if not.
+     */
+    static boolean supported() {
+        return ThreadAllocation.supported();
+    }
+
+    /**
+     * Run `action` on the current thread and return the number of bytes it allocated.  Requires
+     * `supported()`.
+     */
+    static long allocatedBytes(Runnable action) {
+        long before = ThreadAllocation.currentThread();
+        action.run();
+        long after = ThreadAllocation.currentThread();
+        return Math.max(0, after - before - OVERHEAD);
+    }
+
+    /**
+     * Return the smallest number of bytes counted for running an empty action.
+     */
+    private static long calibrate() {
+        Runnable nothing = () -> {
+        };
+        long overhead = Long.MAX_VALUE;
+        for (int i = 0; i < 16; ++i) {
+            long before = ThreadAllocation.currentThread();
+            nothing.run();
+            overhead = Math.min(overhead, ThreadAllocation.currentThread() - before);
+        }
+        return overhead;
+    }
+}
@@ -0,0 +1,181 @@
+package scissors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.*;
+import static selector.SelectionModel.SelectionState.*;
+
+import graph.HeapMinQueue;
+import graph.ShortestPaths;
+import graph.Weigher;
+import java.awt.Point;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+import javax.swing.SwingUtilities;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import selector.PolyLine;
+
+/**
+ * Enforces the allocation budgets of the hot paths of selection, so that changes (such as a new
+ * weigher, or a new queue implementation) cannot silently increase garbage collection pressure.
+ * Budgets are in bytes allocated by the current thread (see `AllocationMeter`):
+ * <ul>
+ *   <li>`HeapMinQueue` allocates only when an element is added; updating priorities and removing
+ *   elements allocate nothing.</li>
+ *   <li>A complete search by a reused `ShortestPaths` allocates at most `MAX_BYTES_PER_SETTLED`
+ *   per vertex with every weigher, independent of image size.  This pays for each vertex's
+ *   frontier entry and boxed ID; anything allocated per edge exceeds it.</li>
+ *   <li>A live wire allocates at most `MAX_BYTES_PER_PATH_VERTEX` per vertex on its path, plus a
+ *   constant.</li>
+ * </ul>
+ */
+class AllocationTest {
+
+    /**
+     * The most bytes a complete search may allocate per vertex settled.  Currently about 80.
+     */
+    private static final double MAX_BYTES_PER_SETTLED = 100;
+
+    /**
+     * The most bytes a live wire may allocate per vertex on its path, and in addition to that.
+     * Currently about 40 per vertex.
+     */
+    private static final double MAX_BYTES_PER_PATH_VERTEX = 64;
+    private static final long MAX_LIVE_WIRE_OVERHEAD_BYTES = 1024;
+
+    @BeforeEach
+    void requireMeasurement() {
+        assumeTrue(AllocationMeter.supported(), "This JVM cannot measure thread allocation");
+    }
+
+    @DisplayName("GIVEN a HeapMinQueue holding many elements, WHEN every priority is updated and "
+            + "then every element removed, THEN nothing is allocated")
+    @Test
+    void testHeapMinQueueUpdateAndRemove() {
+        int n = 2000;
+        Integer[] keys = new Integer[n];
+        for (int i = 0; i < n; ++i) {
+            keys[i] = i;
+        }
+        HeapMinQueue<Integer> queue = new HeapMinQueue<>();
+        // Warm up, leaving the queue's table and heap at full capacity
+        fill(queue, keys);
+        updateAndDrain(queue, keys);
+
+        fill(queue, keys);
+        assertEquals(0, AllocationMeter.allocatedBytes(() -> updateAndDrain(queue, keys)));
+        assertTrue(queue.isEmpty());
+    }
+
+    @DisplayName("GIVEN a HeapMinQueue that has held many elements, WHEN they are added again, "
+            + "THEN the bytes allocated per element are bounded and independent of its size")
+    @Test
+    void testHeapMinQueueAdd() {
+        double small = bytesPerAdd(500);
+        double large = bytesPerAdd(8000);
+        assertTrue(small <= 64, small + " bytes per add");
+        assertTrue(large <= 64, large + " bytes per add");
+    }
+
+    @DisplayName("GIVEN a reused ShortestPaths on an image graph, WHEN a complete search is made "
+            + "with each weigher, THEN the bytes allocated per vertex settled stay within budget "
+            + "and do not grow with image size")
+    @Test
+    void testSearch() {
+        for (String name : ScissorsWeights.weightNames()) {
+            double small = bytesPerSettled(name, 48);
+            double large = bytesPerSettled(name, 96);
+            assertTrue(small <= MAX_BYTES_PER_SETTLED, name + ": " + small + " bytes per vertex");
+            assertTrue(large <= MAX_BYTES_PER_SETTLED, name + ": " + large + " bytes per vertex");
+            assertTrue(large <= small * 1.1, name + ": bytes per vertex grew from " + small
+                    + " to " + large);
+        }
+    }
+
+    @DisplayName("GIVEN a selection with finished paths, WHEN live wires are computed, THEN the "
+            + "bytes allocated are bounded by the length of each wire")
+    @Test
+    void testLiveWire() throws Exception {
+        int side = 96;
+        BufferedImage img = ScalabilityTest.testImage(side);
+        ScissorsSelectionModel model = new ScissorsSelectionModel("CrossGradMono", false);
+        SwingUtilities.invokeAndWait(() -> model.setImage(img));
+        SwingUtilities.invokeAndWait(() -> model.addPoint(new Point(4, 4)));
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (ScissorsEventsTest.stateOnEdt(model) == PROCESSING) {
+            assertTrue(System.nanoTime() < deadline, "Timed out solving");
+            Thread.sleep(5);
+        }
+
+        // The live wire model is confined to the EDT, so measure there
+        SwingUtilities.invokeAndWait(() -> {
+            assertEquals(SELECTING, model.state());
+            Point[] targets = {new Point(90, 90), new Point(5, 80), new Point(60, 6)};
+            model.liveWire(targets[0]);  // Warm up
+            for (Point p : targets) {
+                PolyLine[] wire = new PolyLine[1];
+                long bytes = AllocationMeter.allocatedBytes(() -> wire[0] = model.liveWire(p));
+                long budget = (long) (MAX_BYTES_PER_PATH_VERTEX * Math.max(side, wire[0].size()))
+                        + MAX_LIVE_WIRE_OVERHEAD_BYTES;
+                assertTrue(bytes <= budget, "Live wire to " + p + " allocated " + bytes
+                        + " bytes; budget " + budget);
+            }
+        });
+    }
+
+    /**
+     * Add each of `keys` to the empty `queue`, with priorities out of order.
+     */
+    private static void fill(HeapMinQueue<Integer> queue, Integer[] keys) {
+        for (int i = 0; i < keys.length; ++i) {
+            queue.addOrUpdate(keys[i], (i * 7919) % keys.length);
+        }
+    }
+
+    /**
+     * Change the priority of each of `keys` in `queue`, which must contain exactly them, then
+     * remove them all.
+     */
+    private static void updateAndDrain(HeapMinQueue<Integer> queue, Integer[] keys) {
+        for (int i = 0; i < keys.length; ++i) {
+            queue.addOrUpdate(keys[i], (i * 104729) % keys.length);
+        }
+        while (!queue.isEmpty()) {
+            queue.remove();
+        }
+    }
+
+    /**
+     * Return the bytes allocated per element by adding `n` pre-boxed elements to a queue that has
+     * already held that many (so that its capacity has grown).
+     */
+    private static double bytesPerAdd(int n) {
+        Integer[] keys = new Integer[n];
+        for (int i = 0; i < n; ++i) {
+            keys[i] = i;
+        }
+        HeapMinQueue<Integer> queue = new HeapMinQueue<>();
+        fill(queue, keys);
+        queue.clear();
+        return (double) AllocationMeter.allocatedBytes(() -> fill(queue, keys)) / n;
+    }
+
+    /**
+     * Return the bytes allocated per vertex settled by a complete search from the center of a
+     * `side` by `side` test image using the weigher named `weightName`, by a `ShortestPaths` that
+     * has already made such a search.
+     */
+    private static double bytesPerSettled(String weightName, int side) {
+        ImageGraph graph = new ImageGraph(ScalabilityTest.testImage(side));
+        Weigher<ImageEdge> weigher = ScissorsWeights.makeWeigher(weightName, graph);
+        ShortestPaths<ImageVertex, ImageEdge> pathfinder = new ShortestPaths<>(graph, weigher);
+        int centerId = graph.idAt(new Point(side / 2, side / 2));
+        Runnable search = () -> {
+            pathfinder.setStart(centerId);
+            pathfinder.settle(graph.vertexCount());
+        };
+        search.run();
+        return (double) AllocationMeter.allocatedBytes(search) / graph.vertexCount();
+    }
+}
@@ -0,0 +1,132 @@
+package scissors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import javax.imageio.ImageIO;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class BatchSegmenterTest {
+
+    @TempDir
+    Path dir;
+
+    /**
+     * Run `BatchSegmenter` with `args` and return its exit status, appending its output to `out`.
+     */
+    private static int run(StringBuilder out, String... args) throws InterruptedException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        int status = BatchSegmenter.run(args, new PrintStream(bytes, true, StandardCharsets.UTF_8));
+        out.append(bytes.toString(StandardCharsets.UTF_8));
+        return status;
+    }
+
+    /**
+     * Write a `side` by `side` test image named `name`.png to `dir`, with control points
+     * `points`, and return its file.
+     */
+    private File writeImage(String name, int side, String points) throws IOException {
+        File image = dir.resolve(name + ".png").toFile();
+        ImageIO.write(ScalabilityTest.testImage(side), "png", image);
+        Files.writeString(dir.resolve(name + ".points"), points);
+        return image;
+    }
+
+    @DisplayName("GIVEN a directory of images with control points, WHEN they are segmented into "
+            + "masks, THEN a mask the size of each image is written that is white inside the "
+            + "control points and black far outside them, AND each image is in the summary")
+    @Test
+    void testMasks() throws Exception {
+        writeImage("a", 64, "# corners\n8 8\n56,8\n56 56\n8 56\n");
+        writeImage("b", 48, "4 4\n44 4\n24 44\n");
+        Path out = dir.resolve("out");
+
+        StringBuilder report = new StringBuilder();
+        int status = run(report, "--out", out.toString(), "--mask", "--threads", "2",
+                dir.toString());
+        assertEquals(0, status, report.toString());
+
+        BufferedImage mask = ImageIO.read(out.resolve("a-mask.png").toFile());
+        assertEquals(64, mask.getWidth());
+        assertEquals(64, mask.getHeight());
+        assertEquals(0xFFFFFF, mask.getRGB(32, 32) & 0xFFFFFF);
+        assertEquals(0, mask.getRGB(1, 62) & 0xFFFFFF);
+        assertTrue(Files.exists(out.resolve("b-mask.png")));
+
+        List<String> summary = Files.readAllLines(out.resolve("summary.csv"));
+        assertEquals(3, summary.size());
+        assertTrue(summary.get(1).startsWith("a.png,64,64,4,"), summary.get(1));
+        assertTrue(summary.get(2).startsWith("b.png,48,48,3,"), summary.get(2));
+        assertTrue(report.toString().contains("2 images (0 failed)"), report.toString());
+    }
+
+    @DisplayName("GIVEN images whose control points are missing, malformed or outside the image, "
+            + "WHEN they are segmented into cutouts, THEN only the valid one is written AND the "
+            + "others are reported as failed")
+    @Test
+    void testFailures() throws Exception {
+        File good = writeImage("good", 32, "2 2\n30 2\n16 30\n");
+        File outside = writeImage("outside", 32, "2 2\n30 2\n16 40\n");
+        File malformed = writeImage("malformed", 32, "2 2\n30\n16 30\n");
+        File missing = dir.resolve("missing.png").toFile();
+        ImageIO.write(ScalabilityTest.testImage(32), "png", missing);
+        Path out = dir.resolve("out");
+
+        StringBuilder report = new StringBuilder();
+        int status = run(report, "--out", out.toString(), "--memory-mb", "1", good.toString(),
+                outside.toString(), malformed.toString(), missing.toString());
+        assertEquals(1, status, report.toString());
+
+        BufferedImage cutout = ImageIO.read(out.resolve("good-cutout.png").toFile());
+        assertTrue(cutout.getWidth() <= 32 && cutout.getHeight() <= 32);
+        assertFalse(Files.exists(out.resolve("outside-cutout.png")));
+        String text = report.toString();
+        assertTrue(text.contains("3 failed"), text);
+        assertTrue(text.contains("outside the 32x32 image"), text);
+        assertTrue(text.contains("malformed.points:2"), text);
+        assertTrue(text.contains("No control points file"), text);
+    }
+
+    @DisplayName("GIVEN two images whose names differ only in their extension, WHEN they are "
+            + "segmented, THEN the first is written AND the second is reported as failed rather "
+            + "than overwriting it")
+    @Test
+    void testSameBaseName() throws Exception {
+        File png = writeImage("a", 32, "2 2\n30 2\n16 30\n");
+        File bmp = dir.resolve("a.bmp").toFile();
+        assertTrue(ImageIO.write(ScalabilityTest.testImage(48), "bmp", bmp));
+        Path out = dir.resolve("out");
+
+        StringBuilder report = new StringBuilder();
+        int status = run(report, "--out", out.toString(), "--mask", png.toString(),
+                bmp.toString());
+        assertEquals(1, status, report.toString());
+
+        assertEquals(32, ImageIO.read(out.resolve("a-mask.png").toFile()).getWidth());
+        List<String> summary = Files.readAllLines(out.resolve("summary.csv"));
+        assertTrue(summary.get(1).startsWith("a.png,32,32,3,"), summary.get(1));
+        assertTrue(summary.get(2).startsWith("a.bmp,") && summary.get(2).contains("Same base name"),
+                summary.get(2));
+    }
+
+    @DisplayName("GIVEN invalid arguments, WHEN the segmenter is run, THEN it prints its usage AND "
+            + "exits with status 2")
+    @Test
+    void testUsage() throws Exception {
+        StringBuilder report = new StringBuilder();
+        assertEquals(2, run(report, "--weigher", "NoSuchWeigher", dir.toString()));
+        assertTrue(report.toString().contains("Usage: BatchSegmenter"), report.toString());
+        assertEquals(2, run(new StringBuilder(), "--threads", "0", dir.toString()));
+        assertEquals(2, run(new StringBuilder()));
+    }
+}
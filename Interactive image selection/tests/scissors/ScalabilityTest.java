@@ -0,0 +1,222 @@
+package scissors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.*;
+import static selector.SelectionModel.SelectionState.*;
+
+import graph.HeapMinQueue;
+import java.awt.Color;
+import java.awt.GradientPaint;
+import java.awt.Graphics2D;
+import java.awt.Point;
+import java.awt.image.BufferedImage;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import javax.swing.SwingUtilities;
+import metrics.ThreadAllocation;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestReporter;
+import selector.SelectionModel.SelectionState;
+
+/**
+ * Checks that complete selections scale linearly in memory with image size, to catch
+ * regressions such as allocating per edge or copying whole arrays per batch in `ShortestPaths` or
+ * `PathfindingSnapshot`.  Selections are made through `ScissorsSelectionModel` on generated images
+ * of growing size, measuring bytes allocated by all threads (the solves run on `SolveExecutor`
+ * threads), peak heap usage and wall time.  Each is normalized per pixel per solve, reported
+ * (through JUnit's `TestReporter`), and compared against thresholds that can be set with system
+ * properties:
+ * <ul>
+ *   <li>`scissors.perf.sizes`: comma-separated image sides (default "256,512,1024").</li>
+ *   <li>`scissors.perf.maxAllocatedBytesPerPixel` (default 150): bytes allocated per pixel per
+ *   solve, at any size.  About 100 at 1 megapixel; allocating even one small object per edge
+ *   would add over 128.</li>
+ *   <li>`scissors.perf.maxPeakHeapBytesPerPixel` (no default): growth of peak heap usage during
+ *   a selection, per pixel.  Only checked if set, since it depends on when the collector runs.
+ *   </li>
+ *   <li>`scissors.perf.maxNanosPerPixel` (no default): wall time per pixel per solve.  Only
+ *   checked if set, since wall time depends on the machine and its load.</li>
+ *   <li>`scissors.perf.maxGrowth` (default 1.25): the ratio of bytes allocated per pixel at the
+ *   largest size to that at the smallest.  A little growth is expected, since each progress
+ *   snapshot copies two bits per pixel (about 1.05 over the default sizes), but allocating per
+ *   heap swap or copying whole arrays per progress report grows far faster.</li>
+ * </ul>
+ * Tagged "performance".  Since `HeapMinQueue` checks its invariant on every operation when
+ * assertions are enabled, which makes solves quadratic, this is skipped unless assertions are
+ * disabled for the `graph` package, e.g. `java -da:graph... -Djava.awt.headless=true ...
+ * ConsoleLauncher --include-tag performance`.
+ */
+@Tag("performance")
+class ScalabilityTest {
+
+    /**
+     * The weigher to select with, which is cheap to build so that solves dominate.
+     */
+    private static final String WEIGHER = "CrossGradMono";
+
+    /**
+     * The longest we wait for a single solve before failing.
+     */
+    private static final long TIMEOUT_NANOS = TimeUnit.MINUTES.toNanos(2);
+
+    /**
+     * Resource usage while making one selection of an image with `pixels` pixels, requiring
+     * `solves` solves.
+     */
+    record Usage(int side, long pixels, int solves, long nanos, long allocatedBytes,
+                 long peakHeapGrowth) {
+        double allocatedPerPixel() {
+            return (double) allocatedBytes / (pixels * solves);
+        }
+
+        double nanosPerPixel() {
+            return (double) nanos / (pixels * solves);
+        }
+
+        double peakHeapPerPixel() {
+            return (double) peakHeapGrowth / pixels;
+        }
+
+        String describe() {
+            return String.format("%dx%d, %d solves: %.0f ns/pixel/solve, "
+                            + "%.1f B/pixel/solve allocated, %.1f B/pixel peak heap growth",
+                    side, side, solves, nanosPerPixel(), allocatedPerPixel(), peakHeapPerPixel());
+        }
+    }
+
+    @DisplayName("GIVEN generated images of growing size, WHEN a complete selection is made in "
+            + "each, THEN allocation per pixel per solve stays below its threshold and grows "
+            + "little with size (AND time and peak heap do too, if thresholds are set)")
+    @Test
+    void testScaling(TestReporter reporter) throws Exception {
+        assumeFalse(HeapMinQueue.class.desiredAssertionStatus(),
+                "Assertions in graph make solves quadratic; run with -da:graph...");
+        assumeTrue(ThreadAllocation.supported(), "This JVM cannot measure allocation");
+        int[] sides = Arrays.stream(System.getProperty("scissors.perf.sizes", "256,512,1024")
+                .split(",")).mapToInt(s -> Integer.parseInt(s.trim())).toArray();
+        double maxAllocated = doubleProperty("scissors.perf.maxAllocatedBytesPerPixel", 150);
+        // Peak heap and wall time are too noisy to check by default
+        double maxPeakHeap = doubleProperty("scissors.perf.maxPeakHeapBytesPerPixel",
+                Double.POSITIVE_INFINITY);
+        double maxNanos = doubleProperty("scissors.perf.maxNanosPerPixel",
+                Double.POSITIVE_INFINITY);
+        double maxGrowth = doubleProperty("scissors.perf.maxGrowth", 1.25);
+
+        // Warm up (class loading and compilation would otherwise be charged to the first size)
+        select(128);
+        select(128);
+
+        List<Usage> usages = new ArrayList<>();
+        for (int side : sides) {
+            Usage usage = select(side);
+            usages.add(usage);
+            reporter.publishEntry(side + "x" + side, usage.describe());
+        }
+
+        for (Usage usage : usages) {
+            assertTrue(usage.allocatedPerPixel() <= maxAllocated, usage.describe());
+            assertTrue(usage.peakHeapPerPixel() <= maxPeakHeap, usage.describe());
+            assertTrue(usage.nanosPerPixel() <= maxNanos, usage.describe());
+        }
+        double growth =
+                usages.getLast().allocatedPerPixel() / usages.getFirst().allocatedPerPixel();
+        assertTrue(growth <= maxGrowth, "Allocation per pixel grew by a factor of " + growth
+                + " from " + usages.getFirst().describe() + " to " + usages.getLast().describe());
+    }
+
+    /**
+     * Return the value of the system property `name` as a double, or `defaultValue` if it is not
+     * set.
+     */
+    private static double doubleProperty(String name, double defaultValue) {
+        String value = System.getProperty(name);
+        return (value == null) ? defaultValue : Double.parseDouble(value);
+    }
+
+    /**
+     * Make a complete selection (four points, then finish) of a generated `side` by `side` image
+     * with a new model, and return the resources used from adding the first point until the
+     * selection was finished.
+     */
+    static Usage select(int side) throws Exception {
+        BufferedImage img = testImage(side);
+        ScissorsSelectionModel model = new ScissorsSelectionModel(WEIGHER, false);
+        Object lock = new Object();
+        SelectionState[] state = {NO_SELECTION};
+        model.addPropertyChangeListener("state", e -> {
+            synchronized (lock) {
+                state[0] = (SelectionState) e.getNewValue();
+                lock.notifyAll();
+            }
+        });
+        SwingUtilities.invokeAndWait(() -> model.setImage(img));
+        // Don't charge building the weigher to the selection (the cache is confined to the EDT,
+        // but its future may be waited for anywhere)
+        List<Future<?>> weigher = new ArrayList<>();
+        SwingUtilities.invokeAndWait(
+                () -> weigher.add(WeigherCache.weigher(WEIGHER, new ImageGraph(img))));
+        weigher.getFirst().get();
+
+        Point[] points = {new Point(side / 4, side / 4), new Point(3 * side / 4, side / 4),
+                new Point(3 * side / 4, 3 * side / 4), new Point(side / 4, 3 * side / 4)};
+        List<MemoryPoolMXBean> heapPools = ManagementFactory.getMemoryPoolMXBeans().stream()
+                .filter(pool -> pool.getType() == MemoryType.HEAP).toList();
+
+        System.gc();
+        long heapBefore = heapPools.stream().mapToLong(pool -> pool.getUsage().getUsed()).sum();
+        heapPools.forEach(MemoryPoolMXBean::resetPeakUsage);
+        long allocatedBefore = ThreadAllocation.allThreads();
+        long start = System.nanoTime();
+        for (Point p : points) {
+            SwingUtilities.invokeAndWait(() -> model.addPoint(p));
+            synchronized (lock) {
+                long deadline = System.nanoTime() + TIMEOUT_NANOS;
+                while (state[0] == PROCESSING) {
+                    long remaining = deadline - System.nanoTime();
+                    assertTrue(remaining > 0, "Timed out solving from " + p);
+                    TimeUnit.NANOSECONDS.timedWait(lock, remaining);
+                }
+                assertEquals(SELECTING, state[0]);
+            }
+        }
+        SwingUtilities.invokeAndWait(model::finishSelection);
+        long nanos = System.nanoTime() - start;
+        long allocated = ThreadAllocation.allThreads() - allocatedBefore;
+        long peak = heapPools.stream().mapToLong(pool -> pool.getPeakUsage().getUsed()).sum();
+
+        assertEquals(SELECTED, model.state());
+        assertEquals(points.length, model.selection().size());
+        return new Usage(side, (long) side * side, points.length, nanos, allocated,
+                peak - heapBefore);
+    }
+
+    /**
+     * Return a `side` by `side` image with smooth gradients and overlapping shapes, so that
+     * shortest paths have realistic variety.  The same size always produces the same image.
+     */
+    static BufferedImage testImage(int side) {
+        BufferedImage img = new BufferedImage(side, side, BufferedImage.TYPE_INT_RGB);
+        Random rng = new Random(2110);
+        Graphics2D g = img.createGraphics();
+        g.setPaint(new GradientPaint(0, 0, new Color(40, 60, 90), side, side,
+                new Color(200, 180, 150)));
+        g.fillRect(0, 0, side, side);
+        for (int i = 0; i < 64 + side * side / 65536; ++i) {
+            g.setColor(new Color(rng.nextInt(0x1000000)));
+            int w = 8 + rng.nextInt(Math.max(1, side / 8));
+            int h = 8 + rng.nextInt(Math.max(1, side / 8));
+            g.fillOval(rng.nextInt(side) - w / 2, rng.nextInt(side) - h / 2, w, h);
+        }
+        g.dispose();
+        return img;
+    }
+}
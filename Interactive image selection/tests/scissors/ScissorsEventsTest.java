@@ -0,0 +1,95 @@
+package scissors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static selector.SelectionModel.SelectionState.*;
+
+import java.awt.Point;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import javax.swing.SwingUtilities;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import selector.SelectionModel.SelectionState;
+
+class ScissorsEventsTest {
+
+    /**
+     * Return the state of `model`, read on the EDT (where it changes).
+     */
+    static SelectionState stateOnEdt(ScissorsSelectionModel model) throws Exception {
+        SelectionState[] state = new SelectionState[1];
+        SwingUtilities.invokeAndWait(() -> state[0] = model.state());
+        return state[0];
+    }
+
+    @DisplayName("GIVEN a flight recording is running, WHEN a selection is made and saved, THEN "
+            + "an event is recorded for each stage, each with the image size and weigher name")
+    @Test
+    void testSelectionEvents() throws Exception {
+        // A fresh image, so that its weigher is not already cached
+        BufferedImage img = ScalabilityTest.testImage(48);
+        Path file = Files.createTempFile("scissors", ".jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable("scissors.*");
+            recording.start();
+
+            ScissorsSelectionModel model = new ScissorsSelectionModel("CrossGradMono", false);
+            SwingUtilities.invokeAndWait(() -> model.setImage(img));
+            for (Point p : List.of(new Point(5, 5), new Point(40, 8), new Point(24, 40))) {
+                SwingUtilities.invokeAndWait(() -> model.addPoint(p));
+                long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+                while (stateOnEdt(model) == PROCESSING) {
+                    assertTrue(System.nanoTime() < deadline, "Timed out solving from " + p);
+                    Thread.sleep(5);
+                }
+            }
+            SwingUtilities.invokeAndWait(() -> {
+                model.finishSelection();
+                try {
+                    model.saveSelection(new ByteArrayOutputStream());
+                } catch (Exception e) {
+                    throw new RuntimeException(e);
+                }
+            });
+
+            recording.stop();
+            recording.dump(file);
+        }
+
+        List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+        Files.delete(file);
+        Map<String, List<RecordedEvent>> byName = events.stream()
+                .collect(Collectors.groupingBy(e -> e.getEventType().getName()));
+        for (String name : List.of("scissors.CostMapBuild", "scissors.Solve",
+                "scissors.SolveBatch", "scissors.Snapshot", "scissors.PathReconstruction",
+                "scissors.SaveSelection")) {
+            assertTrue(byName.containsKey(name), "No " + name + " event in " + byName.keySet());
+            for (RecordedEvent e : byName.get(name)) {
+                assertEquals(48, e.getInt("imageWidth"));
+                assertEquals(48, e.getInt("imageHeight"));
+                assertEquals("CrossGradMono", e.getString("weigher"));
+                assertEquals(List.of("Intelligent Scissors"), e.getEventType().getCategoryNames());
+            }
+        }
+
+        List<RecordedEvent> solves = byName.get("scissors.Solve");
+        assertEquals(3, solves.size());
+        for (RecordedEvent e : solves) {
+            assertEquals("finished", e.getString("outcome"));
+            assertEquals(48 * 48, e.getInt("settled"));
+        }
+        assertTrue(byName.get("scissors.Snapshot").stream().anyMatch(
+                e -> e.getString("kind").equals("full")
+                        && e.getLong("bytesCopied") >= 8L * 48 * 48));
+        assertEquals(3, byName.get("scissors.SaveSelection").getFirst().getInt("segments"));
+    }
+}
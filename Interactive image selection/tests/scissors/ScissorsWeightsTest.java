@@ -0,0 +1,263 @@
+package scissors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import graph.BulkWeigher;
+import graph.PathfindingSnapshot;
+import graph.ShortestPaths;
+import graph.Weigher;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import selector.PolyLine;
+
+class ScissorsWeightsTest {
+
+    /**
+     * Return a `width` by `height` image of type `type` filled with pseudorandom pixels.
+     */
+    static BufferedImage randomImage(int width, int height, int type) {
+        BufferedImage img = new BufferedImage(width, height, type);
+        Random rng = new Random(2110);
+        for (int y = 0; y < height; ++y) {
+            for (int x = 0; x < width; ++x) {
+                img.setRGB(x, y, rng.nextInt());
+            }
+        }
+        return img;
+    }
+
+    /**
+     * Return a `width` by `height` RGB image whose pixels left of column `width/2` have color
+     * `left` and whose remaining pixels have color `right`, so that a vertical step edge runs
+     * between columns `width/2 - 1` and `width/2`.
+     */
+    static BufferedImage splitImage(int width, int height, int left, int right) {
+        BufferedImage img = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        for (int y = 0; y < height; ++y) {
+            for (int x = 0; x < width; ++x) {
+                img.setRGB(x, y, (x < width / 2) ? left : right);
+            }
+        }
+        return img;
+    }
+
+    /**
+     * Return the weight that `weigher` assigns to the edge in direction `dir` from pixel (`x`,
+     * `y`) of `graph`.
+     */
+    static int weight(Weigher<ImageEdge> weigher, ImageGraph graph, int x, int y, int dir) {
+        int id = x + graph.width() * y;
+        int endId = id + ImageVertex.DX[dir] + graph.width() * ImageVertex.DY[dir];
+        return weigher.weight(new ImageEdge(id, endId, dir));
+    }
+
+    @DisplayName("Every weigher produces weights in [0..255] for every edge in the graph of an image "
+            + "of any common type, including grayscale, 16-bit, and with alpha")
+    @Test
+    void testWeightRange() {
+        int[] types = {BufferedImage.TYPE_3BYTE_BGR, BufferedImage.TYPE_INT_RGB,
+                BufferedImage.TYPE_INT_ARGB, BufferedImage.TYPE_BYTE_GRAY,
+                BufferedImage.TYPE_USHORT_GRAY};
+        for (int type : types) {
+            ImageGraph graph = new ImageGraph(randomImage(9, 7, type));
+            for (String name : ScissorsWeights.weightNames()) {
+                Weigher<ImageEdge> weigher = ScissorsWeights.makeWeigher(name, graph);
+                for (int id = 0; id < graph.vertexCount(); ++id) {
+                    for (ImageEdge edge : graph.getVertex(id).outgoingEdges()) {
+                        int w = weigher.weight(edge);
+                        assertTrue(w >= 0 && w <= 255,
+                                name + " weighed " + edge + " as " + w + " for type " + type);
+                    }
+                }
+            }
+        }
+    }
+
+    @DisplayName("GIVEN an image graph, WHEN all of a vertex's edges are weighed at once, THEN the "
+            + "weights and neighbor IDs match those of its outgoing edges, in order")
+    @Test
+    void testBulkMatchesEdges() {
+        ImageGraph graph = new ImageGraph(randomImage(9, 7, BufferedImage.TYPE_3BYTE_BGR));
+        int[] ids = new int[8];
+        for (String name : ScissorsWeights.weightNames()) {
+            Weigher<ImageEdge> weigher = ScissorsWeights.makeWeigher(name, graph);
+            assertInstanceOf(BulkWeigher.class, weigher);
+            BulkWeigher<ImageEdge> bulk = (BulkWeigher<ImageEdge>) weigher;
+            int[] weights = new int[bulk.maxOutDegree()];
+            for (int id = 0; id < graph.vertexCount(); ++id) {
+                int count = bulk.weightsFrom(id, weights);
+                assertEquals(count, graph.neighborIds(id, ids));
+                int i = 0;
+                for (ImageEdge edge : graph.getVertex(id).outgoingEdges()) {
+                    assertEquals(edge.endId(), ids[i], name + " neighbor of " + id);
+                    assertEquals(weigher.weight(edge), weights[i], name + " " + edge);
+                    i += 1;
+                }
+                assertEquals(count, i);
+            }
+        }
+    }
+
+    @DisplayName("Shortest paths found using bulk weighing match those found edge by edge")
+    @Test
+    void testBulkShortestPaths() {
+        ImageGraph graph = new ImageGraph(randomImage(16, 12, BufferedImage.TYPE_INT_RGB));
+        Weigher<ImageEdge> bulk = ScissorsWeights.makeWeigher("ColorAware", graph);
+        // A lambda only implements `Weigher`, forcing the edge-by-edge code path
+        Weigher<ImageEdge> perEdge = bulk::weight;
+
+        PathfindingSnapshot expected = new ShortestPaths<>(graph, perEdge).findAllPaths(0);
+        PathfindingSnapshot actual = new ShortestPaths<>(graph, bulk).findAllPaths(0);
+        for (int id = 0; id < graph.vertexCount(); ++id) {
+            assertEquals(expected.distanceTo(id), actual.distanceTo(id));
+        }
+    }
+
+    @DisplayName("GIVEN an image with a vertical step edge, WHEN weighed by MortensenBarrett, THEN "
+            + "edges along the step's zero-crossings are cheaper than edges across it or in flat "
+            + "regions")
+    @Test
+    void testMortensenBarrettStepEdge() {
+        ImageGraph graph = new ImageGraph(splitImage(16, 12, 0x202020, 0xc0c0c0));
+        var weigher = (ScissorsWeights.MortensenBarrettWeight) ScissorsWeights.makeWeigher(
+                "MortensenBarrett", graph);
+        // The zero-crossings lie in one of the two columns beside the step (whichever is closer
+        //  to zero after rounding); direction 2 points up
+        int x = (weigher.features().zeroCrossing[7 + 16 * 5] == 1) ? 7 : 8;
+        assertEquals(1, weigher.features().zeroCrossing[x + 16 * 5]);
+        int along = weight(weigher, graph, x, 5, 2);
+        assertEquals(along, weight(weigher, graph, x, 5, 6));
+        assertTrue(along < weight(weigher, graph, x, 5, 0), "along " + along);
+        assertTrue(along < weight(weigher, graph, x, 5, 4), "along " + along);
+        assertTrue(along < weight(weigher, graph, 3, 5, 2), "along " + along);
+    }
+
+    @DisplayName("GIVEN a smooth ramp, WHEN its features are computed, THEN rounding error in its "
+            + "Laplacian produces no zero-crossings; GIVEN a step edge, THEN it does")
+    @Test
+    void testZeroCrossingsIgnoreRoundingError() {
+        int width = 32;
+        int height = 24;
+        float[] ramp = new float[width * height];
+        for (int y = 0; y < height; ++y) {
+            for (int x = 0; x < width; ++x) {
+                ramp[x + width * y] = 3.7f * x + 1.3f * y;
+            }
+        }
+        FeaturePlanes features = FeaturePlanes.compute(ramp, width, height);
+        // Near the border, replicated pixels bend the ramp, so its Laplacian genuinely changes
+        //  sign there
+        int margin = 4;
+        for (int y = margin; y < height - margin; ++y) {
+            for (int x = margin; x < width - margin; ++x) {
+                assertEquals(0, features.zeroCrossing[x + width * y], "pixel " + x + ", " + y);
+            }
+        }
+
+        features = FeaturePlanes.compute(
+                new ImageGraph(splitImage(width, height, 0x202020, 0xc0c0c0)).raster());
+        for (int y = 0; y < height; ++y) {
+            int id = width / 2 + width * y;
+            assertEquals(1, features.zeroCrossing[id - 1] | features.zeroCrossing[id], "row " + y);
+        }
+    }
+
+    @DisplayName("GIVEN an image with a weak and a strong step edge, WHEN a Trained weigher is "
+            + "trained on a segment along the weak edge, THEN edges leading to pixels with that "
+            + "gradient become cheaper and those leading to the strong edge costlier, AND WHEN it "
+            + "is untrained, THEN the original costs are restored")
+    @Test
+    void testTrainedOnEdge() {
+        int width = 24;
+        int height = 12;
+        BufferedImage img = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        for (int y = 0; y < height; ++y) {
+            for (int x = 0; x < width; ++x) {
+                img.setRGB(x, y, (x < 8) ? 0x404040 : (x < 16) ? 0x606060 : 0xe0e0e0);
+            }
+        }
+        ImageGraph graph = new ImageGraph(img);
+        var original = (ScissorsWeights.TrainedWeight) ScissorsWeights.makeWeigher("Trained",
+                graph);
+        FeaturePlanes features = original.features();
+        int weakGradient = features.gradient[8 + width * 5] & 0xff;
+        assertTrue(weakGradient > 0 && weakGradient < 128, "weak gradient " + weakGradient);
+
+        // Trace down the right side of the weak edge
+        int[] xs = new int[height];
+        int[] ys = new int[height];
+        Arrays.fill(xs, 8);
+        Arrays.setAll(ys, i -> i);
+        ScissorsWeights.TrainedWeight trained = original.trainedOn(new PolyLine(xs, ys));
+
+        int cheaper = 0;
+        int costlier = 0;
+        for (int id = 0; id < graph.vertexCount(); ++id) {
+            for (ImageEdge edge : graph.getVertex(id).outgoingEdges()) {
+                int gradient = features.gradient[edge.endId()] & 0xff;
+                if (gradient == weakGradient) {
+                    assertTrue(trained.weight(edge) < original.weight(edge), edge.toString());
+                    cheaper += 1;
+                } else if (gradient == 255) {
+                    assertTrue(trained.weight(edge) > original.weight(edge), edge.toString());
+                    costlier += 1;
+                }
+            }
+        }
+        assertTrue(cheaper > 0 && costlier > 0);
+
+        Weigher<ImageEdge> untrained = trained.untrained();
+        for (int id = 0; id < graph.vertexCount(); ++id) {
+            for (ImageEdge edge : graph.getVertex(id).outgoingEdges()) {
+                assertEquals(original.weight(edge), untrained.weight(edge), edge.toString());
+            }
+        }
+    }
+
+    @DisplayName("GIVEN an image with a step edge and a single-pixel speckle of the same contrast, "
+            + "WHEN weighed by MultiScale, THEN edges along the step are cheapest, and edges "
+            + "beside the speckle cost closer to flat regions than to the step and more than they "
+            + "do under CrossGradMono")
+    @Test
+    void testMultiScaleIgnoresSpeckle() {
+        BufferedImage img = splitImage(32, 24, 0x404040, 0xc0c0c0);
+        img.setRGB(6, 12, 0xc0c0c0);
+        ImageGraph graph = new ImageGraph(img);
+        Weigher<ImageEdge> weigher = ScissorsWeights.makeWeigher("MultiScale", graph);
+        int along = weight(weigher, graph, 15, 6, 2);
+        int across = weight(weigher, graph, 15, 6, 0);
+        int flat = weight(weigher, graph, 4, 6, 2);
+        assertTrue(along < across && along < flat, along + " along, " + across + " across, "
+                + flat + " flat");
+
+        // Running up past the left side of the speckle
+        int speckle = weight(weigher, graph, 5, 12, 2);
+        assertTrue(2 * speckle > along + flat, speckle + " beside speckle");
+        Weigher<ImageEdge> mono = ScissorsWeights.makeWeigher("CrossGradMono", graph);
+        assertTrue(speckle > weight(mono, graph, 5, 12, 2));
+    }
+
+    @DisplayName("GIVEN an image split between two colors of equal brightness and CIELAB "
+            + "lightness, WHEN weighed by Lab, THEN edges along the boundary are much cheaper than "
+            + "edges across it or in flat regions, while CrossGradMono cannot tell them apart")
+    @Test
+    void testLabSeparatesIsoluminantColors() {
+        // Both colors have band average 120 and L of about 47.5, differing only in a and b
+        ImageGraph graph = new ImageGraph(splitImage(16, 12, 0xc83c64, 0x1c6ce0));
+        float[][] lab = ImageFilters.labPlanes(graph.raster());
+        assertEquals(lab[0][0], lab[0][15], 0.5f);
+
+        Weigher<ImageEdge> weigher = ScissorsWeights.makeWeigher("Lab", graph);
+        int along = weight(weigher, graph, 7, 5, 2);
+        int across = weight(weigher, graph, 7, 5, 0);
+        int flat = weight(weigher, graph, 3, 5, 2);
+        assertTrue(2 * along < across && 2 * along < flat, along + " along, " + across
+                + " across, " + flat + " flat");
+
+        Weigher<ImageEdge> mono = ScissorsWeights.makeWeigher("CrossGradMono", graph);
+        assertEquals(weight(mono, graph, 3, 5, 2), weight(mono, graph, 7, 5, 2));
+    }
+}
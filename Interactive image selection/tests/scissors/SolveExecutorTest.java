@@ -0,0 +1,110 @@
+package scissors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import metrics.Histogram;
+import metrics.Metrics;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class SolveExecutorTest {
+
+    /**
+     * Wait until `executor` reports `completed` completed solves.
+     */
+    static void awaitCompleted(SolveExecutor executor, long completed) throws Exception {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (executor.stats().completed() < completed) {
+            assertTrue(System.nanoTime() < deadline, "Timed out: " + executor.stats());
+            Thread.sleep(5);
+        }
+    }
+
+    @DisplayName("GIVEN a single-threaded platform executor running a solve, WHEN more solves are "
+            + "submitted, THEN they are reported as queued until it finishes, after which all are "
+            + "reported as completed with nonzero queue latency")
+    @Test
+    void testPlatformQueueDepth() throws Exception {
+        SolveExecutor executor =
+                new SolveExecutor(SolveExecutor.Backend.PLATFORM, 1, Thread.NORM_PRIORITY);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        executor.execute(() -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        executor.execute(() -> {});
+        executor.execute(() -> {});
+
+        SolveExecutor.Stats blocked = executor.stats();
+        assertEquals(2, blocked.queued());
+        assertEquals(1, blocked.running());
+        assertEquals(0, blocked.completed());
+
+        Thread.sleep(10);
+        release.countDown();
+        awaitCompleted(executor, 3);
+        SolveExecutor.Stats done = executor.stats();
+        assertEquals(0, done.queued());
+        assertEquals(0, done.running());
+        assertTrue(done.maxQueueMillis() >= 10, done.toString());
+    }
+
+    @DisplayName("GIVEN a virtual-thread executor, WHEN solves are submitted, THEN each runs on a "
+            + "virtual thread and is reported as completed")
+    @Test
+    void testVirtual() throws Exception {
+        SolveExecutor executor =
+                new SolveExecutor(SolveExecutor.Backend.VIRTUAL, 1, Thread.NORM_PRIORITY);
+        CountDownLatch ran = new CountDownLatch(3);
+        for (int i = 0; i < 3; ++i) {
+            executor.execute(() -> {
+                assertTrue(Thread.currentThread().isVirtual());
+                ran.countDown();
+            });
+        }
+        assertTrue(ran.await(5, TimeUnit.SECONDS));
+        awaitCompleted(executor, 3);
+    }
+
+    @DisplayName("GIVEN the shared executor, WHEN solves complete, THEN their queue latencies and "
+            + "run times are recorded in the metrics registry")
+    @Test
+    void testSharedPublishesMetrics() throws Exception {
+        Histogram queueNanos = Metrics.histogram(Metrics.SOLVE_QUEUE_NANOS);
+        Histogram runNanos = Metrics.histogram(Metrics.SOLVE_RUN_NANOS);
+        Histogram.Snapshot queueBefore = queueNanos.snapshot();
+        Histogram.Snapshot runBefore = runNanos.snapshot();
+
+        SolveExecutor executor = SolveExecutor.shared();
+        long completed = executor.stats().completed();
+        for (int i = 0; i < 3; ++i) {
+            executor.execute(() -> {});
+        }
+        awaitCompleted(executor, completed + 3);
+        assertTrue(queueNanos.snapshot().minus(queueBefore).count() >= 3);
+        assertTrue(runNanos.snapshot().minus(runBefore).count() >= 3);
+    }
+
+    @DisplayName("GIVEN invalid values for the executor's system properties, WHEN they are read, "
+            + "THEN their defaults are used instead; GIVEN valid values, THEN they are used")
+    @Test
+    void testSettings() {
+        assertEquals(SolveExecutor.Backend.PLATFORM, SolveExecutor.backendSetting(null));
+        assertEquals(SolveExecutor.Backend.PLATFORM, SolveExecutor.backendSetting("carrier"));
+        assertEquals(SolveExecutor.Backend.VIRTUAL, SolveExecutor.backendSetting("Virtual"));
+
+        assertEquals(3, SolveExecutor.intSetting("p", null, 3, 1, 10));
+        assertEquals(3, SolveExecutor.intSetting("p", "many", 3, 1, 10));
+        assertEquals(3, SolveExecutor.intSetting("p", "0", 3, 1, 10));
+        assertEquals(3, SolveExecutor.intSetting("p", "11", 3, 1, 10));
+        assertEquals(7, SolveExecutor.intSetting("p", " 7", 3, 1, 10));
+    }
+}
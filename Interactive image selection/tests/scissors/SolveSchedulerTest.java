@@ -0,0 +1,86 @@
+package scissors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.swing.SwingUtilities;
+import javax.swing.SwingWorker;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class SolveSchedulerTest {
+
+    /**
+     * A stand-in for a solve that records when it runs, blocks until released (while remaining
+     * responsive to cancellation), and tracks how many such solves are running at once.
+     */
+    static class FakeSolve extends SwingWorker<Void, Void> {
+        final String name;
+        final List<String> ran;
+        final AtomicInteger concurrent;
+        final AtomicInteger maxConcurrent;
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release;
+
+        FakeSolve(String name, List<String> ran, AtomicInteger concurrent,
+                AtomicInteger maxConcurrent, CountDownLatch release) {
+            this.name = name;
+            this.ran = ran;
+            this.concurrent = concurrent;
+            this.maxConcurrent = maxConcurrent;
+            this.release = release;
+        }
+
+        @Override
+        protected Void doInBackground() throws InterruptedException {
+            maxConcurrent.accumulateAndGet(concurrent.incrementAndGet(), Math::max);
+            ran.add(name);
+            started.countDown();
+            try {
+                while (!isCancelled() && !release.await(1, TimeUnit.MILLISECONDS)) {
+                    // Keep waiting
+                }
+            } finally {
+                concurrent.decrementAndGet();
+            }
+            return null;
+        }
+    }
+
+    @DisplayName("GIVEN a solve is running, WHEN several more are submitted in quick succession, "
+            + "THEN the running one is cancelled, only the last submitted one runs next, and no "
+            + "two ever run at once")
+    @Test
+    void testCoalescing() throws Exception {
+        SolveScheduler scheduler = new SolveScheduler(20);
+        List<String> ran = new CopyOnWriteArrayList<>();
+        AtomicInteger concurrent = new AtomicInteger();
+        AtomicInteger maxConcurrent = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        FakeSolve first = new FakeSolve("first", ran, concurrent, maxConcurrent, release);
+        FakeSolve second = new FakeSolve("second", ran, concurrent, maxConcurrent, release);
+        FakeSolve third = new FakeSolve("third", ran, concurrent, maxConcurrent, release);
+        FakeSolve last =
+                new FakeSolve("last", ran, concurrent, maxConcurrent, new CountDownLatch(0));
+
+        SwingUtilities.invokeAndWait(() -> scheduler.submit(first));
+        assertTrue(first.started.await(5, TimeUnit.SECONDS));
+        SwingUtilities.invokeAndWait(() -> {
+            scheduler.submit(second);
+            scheduler.submit(third);
+            scheduler.submit(last);
+        });
+        assertTrue(last.started.await(5, TimeUnit.SECONDS));
+        last.get(5, TimeUnit.SECONDS);
+
+        assertTrue(first.isCancelled());
+        assertTrue(second.isCancelled());
+        assertTrue(third.isCancelled());
+        assertEquals(List.of("first", "last"), ran);
+        assertEquals(1, maxConcurrent.get());
+    }
+}
@@ -0,0 +1,118 @@
+package scissors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import graph.Weigher;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import javax.swing.SwingUtilities;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class WeigherCacheTest {
+
+    /**
+     * The cache is shared by the whole process, so leave it empty for other tests.
+     */
+    @AfterEach
+    void clearCache() throws Exception {
+        SwingUtilities.invokeAndWait(WeigherCache::clear);
+    }
+
+    /**
+     * Return the cached weigher named `name` for `graph`, requested on the EDT.
+     */
+    private static CompletableFuture<Weigher<ImageEdge>> weigher(String name, ImageGraph graph,
+            boolean precomputeAll) throws Exception {
+        List<CompletableFuture<Weigher<ImageEdge>>> result = new ArrayList<>();
+        SwingUtilities.invokeAndWait(
+                () -> result.add(WeigherCache.weigher(name, graph, precomputeAll)));
+        return result.getFirst();
+    }
+
+    /**
+     * Return the names of the weighers currently cached, queried on the EDT.
+     */
+    private static Set<String> cachedNames() throws Exception {
+        List<Set<String>> result = new ArrayList<>();
+        SwingUtilities.invokeAndWait(() -> result.add(WeigherCache.cachedNames()));
+        return result.getFirst();
+    }
+
+    @DisplayName("GIVEN two graphs of the same image, WHEN the same weigher is requested for each, "
+            + "THEN it is built once and shared, while a different weigher is built separately")
+    @Test
+    void testSharing() throws Exception {
+        BufferedImage img = ScissorsWeightsTest.randomImage(9, 7, BufferedImage.TYPE_INT_RGB);
+        CompletableFuture<Weigher<ImageEdge>> first =
+                weigher("CrossGradMono", new ImageGraph(img), false);
+        CompletableFuture<Weigher<ImageEdge>> second =
+                weigher("CrossGradMono", new ImageGraph(img), false);
+        assertSame(first, second);
+        assertSame(first.get(), second.get());
+
+        CompletableFuture<Weigher<ImageEdge>> other = weigher("Lab", new ImageGraph(img), false);
+        assertNotSame(first, other);
+        assertNotSame(first.get(), other.get());
+        assertEquals(Set.of("CrossGradMono", "Lab"), cachedNames());
+    }
+
+    @DisplayName("GIVEN cached weighers for an image, WHEN a weigher is requested for another "
+            + "image, THEN the weighers for the first image are discarded")
+    @Test
+    void testEvictionOnNewImage() throws Exception {
+        BufferedImage img = ScissorsWeightsTest.randomImage(9, 7, BufferedImage.TYPE_INT_RGB);
+        ImageGraph graph = new ImageGraph(img);
+        CompletableFuture<Weigher<ImageEdge>> original = weigher("CrossGradMono", graph, false);
+        weigher("Lab", graph, false).get();
+
+        BufferedImage otherImg = ScissorsWeightsTest.randomImage(9, 7,
+                BufferedImage.TYPE_INT_RGB);
+        weigher("ColorAware", new ImageGraph(otherImg), false).get();
+        assertEquals(Set.of("ColorAware"), cachedNames());
+
+        CompletableFuture<Weigher<ImageEdge>> rebuilt = weigher("CrossGradMono", graph, false);
+        assertNotSame(original, rebuilt);
+        assertNotSame(original.get(), rebuilt.get());
+    }
+
+    @DisplayName("GIVEN cached weighers, WHEN the cache is cleared, THEN nothing is cached and "
+            + "the next request builds a new weigher")
+    @Test
+    void testClear() throws Exception {
+        ImageGraph graph = new ImageGraph(
+                ScissorsWeightsTest.randomImage(9, 7, BufferedImage.TYPE_INT_RGB));
+        CompletableFuture<Weigher<ImageEdge>> original = weigher("CrossGradMono", graph, false);
+        original.get();
+
+        SwingUtilities.invokeAndWait(WeigherCache::clear);
+        assertEquals(Set.of(), cachedNames());
+
+        CompletableFuture<Weigher<ImageEdge>> rebuilt = weigher("CrossGradMono", graph, false);
+        assertNotSame(original, rebuilt);
+        assertNotSame(original.get(), rebuilt.get());
+    }
+
+    @DisplayName("GIVEN precomputing all weighers, WHEN one weigher is requested for a new image, "
+            + "THEN every other weigher is also built for it and later requests share them")
+    @Test
+    void testPrecomputeAll() throws Exception {
+        ImageGraph graph = new ImageGraph(
+                ScissorsWeightsTest.randomImage(9, 7, BufferedImage.TYPE_INT_RGB));
+        weigher("Lab", graph, true);
+        Set<String> names = new HashSet<>();
+        ScissorsWeights.weightNames().forEach(names::add);
+        assertEquals(names, cachedNames());
+
+        for (String name : ScissorsWeights.weightNames()) {
+            CompletableFuture<Weigher<ImageEdge>> precomputed = weigher(name, graph, false);
+            assertSame(precomputed, weigher(name, graph, true), name);
+            assertNotNull(precomputed.get(), name);
+        }
+    }
+}
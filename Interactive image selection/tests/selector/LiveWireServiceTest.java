@@ -0,0 +1,100 @@
+package selector;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.awt.Point;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import javax.swing.SwingUtilities;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class LiveWireServiceTest {
+
+    /**
+     * Wait until all events currently queued on the EDT have been processed.
+     */
+    static void flushEdt() throws Exception {
+        SwingUtilities.invokeAndWait(() -> {});
+    }
+
+    @DisplayName("GIVEN a live wire is being computed, WHEN several more points are requested, "
+            + "THEN only the latest of them is computed, and its live wire is delivered last")
+    @Test
+    void testCoalescing() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<Point> computed = new CopyOnWriteArrayList<>();
+        Function<Point, PolyLine> function = p -> {
+            computed.add(p);
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+            return new PolyLine(new Point(0, 0), p);
+        };
+        List<PolyLine> delivered = new CopyOnWriteArrayList<>();
+        LiveWireService service = new LiveWireService(delivered::add);
+
+        SwingUtilities.invokeAndWait(() -> {
+            service.setFunction(function);
+            service.request(new Point(1, 1));
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        SwingUtilities.invokeAndWait(() -> {
+            service.request(new Point(2, 2));
+            service.request(new Point(3, 3));
+            service.request(new Point(4, 4));
+        });
+        release.countDown();
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (computed.size() < 2 || delivered.isEmpty()
+                || !delivered.getLast().end().equals(new Point(4, 4))) {
+            assertTrue(System.nanoTime() < deadline, "Timed out; computed " + computed);
+            Thread.sleep(10);
+            flushEdt();
+        }
+        assertEquals(List.of(new Point(1, 1), new Point(4, 4)), computed);
+    }
+
+    @DisplayName("GIVEN a live wire is being computed, WHEN the function is replaced, THEN the "
+            + "result computed with the old function is not delivered")
+    @Test
+    void testStaleDropped() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch finished = new CountDownLatch(1);
+        Function<Point, PolyLine> slow = p -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+            finished.countDown();
+            return new PolyLine(new Point(0, 0), p);
+        };
+        List<PolyLine> delivered = new CopyOnWriteArrayList<>();
+        LiveWireService service = new LiveWireService(delivered::add);
+
+        SwingUtilities.invokeAndWait(() -> {
+            service.setFunction(slow);
+            service.request(new Point(1, 1));
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        SwingUtilities.invokeAndWait(() -> service.setFunction(null));
+        release.countDown();
+        assertTrue(finished.await(5, TimeUnit.SECONDS));
+
+        // Give the stale result time to reach the EDT
+        Thread.sleep(50);
+        flushEdt();
+        assertTrue(delivered.isEmpty());
+    }
+}
@@ -0,0 +1,80 @@
+package selector;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.awt.Point;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import selector.SessionRecording.Action;
+import selector.SessionRecording.Event;
+
+class SessionRecordingTest {
+
+    @DisplayName("GIVEN a recorded session with every kind of action, WHEN it is read back, THEN "
+            + "the image size and each event's action, point and index are preserved, in order")
+    @Test
+    void testRoundTrip() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (SessionRecorder recorder = new SessionRecorder(bytes, 640, 480)) {
+            recorder.record(Action.ADD_POINT, new Point(10, 20));
+            recorder.record(Action.MOVE, new Point(11, 19));
+            recorder.record(Action.MOVE, new Point(639, 0));
+            recorder.record(Action.DRAG, new Point(0, 479));
+            recorder.record(Action.UNDO);
+            recorder.record(Action.CANCEL);
+            recorder.record(Action.FINISH);
+            recorder.recordMovePoint(3, new Point(5, 6));
+            recorder.record(Action.RESET);
+        }
+
+        SessionRecording session = SessionRecording.read(
+                new ByteArrayInputStream(bytes.toByteArray()));
+        assertEquals(640, session.width());
+        assertEquals(480, session.height());
+        List<Event> events = session.events();
+        assertEquals(List.of(Action.ADD_POINT, Action.MOVE, Action.MOVE, Action.DRAG, Action.UNDO,
+                        Action.CANCEL, Action.FINISH, Action.MOVE_POINT, Action.RESET),
+                events.stream().map(Event::action).toList());
+        assertEquals(new Point(10, 20), new Point(events.get(0).x(), events.get(0).y()));
+        assertEquals(new Point(11, 19), new Point(events.get(1).x(), events.get(1).y()));
+        assertEquals(new Point(639, 0), new Point(events.get(2).x(), events.get(2).y()));
+        assertEquals(new Point(0, 479), new Point(events.get(3).x(), events.get(3).y()));
+        assertEquals(new Point(5, 6), new Point(events.get(7).x(), events.get(7).y()));
+        assertEquals(3, events.get(7).index());
+        for (Event e : events) {
+            assertTrue(e.micros() >= 0);
+        }
+
+        // A small mouse movement takes only a few bytes
+        assertTrue(bytes.size() < 4 + 4 + 9 * 6, "Session took " + bytes.size() + " bytes");
+    }
+
+    @DisplayName("GIVEN a session whose last event was cut short, WHEN it is read, THEN the "
+            + "complete events before it are returned")
+    @Test
+    void testTruncated() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (SessionRecorder recorder = new SessionRecorder(bytes, 100, 100)) {
+            recorder.record(Action.ADD_POINT, new Point(50, 50));
+            recorder.record(Action.MOVE, new Point(99, 99));
+        }
+        byte[] truncated = Arrays.copyOf(bytes.toByteArray(), bytes.size() - 1);
+
+        SessionRecording session = SessionRecording.read(new ByteArrayInputStream(truncated));
+        assertEquals(List.of(new Event(Action.ADD_POINT, session.events().getFirst().micros(), 50,
+                50, 0)), session.events());
+    }
+
+    @DisplayName("WHEN a stream that is not a recorded session is read, THEN an IOException is "
+            + "thrown")
+    @Test
+    void testNotASession() {
+        assertThrows(IOException.class, () -> SessionRecording.read(
+                new ByteArrayInputStream(new byte[]{'P', 'N', 'G', 0, 1, 2})));
+    }
+}
@@ -0,0 +1,99 @@
+package selector;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class TiledLayerTest {
+
+    private static final int OPAQUE_RED = 0xffff0000;
+
+    /**
+     * Return a layer that draws a single red pixel at `p` (which must be in the layer), recording
+     * the tiles it is asked to render in `rendered`.
+     */
+    private static TiledLayer dotLayer(int width, int height, int px, int py,
+            List<Rectangle> rendered) {
+        return new TiledLayer(width, height, (layer, tile) -> {
+            rendered.add(tile);
+            if (tile.contains(px, py)) {
+                layer.setRGB(px, py, OPAQUE_RED);
+            }
+        });
+    }
+
+    /**
+     * Paint `layer` onto a new image of its size, clipped to `clip`, and return the image.
+     */
+    private static BufferedImage paint(TiledLayer layer, Rectangle clip) {
+        BufferedImage img = new BufferedImage(layer.width(), layer.height(),
+                BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = img.createGraphics();
+        g.setClip(clip);
+        layer.paint(g);
+        g.dispose();
+        return img;
+    }
+
+    @DisplayName("GIVEN a large layer with content in one tile, WHEN all of it is painted, THEN "
+            + "every tile is rendered once but only the tile with content is allocated")
+    @Test
+    void testOnlyTilesWithContentAllocated() {
+        List<Rectangle> rendered = new ArrayList<>();
+        TiledLayer layer = dotLayer(1000, 600, 300, 520, rendered);
+        BufferedImage img = paint(layer, new Rectangle(0, 0, 1000, 600));
+        assertEquals(4 * 3, rendered.size());
+        assertEquals(1, layer.allocatedTiles());
+        assertEquals(OPAQUE_RED, img.getRGB(300, 520));
+        assertEquals(0, img.getRGB(301, 520));
+        // Edge tiles only cover the layer
+        assertTrue(rendered.contains(new Rectangle(768, 512, 232, 88)));
+
+        paint(layer, new Rectangle(0, 0, 1000, 600));
+        assertEquals(4 * 3, rendered.size());
+    }
+
+    @DisplayName("GIVEN a layer, WHEN part of it is painted, THEN only the tiles overlapping the "
+            + "clip are rendered")
+    @Test
+    void testRendersOnlyClip() {
+        List<Rectangle> rendered = new ArrayList<>();
+        TiledLayer layer = dotLayer(1000, 600, 300, 520, rendered);
+        paint(layer, new Rectangle(10, 10, 300, 20));
+        assertEquals(List.of(new Rectangle(0, 0, 256, 256), new Rectangle(256, 0, 256, 256)),
+                rendered);
+        assertEquals(0, layer.allocatedTiles());
+        assertFalse(layer.isRendered(300, 520));
+    }
+
+    @DisplayName("GIVEN a painted layer, WHEN a region is invalidated or tiles outside an area are "
+            + "evicted, THEN those tiles are released and rendered again when next painted")
+    @Test
+    void testInvalidateAndEvict() {
+        List<Rectangle> rendered = new ArrayList<>();
+        TiledLayer layer = dotLayer(1000, 600, 300, 520, rendered);
+        Rectangle all = new Rectangle(0, 0, 1000, 600);
+        paint(layer, all);
+
+        rendered.clear();
+        layer.invalidate(new Rectangle(290, 515, 20, 20));
+        assertEquals(0, layer.allocatedTiles());
+        assertEquals(OPAQUE_RED, paint(layer, all).getRGB(300, 520));
+        assertEquals(List.of(new Rectangle(256, 512, 256, 88)), rendered);
+
+        rendered.clear();
+        layer.evictOutside(new Rectangle(0, 0, 100, 100));
+        assertEquals(0, layer.allocatedTiles());
+        assertTrue(layer.isRendered(50, 50));
+        assertFalse(layer.isRendered(300, 520));
+        paint(layer, all);
+        assertEquals(4 * 3 - 1, rendered.size());
+        assertEquals(1, layer.allocatedTiles());
+    }
+}